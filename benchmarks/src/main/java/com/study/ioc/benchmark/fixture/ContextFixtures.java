@@ -0,0 +1,62 @@
+package com.study.ioc.benchmark.fixture;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Generates synthetic context XML: {@code beanCount} {@link Node} beans with three value properties each,
+ * wired into the requested {@link GraphShape}, plus one {@link DefaultNodeService} referencing the first node.
+ */
+public class ContextFixtures {
+    public static final String SERVICE_ID = "nodeService";
+
+    public static byte[] generate(int beanCount, GraphShape shape) {
+        StringBuilder xml = new StringBuilder(beanCount * 256);
+        xml.append("<beans>\n");
+        for (int i = 0; i < beanCount; i++) {
+            xml.append("    <bean id=\"").append(nodeId(i)).append("\" class=\"").append(Node.class.getName()).append("\">\n");
+            appendValue(xml, "name", nodeId(i));
+            appendValue(xml, "weight", String.valueOf(i));
+            appendValue(xml, "enabled", String.valueOf(i % 2 == 0));
+            switch (shape) {
+                case CHAIN:
+                    if (i > 0) {
+                        appendRef(xml, "left", nodeId(i - 1));
+                    }
+                    break;
+                case FAN_IN:
+                    if (i > 0) {
+                        appendRef(xml, "left", nodeId(0));
+                    }
+                    break;
+                case TREE:
+                    if (2 * i + 1 < beanCount) {
+                        appendRef(xml, "left", nodeId(2 * i + 1));
+                    }
+                    if (2 * i + 2 < beanCount) {
+                        appendRef(xml, "right", nodeId(2 * i + 2));
+                    }
+                    break;
+                default:
+                    break;
+            }
+            xml.append("    </bean>\n");
+        }
+        xml.append("    <bean id=\"").append(SERVICE_ID).append("\" class=\"").append(DefaultNodeService.class.getName()).append("\">\n");
+        appendRef(xml, "root", nodeId(0));
+        xml.append("    </bean>\n");
+        xml.append("</beans>\n");
+        return xml.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    public static String nodeId(int index) {
+        return "node" + index;
+    }
+
+    private static void appendValue(StringBuilder xml, String name, String value) {
+        xml.append("        <property name=\"").append(name).append("\" value=\"").append(value).append("\"/>\n");
+    }
+
+    private static void appendRef(StringBuilder xml, String name, String ref) {
+        xml.append("        <property name=\"").append(name).append("\" ref=\"").append(ref).append("\"/>\n");
+    }
+}
@@ -0,0 +1,14 @@
+package com.study.ioc.benchmark.fixture;
+
+public class DefaultNodeService implements NodeService {
+    private Node root;
+
+    @Override
+    public Node getRoot() {
+        return root;
+    }
+
+    public void setRoot(Node root) {
+        this.root = root;
+    }
+}
@@ -0,0 +1,15 @@
+package com.study.ioc.benchmark.fixture;
+
+/**
+ * How the generated beans reference each other.
+ */
+public enum GraphShape {
+    /** No refs at all, only values. */
+    FLAT,
+    /** Every node references the previous one. */
+    CHAIN,
+    /** Every node references the first node. */
+    FAN_IN,
+    /** A binary tree, every node references its two children. */
+    TREE
+}
@@ -0,0 +1,5 @@
+package com.study.ioc.benchmark.fixture;
+
+public interface NodeService {
+    Node getRoot();
+}
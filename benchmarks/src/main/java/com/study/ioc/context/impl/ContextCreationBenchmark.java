@@ -0,0 +1,95 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.benchmark.fixture.GraphShape;
+import com.study.ioc.entity.Bean;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.reader.BeanDefinitionReader;
+import com.study.ioc.reader.sax.FixtureDefinitions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean creation and wiring on pre-parsed definitions, plus full context startup in the eager, lazy
+ * and parallel modes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ContextCreationBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int beanCount;
+
+    @Param({"FLAT", "CHAIN", "FAN_IN", "TREE"})
+    private GraphShape shape;
+
+    private Map<String, BeanDefinition> beanDefinitions;
+    private BeanDefinitionReader reader;
+    private GenericApplicationContext context;
+
+    @Setup
+    public void setUp() {
+        beanDefinitions = FixtureDefinitions.generate(beanCount, shape);
+        reader = () -> beanDefinitions;
+        context = new GenericApplicationContext();
+    }
+
+    @Benchmark
+    public Map<String, Bean> createBeans() {
+        return context.createBeans(beanDefinitions);
+    }
+
+    @Benchmark
+    public Map<String, Bean> injectValueDependencies(CreatedBeans createdBeans) {
+        context.injectValueDependencies(beanDefinitions, createdBeans.beans);
+        return createdBeans.beans;
+    }
+
+    @Benchmark
+    public Map<String, Bean> injectRefDependencies(CreatedBeans createdBeans) {
+        context.injectRefDependencies(beanDefinitions, createdBeans.beans);
+        return createdBeans.beans;
+    }
+
+    @Benchmark
+    public GenericApplicationContext startEager() {
+        return new GenericApplicationContext(reader);
+    }
+
+    @Benchmark
+    public GenericApplicationContext startLazy() {
+        return new GenericApplicationContext(reader, true);
+    }
+
+    @Benchmark
+    public GenericApplicationContext startParallel() {
+        return new GenericApplicationContext(reader, ForkJoinPool.commonPool());
+    }
+
+    @State(Scope.Thread)
+    public static class CreatedBeans {
+        private Map<String, Bean> beans;
+
+        @Setup(Level.Invocation)
+        public void setUp(ContextCreationBenchmark benchmark) {
+            beans = benchmark.context.createBeans(benchmark.beanDefinitions);
+        }
+    }
+}
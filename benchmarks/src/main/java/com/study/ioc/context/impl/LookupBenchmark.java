@@ -0,0 +1,95 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.benchmark.fixture.ContextFixtures;
+import com.study.ioc.benchmark.fixture.GraphShape;
+import com.study.ioc.benchmark.fixture.Node;
+import com.study.ioc.benchmark.fixture.NodeService;
+import com.study.ioc.context.BeanHandle;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.reader.sax.FixtureDefinitions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups on a started context, single-threaded and with all cores hitting the same context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LookupBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int beanCount;
+
+    private GenericApplicationContext context;
+    private String nodeId;
+    private BeanHandle<Node> nodeHandle;
+
+    @Setup
+    public void setUp() {
+        Map<String, BeanDefinition> beanDefinitions = FixtureDefinitions.generate(beanCount, GraphShape.TREE);
+        context = new GenericApplicationContext(() -> beanDefinitions);
+        nodeId = ContextFixtures.nodeId(beanCount / 2);
+        nodeHandle = context.handle(nodeId, Node.class);
+    }
+
+    @Benchmark
+    public Object getBeanById() {
+        return context.getBean(nodeId);
+    }
+
+    @Benchmark
+    public NodeService getBeanByClass() {
+        return context.getBean(NodeService.class);
+    }
+
+    @Benchmark
+    public Node getBeanByIdAndClass() {
+        return context.getBean(nodeId, Node.class);
+    }
+
+    @Benchmark
+    public Node getBeanByHandle() {
+        return nodeHandle.get();
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object getBeanByIdContended() {
+        return context.getBean(nodeId);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public NodeService getBeanByClassContended() {
+        return context.getBean(NodeService.class);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Node getBeanByIdAndClassContended() {
+        return context.getBean(nodeId, Node.class);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Node getBeanByHandleContended() {
+        return nodeHandle.get();
+    }
+}
@@ -0,0 +1,98 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.benchmark.fixture.ContextFixtures;
+import com.study.ioc.benchmark.fixture.GraphShape;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.reader.sax.FixtureDefinitions;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Heap retained by parsed definitions and by started contexts, reported as the {@code retainedBytes} counter
+ * for every iteration; the summary line sums it over the measurement iterations. Every operation measures the
+ * used heap after full GCs before and after building the object it returns, so the timings only tell how long
+ * that took. The contexts are built from freshly parsed definitions that nothing else holds on to, the eager
+ * context should retain its beans only, the lazy one its definitions until they are used.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-XX:+UseSerialGC")
+public class MemoryBenchmark {
+
+    @Param({"1000", "100000"})
+    private int beanCount;
+
+    @Param({"FLAT", "TREE"})
+    private GraphShape shape;
+
+    @Benchmark
+    public Map<String, BeanDefinition> definitions(RetainedHeap retainedHeap) {
+        long before = usedHeap();
+        Map<String, BeanDefinition> beanDefinitions = FixtureDefinitions.generate(beanCount, shape);
+        retainedHeap.retainedBytes = usedHeap() - before;
+        return beanDefinitions;
+    }
+
+    @Benchmark
+    public GenericApplicationContext eagerContext(RetainedHeap retainedHeap) {
+        long before = usedHeap();
+        GenericApplicationContext context = new GenericApplicationContext(() -> FixtureDefinitions.generate(beanCount, shape));
+        retainedHeap.retainedBytes = usedHeap() - before;
+        return context;
+    }
+
+    @Benchmark
+    public GenericApplicationContext lazyContext(RetainedHeap retainedHeap) {
+        long before = usedHeap();
+        GenericApplicationContext context = new GenericApplicationContext(() -> FixtureDefinitions.generate(beanCount, shape), true);
+        retainedHeap.retainedBytes = usedHeap() - before;
+        return context;
+    }
+
+    @Benchmark
+    public GenericApplicationContext usedLazyContext(RetainedHeap retainedHeap) {
+        long before = usedHeap();
+        GenericApplicationContext context = new GenericApplicationContext(() -> FixtureDefinitions.generate(beanCount, shape), true);
+        for (int i = 0; i < beanCount; i++) {
+            context.getBean(ContextFixtures.nodeId(i));
+        }
+        retainedHeap.retainedBytes = usedHeap() - before;
+        return context;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class RetainedHeap {
+        public long retainedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            retainedBytes = 0;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.study.ioc.reader.sax;
+
+import com.study.ioc.benchmark.fixture.ContextFixtures;
+import com.study.ioc.benchmark.fixture.GraphShape;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.exception.ParseContextException;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+
+/**
+ * Parses generated fixtures for benchmarks outside this package, which can't reach
+ * {@link XmlBeanDefinitionReader#getBeanDefinitionMap} directly.
+ */
+public class FixtureDefinitions {
+
+    public static Map<String, BeanDefinition> generate(int beanCount, GraphShape shape) {
+        try {
+            return new XmlBeanDefinitionReader().getBeanDefinitionMap(new ByteArrayInputStream(ContextFixtures.generate(beanCount, shape)));
+        } catch (Exception e) {
+            throw new ParseContextException("Can't parse generated fixture", e);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.study.ioc.reader.sax;
+
+import com.study.ioc.benchmark.fixture.ContextFixtures;
+import com.study.ioc.benchmark.fixture.GraphShape;
+import com.study.ioc.entity.BeanDefinition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class XmlParsingBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    private int beanCount;
+
+    @Param({"FLAT", "TREE"})
+    private GraphShape shape;
+
+    private byte[] contextXml;
+    private XmlBeanDefinitionReader reader;
+
+    @Setup
+    public void setUp() {
+        contextXml = ContextFixtures.generate(beanCount, shape);
+        reader = new XmlBeanDefinitionReader();
+    }
+
+    @Benchmark
+    public Map<String, BeanDefinition> parse() throws Exception {
+        return reader.getBeanDefinitionMap(new ByteArrayInputStream(contextXml));
+    }
+}
@@ -0,0 +1,18 @@
+package com.study.ioc.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Injects a bean through the annotated setter. Without an id the single component assignable to the
+ * parameter type is used, it is resolved when the index is built.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Autowired {
+    String value() default "";
+}
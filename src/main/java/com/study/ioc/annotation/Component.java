@@ -0,0 +1,21 @@
+package com.study.ioc.annotation;
+
+import com.study.ioc.entity.Scope;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class as a bean. The id defaults to the simple class name with a lower-case first letter.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface Component {
+    String value() default "";
+
+    Scope scope() default Scope.SINGLETON;
+}
@@ -0,0 +1,229 @@
+package com.study.ioc.annotation.processor;
+
+import com.study.ioc.annotation.Autowired;
+import com.study.ioc.annotation.Component;
+import com.study.ioc.annotation.Value;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.reader.annotation.ComponentIndex;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects {@link Component} classes with their {@link Value} and {@link Autowired} setters and writes them to
+ * the {@link ComponentIndex} in the class output. {@link Autowired} setters without an id are resolved here
+ * against the known components, so the index only holds plain bean definitions. {@code javax.inject.Inject}
+ * setters are taken like {@link Autowired} ones, with the id of a {@code javax.inject.Named} on the setter or
+ * its parameter; they are matched by name, the processor doesn't need javax.inject.
+ * <p>
+ * An incremental compilation only sees the components it recompiles. The components of an index already in the
+ * class output are kept as long as their classes still exist and are still annotated, and are read again from
+ * their compiled classes.
+ */
+public class ComponentIndexProcessor extends AbstractProcessor {
+    private static final String INJECT = "javax.inject.Inject";
+    private static final String NAMED = "javax.inject.Named";
+
+    private final Map<String, TypeElement> components = new LinkedHashMap<>();
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return new HashSet<>(Arrays.asList(Component.class.getName(), Autowired.class.getName(), Value.class.getName(), INJECT));
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(Component.class)) {
+            if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+                error(element, "@Component must be placed on a concrete class");
+                continue;
+            }
+            TypeElement typeElement = (TypeElement) element;
+            String id = getId(typeElement);
+            TypeElement previous = components.put(id, typeElement);
+            if (previous != null) {
+                error(element, "Bean id " + id + " is already used by " + previous.getQualifiedName());
+            }
+        }
+        if (roundEnv.processingOver()) {
+            addIndexedComponents();
+            if (!components.isEmpty()) {
+                writeIndex();
+            }
+        }
+        return false;
+    }
+
+    private void addIndexedComponents() {
+        Map<String, BeanDefinition> indexed;
+        try {
+            FileObject index = processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", ComponentIndex.LOCATION);
+            try (BufferedReader reader = new BufferedReader(index.openReader(true))) {
+                indexed = ComponentIndex.read(reader);
+            }
+        } catch (IOException | RuntimeException e) {
+            // no index from an earlier compilation, or one that can't be read and is written from scratch
+            return;
+        }
+        Set<String> compiledClasses = new HashSet<>();
+        for (TypeElement typeElement : components.values()) {
+            compiledClasses.add(getClassName(typeElement));
+        }
+        for (BeanDefinition beanDefinition : indexed.values()) {
+            if (compiledClasses.contains(beanDefinition.getClassName())) {
+                continue;
+            }
+            TypeElement typeElement = processingEnv.getElementUtils().getTypeElement(beanDefinition.getClassName().replace('$', '.'));
+            if (typeElement != null && typeElement.getAnnotation(Component.class) != null) {
+                components.putIfAbsent(getId(typeElement), typeElement);
+            }
+        }
+    }
+
+    private void writeIndex() {
+        List<BeanDefinition> beanDefinitions = new ArrayList<>();
+        for (Map.Entry<String, TypeElement> entry : components.entrySet()) {
+            beanDefinitions.add(toBeanDefinition(entry.getKey(), entry.getValue()));
+        }
+        try {
+            FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", ComponentIndex.LOCATION);
+            try (Writer writer = new OutputStreamWriter(index.openOutputStream(), StandardCharsets.UTF_8)) {
+                ComponentIndex.write(writer, beanDefinitions);
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Can't write " + ComponentIndex.LOCATION + ": " + e);
+        }
+    }
+
+    private BeanDefinition toBeanDefinition(String id, TypeElement typeElement) {
+        BeanDefinition beanDefinition = new BeanDefinition(id, getClassName(typeElement));
+        beanDefinition.setScope(typeElement.getAnnotation(Component.class).scope());
+        Map<String, String> valueDependencies = new LinkedHashMap<>();
+        Map<String, String> refDependencies = new LinkedHashMap<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(typeElement))) {
+            Value value = method.getAnnotation(Value.class);
+            Autowired autowired = method.getAnnotation(Autowired.class);
+            boolean inject = getAnnotation(method, INJECT) != null;
+            if (value == null && autowired == null && !inject) {
+                continue;
+            }
+            String propertyName = getPropertyName(method);
+            if (propertyName == null) {
+                continue;
+            }
+            if (value != null) {
+                valueDependencies.put(propertyName, value.value());
+            }
+            if (autowired != null || inject) {
+                String namedId = autowired != null ? autowired.value() : getNamed(method);
+                String refId = namedId.isEmpty() ? resolveByType(method) : namedId;
+                if (refId != null) {
+                    refDependencies.put(propertyName, refId);
+                }
+            }
+        }
+        beanDefinition.setValueDependencies(valueDependencies);
+        beanDefinition.setRefDependencies(refDependencies);
+        return beanDefinition;
+    }
+
+    private String resolveByType(ExecutableElement method) {
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror parameterType = types.erasure(method.getParameters().get(0).asType());
+        List<String> candidates = new ArrayList<>();
+        for (Map.Entry<String, TypeElement> entry : components.entrySet()) {
+            if (types.isAssignable(types.erasure(entry.getValue().asType()), parameterType)) {
+                candidates.add(entry.getKey());
+            }
+        }
+        if (candidates.size() != 1) {
+            error(method, (candidates.isEmpty() ? "No component" : "No unique component " + candidates) + " of type " + parameterType
+                    + " found, specify the bean id in @Autowired or @Named");
+            return null;
+        }
+        return candidates.get(0);
+    }
+
+    private String getPropertyName(ExecutableElement method) {
+        String name = method.getSimpleName().toString();
+        if (!name.startsWith("set") || name.length() == 3 || method.getParameters().size() != 1
+                || !method.getModifiers().contains(Modifier.PUBLIC)) {
+            error(method, "@Value, @Autowired and @Inject must be placed on a public setter");
+            return null;
+        }
+        return decapitalize(name.substring(3));
+    }
+
+    private String getNamed(ExecutableElement method) {
+        AnnotationMirror named = getAnnotation(method, NAMED);
+        if (named == null && method.getParameters().size() == 1) {
+            named = getAnnotation(method.getParameters().get(0), NAMED);
+        }
+        if (named == null) {
+            return "";
+        }
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : named.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals("value")) {
+                return entry.getValue().getValue().toString();
+            }
+        }
+        return "";
+    }
+
+    private static AnnotationMirror getAnnotation(Element element, String annotationType) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(annotationType)) {
+                return annotation;
+            }
+        }
+        return null;
+    }
+
+    private String getClassName(TypeElement typeElement) {
+        return processingEnv.getElementUtils().getBinaryName(typeElement).toString();
+    }
+
+    private String getId(TypeElement typeElement) {
+        String id = typeElement.getAnnotation(Component.class).value();
+        return id.isEmpty() ? decapitalize(typeElement.getSimpleName().toString()) : id;
+    }
+
+    private static String decapitalize(String name) {
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
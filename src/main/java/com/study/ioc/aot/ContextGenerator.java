@@ -0,0 +1,48 @@
+package com.study.ioc.aot;
+
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * Build-time entry point for {@link ContextSourceGenerator}:
+ * {@code ContextGenerator <output dir> <fully qualified class name> <context xml>...}.
+ * <p>
+ * Bean classes have to be on the classpath, so in a Maven build run it with exec-maven-plugin
+ * ({@code java} goal) in the {@code process-classes} phase and compile the output directory with a second
+ * maven-compiler-plugin execution.
+ */
+public class ContextGenerator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: ContextGenerator <output dir> <class name> <context xml>...");
+            System.exit(1);
+        }
+        Path file = generate(Paths.get(args[0]), args[1], Arrays.copyOfRange(args, 2, args.length));
+        System.out.println("Generated " + file);
+    }
+
+    public static Path generate(Path outputDirectory, String qualifiedClassName, String... paths) throws IOException {
+        int lastDot = qualifiedClassName.lastIndexOf('.');
+        String packageName = lastDot < 0 ? "" : qualifiedClassName.substring(0, lastDot);
+        String className = qualifiedClassName.substring(lastDot + 1);
+
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader(paths);
+        ContextSourceGenerator generator = new ContextSourceGenerator(Thread.currentThread().getContextClassLoader());
+        String source = generator.generate(reader.getBeanDefinition(), packageName, className);
+
+        Path file = outputDirectory.resolve(qualifiedClassName.replace('.', '/') + ".java");
+        Files.createDirectories(file.getParent());
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(source);
+        }
+        return file;
+    }
+}
@@ -0,0 +1,658 @@
+package com.study.ioc.aot;
+
+import com.study.ioc.context.impl.LifecycleMethods;
+import com.study.ioc.convert.Setters;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.entity.Scope;
+import com.study.ioc.exception.BeanDestructionException;
+import com.study.ioc.exception.BeanInstantiationException;
+import com.study.ioc.exception.ProcessPostConstructException;
+import com.study.ioc.graph.DependencyGraph;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.lang.model.SourceVersion;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the Java source of an {@link com.study.ioc.context.ApplicationContext} that builds the given beans
+ * with plain constructor and setter calls. Constructors are chosen and values are converted while generating, so
+ * the generated class contains literals and needs neither reflection nor the definitions at runtime, which keeps it
+ * usable in closed-world (native image) builds. Lazy flags are ignored, all singletons are created in the
+ * constructor and lazy refs are injected directly; beans referencing each other through properties are all created
+ * before the first one is injected. The code is split into nested classes of a fixed number of beans, so contexts
+ * of any size compile. Singletons are kept in non-final fields, the context must be published safely to other threads.
+ * <p>
+ * Like a context with the default {@link com.study.ioc.context.ContextConfig}, the generated one doesn't run
+ * lifecycle methods unless {@link #setLifecycleMethods(boolean)} is set. Then {@code @PostConstruct} methods are
+ * called in creation order once all singletons are injected, and for every scoped instance, and the generated class
+ * is {@link java.io.Closeable}, running the {@code @PreDestroy} methods of the singletons in reverse order. These
+ * methods must be public to be called from generated code. Bean post-processors are never applied: they work on
+ * instances at runtime, so a context that needs them can't be generated.
+ */
+public class ContextSourceGenerator {
+    private static final int BEANS_PER_CLASS = 200;
+    private static final int STATEMENTS_PER_METHOD = 500;
+
+    private final ClassLoader classLoader;
+    private boolean lifecycleMethods;
+
+    public ContextSourceGenerator(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    public boolean isLifecycleMethods() {
+        return lifecycleMethods;
+    }
+
+    /**
+     * Whether the generated context calls {@code @PostConstruct} and {@code @PreDestroy} methods, off by default.
+     */
+    public void setLifecycleMethods(boolean lifecycleMethods) {
+        this.lifecycleMethods = lifecycleMethods;
+    }
+
+    public String generate(Map<String, BeanDefinition> beanDefinitions, String packageName, String className) {
+        DependencyGraph graph = DependencyGraph.build(beanDefinitions);
+        if (!graph.getMissingReferences().isEmpty()) {
+            throw new BeanInstantiationException("Beans reference undefined beans: " + graph.getMissingReferences(), null);
+        }
+        List<String> creationOrder = graph.getCreationOrder();
+        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+            if (beanDefinition.getScope() == Scope.POOLED) {
+                throw new BeanInstantiationException("Pooled bean " + beanDefinition.getId() + " needs the pool of a runtime context", null);
+            }
+        }
+        Names names = new Names(creationOrder);
+        Map<String, Class<?>> types = new LinkedHashMap<>();
+        for (String id : creationOrder) {
+            types.put(id, loadClass(beanDefinitions.get(id)));
+        }
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < creationOrder.size(); i += BEANS_PER_CLASS) {
+            chunks.add(creationOrder.subList(i, Math.min(i + BEANS_PER_CLASS, creationOrder.size())));
+        }
+
+        SourceWriter source = new SourceWriter();
+        if (!packageName.isEmpty()) {
+            source.line("package " + packageName + ";").line();
+        }
+        source.line("import com.study.ioc.context.ApplicationContext;")
+                .line("import com.study.ioc.exception.NoSuchBeanDefinitionException;")
+                .line("import com.study.ioc.exception.NoUniqueBeanOfTypeException;")
+                .line()
+                .line("import java.util.ArrayList;")
+                .line("import java.util.Arrays;")
+                .line("import java.util.Collections;")
+                .line("import java.util.HashMap;")
+                .line("import java.util.LinkedHashMap;")
+                .line("import java.util.List;")
+                .line("import java.util.Map;")
+                .line()
+                .line("/**")
+                .line(" * Generated by " + ContextSourceGenerator.class.getName() + ", do not edit.")
+                .line(" */")
+                .line("public class " + className + " implements ApplicationContext" + (lifecycleMethods ? ", java.io.Closeable {" : " {"))
+                .indent();
+        source.line("private static final List<String> BEAN_NAMES;")
+                .line("private static final Map<String, Integer> BEAN_INDEXES = new HashMap<>();")
+                .line()
+                .line("static {").indent()
+                .line("List<String> names = new ArrayList<>(" + creationOrder.size() + ");");
+        for (int i = 0; i < chunks.size(); i++) {
+            source.line(chunkName(i) + ".addNames(names);");
+        }
+        source.line("BEAN_NAMES = Collections.unmodifiableList(names);")
+                .line("for (int i = 0; i < names.size(); i++) {").indent()
+                .line("BEAN_INDEXES.put(names.get(i), i);")
+                .outdent().line("}")
+                .outdent().line("}").line();
+
+        // assigned by the nested classes while constructing, so they can't be final
+        for (String id : creationOrder) {
+            String typeName = types.get(id).getCanonicalName();
+            Scope scope = beanDefinitions.get(id).getScope();
+            if (scope == Scope.THREAD) {
+                source.line("ThreadLocal<" + typeName + "> " + names.fieldName(id) + ";");
+            } else if (scope == Scope.SINGLETON) {
+                source.line(typeName + " " + names.fieldName(id) + ";");
+            }
+        }
+        source.line("private final Map<Class<?>, String[]> beanIdsByType = new HashMap<>();");
+        if (lifecycleMethods) {
+            source.line("private boolean closed;");
+        }
+        source.line();
+
+        source.line("public " + className + "() {").indent();
+        for (int i = 0; i < chunks.size(); i++) {
+            if (hasScope(chunks.get(i), beanDefinitions, Scope.THREAD)) {
+                source.line(chunkName(i) + ".initThreadScopes(this);");
+            }
+        }
+        for (int i = 0; i < chunks.size(); i++) {
+            source.line(chunkName(i) + ".create(this);");
+        }
+        for (int i = 0; i < chunks.size(); i++) {
+            source.line(chunkName(i) + ".inject(this);");
+        }
+        if (lifecycleMethods) {
+            for (int i = 0; i < chunks.size(); i++) {
+                source.line(chunkName(i) + ".initialize(this);");
+            }
+        }
+        source.line("Map<Class<?>, List<String>> beanIds = new LinkedHashMap<>();");
+        for (int i = 0; i < chunks.size(); i++) {
+            source.line(chunkName(i) + ".addTypes(beanIds);");
+        }
+        source.line("for (Map.Entry<Class<?>, List<String>> entry : beanIds.entrySet()) {").indent()
+                .line("beanIdsByType.put(entry.getKey(), entry.getValue().toArray(new String[0]));")
+                .outdent().line("}")
+                .outdent().line("}").line();
+
+        source.line("@Override").line("public Object getBean(String beanId) {").indent()
+                .line("Integer index = BEAN_INDEXES.get(beanId);")
+                .line("if (index == null) {").indent().line("return null;").outdent().line("}")
+                .line("switch (index / " + BEANS_PER_CLASS + ") {").indent();
+        for (int i = 0; i < chunks.size(); i++) {
+            source.line("case " + i + ":").indent().line("return " + chunkName(i) + ".getBean(this, index);").outdent();
+        }
+        source.line("default:").indent().line("return null;").outdent().outdent().line("}").outdent().line("}").line();
+
+        source.line("@Override").line("public <T> T getBean(Class<T> clazz) {").indent()
+                .line("String[] candidates = beanIdsByType.get(clazz);")
+                .line("if (candidates == null) {").indent().line("return null;").outdent().line("}")
+                .line("if (candidates.length > 1) {").indent()
+                .line("throw new NoUniqueBeanOfTypeException(\"No unique bean of type \" + clazz.getName() + \" is defined. Found beans: \" + Arrays.toString(candidates));")
+                .outdent().line("}")
+                .line("return clazz.cast(getBean(candidates[0]));")
+                .outdent().line("}").line();
+
+        source.line("@Override").line("public <T> T getBean(String id, Class<T> clazz) {").indent()
+                .line("Object value = getBean(id);")
+                .line("if (value == null) {").indent().line("return null;").outdent().line("}")
+                .line("if (!clazz.isInstance(value)) {").indent()
+                .line("throw new NoSuchBeanDefinitionException(id, clazz.getName(), value.getClass().getName());")
+                .outdent().line("}")
+                .line("return clazz.cast(value);")
+                .outdent().line("}").line();
+
+        source.line("@Override").line("public <T> Map<String, T> getBeansOfType(Class<T> clazz) {").indent()
+                .line("Map<String, T> beansOfType = new LinkedHashMap<>();")
+                .line("String[] candidates = beanIdsByType.get(clazz);")
+                .line("if (candidates != null) {").indent()
+                .line("for (String id : candidates) {").indent()
+                .line("beansOfType.put(id, clazz.cast(getBean(id)));")
+                .outdent().line("}").outdent().line("}")
+                .line("return beansOfType;")
+                .outdent().line("}").line();
+
+        source.line("@Override").line("public List<String> getBeanNames() {").indent()
+                .line("return BEAN_NAMES;")
+                .outdent().line("}").line();
+
+        if (lifecycleMethods) {
+            // all beans are destroyed even if one fails, the first failure is thrown afterwards
+            source.line("@Override").line("public void close() {").indent()
+                    .line("if (closed) {").indent().line("return;").outdent().line("}")
+                    .line("closed = true;")
+                    .line("List<RuntimeException> failures = new ArrayList<>();");
+            for (int i = chunks.size() - 1; i >= 0; i--) {
+                source.line(chunkName(i) + ".destroy(this, failures);");
+            }
+            source.line("if (!failures.isEmpty()) {").indent().line("throw failures.get(0);").outdent().line("}")
+                    .outdent().line("}").line();
+        }
+
+        source.line("static void addBeanId(Map<Class<?>, List<String>> beanIds, Class<?> type, String id) {").indent()
+                .line("beanIds.computeIfAbsent(type, key -> new ArrayList<>()).add(id);")
+                .outdent().line("}");
+
+        for (int i = 0; i < chunks.size(); i++) {
+            source.line();
+            writeChunk(source, className, i, chunks.get(i), beanDefinitions, types, names);
+        }
+        source.outdent().line("}");
+        return source.toString();
+    }
+
+    /**
+     * Writes the nested class creating, injecting and looking up one chunk of beans. Its methods have at most
+     * {@link #STATEMENTS_PER_METHOD} statements and reference the beans of the chunk only, which keeps both the
+     * methods and the constant pools within the class file limits however many beans there are.
+     */
+    private void writeChunk(SourceWriter source, String className, int chunk, List<String> ids,
+                            Map<String, BeanDefinition> beanDefinitions, Map<String, Class<?>> types, Names names) {
+        String contextParameter = className + " context";
+        source.line("private static final class " + chunkName(chunk) + " {").indent();
+
+        List<String> statements = new ArrayList<>();
+        for (String id : ids) {
+            statements.add("names.add(" + literal(id) + ");");
+        }
+        writeMethods(source, "addNames", "List<String> names", "names", statements);
+
+        if (hasScope(ids, beanDefinitions, Scope.THREAD)) {
+            statements = new ArrayList<>();
+            for (String id : ids) {
+                if (beanDefinitions.get(id).getScope() == Scope.THREAD) {
+                    statements.add("context." + names.fieldName(id) + " = ThreadLocal.withInitial(() -> "
+                            + factoryName(names.fieldName(id)) + "(context));");
+                }
+            }
+            writeMethods(source, "initThreadScopes", contextParameter, "context", statements);
+        }
+
+        statements = new ArrayList<>();
+        for (String id : ids) {
+            if (beanDefinitions.get(id).getScope() == Scope.SINGLETON) {
+                statements.add("context." + names.fieldName(id) + " = " + newExpression(beanDefinitions.get(id), types.get(id), beanDefinitions, names) + ";");
+            }
+        }
+        writeMethods(source, "create", contextParameter, "context", statements);
+
+        statements = new ArrayList<>();
+        for (String id : ids) {
+            if (beanDefinitions.get(id).getScope() == Scope.SINGLETON) {
+                addInjections(statements, "context." + names.fieldName(id), beanDefinitions.get(id), types.get(id), beanDefinitions, names);
+            }
+        }
+        writeMethods(source, "inject", contextParameter, "context", statements);
+
+        if (lifecycleMethods) {
+            statements = new ArrayList<>();
+            for (String id : ids) {
+                if (beanDefinitions.get(id).getScope() == Scope.SINGLETON) {
+                    addPostConstructCall(statements, "context." + names.fieldName(id), id, types.get(id));
+                }
+            }
+            writeMethods(source, "initialize", contextParameter, "context", statements);
+
+            statements = new ArrayList<>();
+            for (int i = ids.size() - 1; i >= 0; i--) {
+                String id = ids.get(i);
+                if (beanDefinitions.get(id).getScope() == Scope.SINGLETON) {
+                    addPreDestroyCall(statements, "context." + names.fieldName(id), id, types.get(id));
+                }
+            }
+            writeMethods(source, "destroy", contextParameter + ", List<RuntimeException> failures", "context, failures", statements);
+        }
+
+        statements = new ArrayList<>();
+        for (String id : ids) {
+            for (Class<?> type : getAssignableTypes(types.get(id))) {
+                if (Modifier.isPublic(type.getModifiers())) {
+                    statements.add("addBeanId(beanIds, " + type.getCanonicalName() + ".class, " + literal(id) + ");");
+                }
+            }
+        }
+        writeMethods(source, "addTypes", "Map<Class<?>, List<String>> beanIds", "beanIds", statements);
+
+        for (String id : ids) {
+            if (beanDefinitions.get(id).getScope() != Scope.SINGLETON) {
+                String typeName = types.get(id).getCanonicalName();
+                statements = new ArrayList<>();
+                statements.add(typeName + " bean = " + newExpression(beanDefinitions.get(id), types.get(id), beanDefinitions, names) + ";");
+                addInjections(statements, "bean", beanDefinitions.get(id), types.get(id), beanDefinitions, names);
+                if (lifecycleMethods) {
+                    addPostConstructCall(statements, "bean", id, types.get(id));
+                }
+                source.line("static " + typeName + " " + factoryName(names.fieldName(id)) + "(" + contextParameter + ") {").indent();
+                for (String statement : statements) {
+                    source.line(statement);
+                }
+                source.line("return bean;").outdent().line("}").line();
+            }
+        }
+
+        source.line("static Object getBean(" + contextParameter + ", int index) {").indent().line("switch (index) {").indent();
+        int index = chunk * BEANS_PER_CLASS;
+        for (String id : ids) {
+            source.line("case " + index++ + ":").indent()
+                    .line("return " + names.valueExpression(id, beanDefinitions.get(id)) + ";").outdent();
+        }
+        source.line("default:").indent().line("return null;").outdent().outdent().line("}").outdent().line("}");
+        source.outdent().line("}");
+    }
+
+    /**
+     * Writes a static method running the statements, split into numbered helper methods when there are too many.
+     */
+    private static void writeMethods(SourceWriter source, String name, String parameters, String arguments, List<String> statements) {
+        source.line("static void " + name + "(" + parameters + ") {").indent();
+        if (statements.size() <= STATEMENTS_PER_METHOD) {
+            for (String statement : statements) {
+                source.line(statement);
+            }
+            source.outdent().line("}").line();
+            return;
+        }
+        int parts = (statements.size() + STATEMENTS_PER_METHOD - 1) / STATEMENTS_PER_METHOD;
+        for (int i = 0; i < parts; i++) {
+            source.line(name + i + "(" + arguments + ");");
+        }
+        source.outdent().line("}").line();
+        for (int i = 0; i < parts; i++) {
+            source.line("private static void " + name + i + "(" + parameters + ") {").indent();
+            for (String statement : statements.subList(i * STATEMENTS_PER_METHOD, Math.min((i + 1) * STATEMENTS_PER_METHOD, statements.size()))) {
+                source.line(statement);
+            }
+            source.outdent().line("}").line();
+        }
+    }
+
+    private void addInjections(List<String> statements, String target, BeanDefinition beanDefinition, Class<?> type,
+                               Map<String, BeanDefinition> beanDefinitions, Names names) {
+        Map<String, String> valueDependencies = beanDefinition.getValueDependencies();
+        if (valueDependencies != null) {
+            for (Map.Entry<String, String> entry : valueDependencies.entrySet()) {
+                Method setter = findSetter(type, entry.getKey(), beanDefinition);
+                statements.add(target + "." + setter.getName() + "(" + convert(entry.getValue(), setter.getParameterTypes()[0], beanDefinition) + ");");
+            }
+        }
+        Map<String, String> refDependencies = beanDefinition.getRefDependencies();
+        if (refDependencies != null) {
+            for (Map.Entry<String, String> entry : refDependencies.entrySet()) {
+                Method setter = findSetter(type, entry.getKey(), beanDefinition);
+                String refId = entry.getValue();
+                statements.add(target + "." + setter.getName() + "(" + names.valueExpression(refId, beanDefinitions.get(refId)) + ");");
+            }
+        }
+    }
+
+    private static void addPostConstructCall(List<String> statements, String target, String id, Class<?> type) {
+        String calls = getLifecycleCalls(target, id, getLifecycleMethods(id, type, true), PostConstruct.class);
+        if (!calls.isEmpty()) {
+            statements.add("try { " + calls + "} catch (Throwable e) { throw new " + ProcessPostConstructException.class.getName()
+                    + "(\"Can't run @PostConstruct methods of bean \" + " + literal(id) + ", e); }");
+        }
+    }
+
+    private static void addPreDestroyCall(List<String> statements, String target, String id, Class<?> type) {
+        String calls = getLifecycleCalls(target, id, getLifecycleMethods(id, type, false), PreDestroy.class);
+        if (!calls.isEmpty()) {
+            statements.add("try { " + calls + "} catch (Throwable e) { failures.add(new " + BeanDestructionException.class.getName()
+                    + "(\"Can't run @PreDestroy methods of bean \" + " + literal(id) + ", e)); }");
+        }
+    }
+
+    private static List<Method> getLifecycleMethods(String id, Class<?> type, boolean postConstruct) {
+        try {
+            return postConstruct ? LifecycleMethods.getPostConstructMethods(type) : LifecycleMethods.getPreDestroyMethods(type);
+        } catch (IllegalArgumentException e) {
+            throw new BeanInstantiationException("Invalid lifecycle method of bean " + id, e);
+        }
+    }
+
+    private static String getLifecycleCalls(String target, String id, List<Method> methods, Class<? extends Annotation> annotation) {
+        StringBuilder calls = new StringBuilder();
+        for (Method method : methods) {
+            if (!Modifier.isPublic(method.getModifiers())) {
+                throw new BeanInstantiationException("@" + annotation.getSimpleName() + " method " + method + " of bean " + id
+                        + " must be public to be called from a generated context", null);
+            }
+            calls.append(target).append('.').append(method.getName()).append("(); ");
+        }
+        return calls.toString();
+    }
+
+    private String newExpression(BeanDefinition beanDefinition, Class<?> type, Map<String, BeanDefinition> beanDefinitions,
+                                 Names names) {
+        List<ConstructorArgument> constructorArguments = beanDefinition.getConstructorArguments();
+        if (constructorArguments.isEmpty()) {
+            return "new " + type.getCanonicalName() + "()";
+        }
+        Class<?>[] parameterTypes = findConstructor(type, beanDefinition).getParameterTypes();
+        List<String> arguments = new ArrayList<>();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            ConstructorArgument constructorArgument = constructorArguments.get(i);
+            if (constructorArgument.isRef()) {
+                String refId = constructorArgument.getRef();
+                arguments.add(names.valueExpression(refId, beanDefinitions.get(refId)));
+            } else {
+                arguments.add(convert(constructorArgument.getValue(), parameterTypes[i], beanDefinition));
+            }
+        }
+        return "new " + type.getCanonicalName() + "(" + String.join(", ", arguments) + ")";
+    }
+
+    /**
+     * Picks the public constructor the same way the runtime context does: by parameter count, with value
+     * arguments only matching parameter types that have a conversion.
+     */
+    private Constructor<?> findConstructor(Class<?> type, BeanDefinition beanDefinition) {
+        List<ConstructorArgument> constructorArguments = beanDefinition.getConstructorArguments();
+        List<Constructor<?>> candidates = new ArrayList<>();
+        for (Constructor<?> constructor : type.getConstructors()) {
+            if (constructor.getParameterCount() == constructorArguments.size() && acceptsValues(constructor, constructorArguments)) {
+                candidates.add(constructor);
+            }
+        }
+        if (candidates.size() != 1) {
+            throw new BeanInstantiationException((candidates.isEmpty() ? "No" : "More than one") + " public constructor for "
+                    + constructorArguments + " found in class " + type.getName() + " of bean " + beanDefinition.getId(), null);
+        }
+        return candidates.get(0);
+    }
+
+    private static boolean acceptsValues(Constructor<?> constructor, List<ConstructorArgument> constructorArguments) {
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Class<?> parameterType = parameterTypes[i];
+            boolean convertible = parameterType.isPrimitive() || getPrimitiveType(parameterType) != null || parameterType.isEnum()
+                    || parameterType == String.class || parameterType == BigDecimal.class || parameterType == BigInteger.class
+                    || parameterType == Duration.class;
+            if (!constructorArguments.get(i).isRef() && !convertible) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Turns a property value into a Java expression of the setter parameter type.
+     */
+    String convert(String value, Class<?> type, BeanDefinition beanDefinition) {
+        try {
+            if (type == String.class) {
+                return literal(value);
+            } else if (type == int.class) {
+                return String.valueOf(Integer.parseInt(value));
+            } else if (type == long.class) {
+                return Long.parseLong(value) + "L";
+            } else if (type == short.class) {
+                return "(short) " + Short.parseShort(value);
+            } else if (type == byte.class) {
+                return "(byte) " + Byte.parseByte(value);
+            } else if (type == double.class) {
+                Double.parseDouble(value);
+                return "Double.parseDouble(" + literal(value) + ")";
+            } else if (type == float.class) {
+                Float.parseFloat(value);
+                return "Float.parseFloat(" + literal(value) + ")";
+            } else if (type == boolean.class) {
+                if (!value.equalsIgnoreCase("true") && !value.equalsIgnoreCase("false")) {
+                    throw new IllegalArgumentException("Value " + value + " is not a boolean");
+                }
+                return value.toLowerCase();
+            } else if (type == char.class) {
+                if (value.length() != 1) {
+                    throw new IllegalArgumentException("Value " + value + " is not a single character");
+                }
+                return "'" + escape(value, '\'') + "'";
+            } else if (type.isEnum()) {
+                for (Object constant : type.getEnumConstants()) {
+                    if (((Enum<?>) constant).name().equals(value)) {
+                        return type.getCanonicalName() + "." + value;
+                    }
+                }
+                throw new IllegalArgumentException("No constant " + value + " in " + type.getName());
+            } else if (type == BigDecimal.class) {
+                new BigDecimal(value);
+                return "new java.math.BigDecimal(" + literal(value) + ")";
+            } else if (type == BigInteger.class) {
+                new BigInteger(value);
+                return "new java.math.BigInteger(" + literal(value) + ")";
+            } else if (type == Duration.class) {
+                Duration.parse(value);
+                return "java.time.Duration.parse(" + literal(value) + ")";
+            }
+            Class<?> primitiveType = getPrimitiveType(type);
+            if (primitiveType != null) {
+                return type.getSimpleName() + ".valueOf(" + convert(value, primitiveType, beanDefinition) + ")";
+            }
+        } catch (IllegalArgumentException e) {
+            throw new BeanInstantiationException("Can't convert value " + value + " of bean " + beanDefinition.getId() + " to " + type.getName(), e);
+        }
+        throw new BeanInstantiationException("No build-time conversion to " + type.getName() + " for bean " + beanDefinition.getId(), null);
+    }
+
+    private static Class<?> getPrimitiveType(Class<?> wrapperType) {
+        Class<?>[] primitiveTypes = {int.class, long.class, short.class, byte.class, double.class, float.class, boolean.class, char.class};
+        Class<?>[] wrapperTypes = {Integer.class, Long.class, Short.class, Byte.class, Double.class, Float.class, Boolean.class, Character.class};
+        for (int i = 0; i < wrapperTypes.length; i++) {
+            if (wrapperTypes[i] == wrapperType) {
+                return primitiveTypes[i];
+            }
+        }
+        return null;
+    }
+
+    private Class<?> loadClass(BeanDefinition beanDefinition) {
+        try {
+            Class<?> type = Class.forName(beanDefinition.getClassName(), false, classLoader);
+            if (!Modifier.isPublic(type.getModifiers())) {
+                throw new BeanInstantiationException("Class " + type.getName() + " of bean " + beanDefinition.getId() + " must be public", null);
+            }
+            return type;
+        } catch (ClassNotFoundException e) {
+            throw new BeanInstantiationException("Can't load class " + beanDefinition.getClassName() + " of bean " + beanDefinition.getId(), e);
+        }
+    }
+
+    private Method findSetter(Class<?> type, String propertyName, BeanDefinition beanDefinition) {
+        Method setter = Setters.find(type, propertyName);
+        if (setter == null) {
+            throw new BeanInstantiationException("No setter " + Setters.getSetterName(propertyName) + " found in class " + type.getName()
+                    + " of bean " + beanDefinition.getId(), null);
+        }
+        return setter;
+    }
+
+    private static Set<Class<?>> getAssignableTypes(Class<?> clazz) {
+        Set<Class<?>> types = new LinkedHashSet<>();
+        List<Class<?>> toVisit = new ArrayList<>();
+        toVisit.add(clazz);
+        while (!toVisit.isEmpty()) {
+            Class<?> type = toVisit.remove(toVisit.size() - 1);
+            if (type != null && types.add(type)) {
+                toVisit.add(type.getSuperclass());
+                toVisit.addAll(Arrays.asList(type.getInterfaces()));
+            }
+        }
+        return types;
+    }
+
+    private static boolean hasScope(List<String> ids, Map<String, BeanDefinition> beanDefinitions, Scope scope) {
+        for (String id : ids) {
+            if (beanDefinitions.get(id).getScope() == scope) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String chunkName(int chunk) {
+        return "Beans" + chunk;
+    }
+
+    private static String factoryName(String fieldName) {
+        return "create" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+    }
+
+    private static String literal(String value) {
+        return "\"" + escape(value, '"') + "\"";
+    }
+
+    private static String escape(String value, char quote) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == quote || c == '\\') {
+                result.append('\\').append(c);
+            } else if (c == '\n') {
+                result.append("\\n");
+            } else if (c == '\r') {
+                result.append("\\r");
+            } else if (c == '\t') {
+                result.append("\\t");
+            } else if (c < 0x20 || c > 0x7e) {
+                result.append(String.format("\\u%04x", (int) c));
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    /**
+     * Java names of the beans in the generated class.
+     */
+    private static class Names {
+        private final Map<String, String> fieldNames = new HashMap<>();
+        private final Map<String, Integer> chunks = new HashMap<>();
+
+        Names(List<String> ids) {
+            Set<String> used = new HashSet<>();
+            for (int index = 0; index < ids.size(); index++) {
+                String id = ids.get(index);
+                StringBuilder name = new StringBuilder();
+                for (char c : id.toCharArray()) {
+                    name.append(Character.isJavaIdentifierPart(c) ? c : '_');
+                }
+                if (name.length() == 0 || !Character.isJavaIdentifierStart(name.charAt(0))) {
+                    name.insert(0, '_');
+                }
+                String fieldName = name.toString();
+                for (int i = 2; !used.add(fieldName) || SourceVersion.isKeyword(fieldName); i++) {
+                    fieldName = name.toString() + i;
+                }
+                fieldNames.put(id, fieldName);
+                chunks.put(id, index / BEANS_PER_CLASS);
+            }
+        }
+
+        String fieldName(String id) {
+            return fieldNames.get(id);
+        }
+
+        /**
+         * The expression returning the bean from inside a nested class, where the generated context is {@code context}.
+         */
+        String valueExpression(String id, BeanDefinition beanDefinition) {
+            switch (beanDefinition.getScope()) {
+                case PROTOTYPE:
+                    return chunkName(chunks.get(id)) + "." + factoryName(fieldNames.get(id)) + "(context)";
+                case THREAD:
+                    return "context." + fieldNames.get(id) + ".get()";
+                default:
+                    return "context." + fieldNames.get(id);
+            }
+        }
+    }
+}
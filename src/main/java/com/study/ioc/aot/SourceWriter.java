@@ -0,0 +1,37 @@
+package com.study.ioc.aot;
+
+/**
+ * Minimal indenting line writer for generated sources.
+ */
+class SourceWriter {
+    private final StringBuilder source = new StringBuilder();
+    private int indent;
+
+    SourceWriter line(String line) {
+        for (int i = 0; i < indent; i++) {
+            source.append("    ");
+        }
+        source.append(line).append('\n');
+        return this;
+    }
+
+    SourceWriter line() {
+        source.append('\n');
+        return this;
+    }
+
+    SourceWriter indent() {
+        indent++;
+        return this;
+    }
+
+    SourceWriter outdent() {
+        indent--;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return source.toString();
+    }
+}
@@ -1,11 +1,20 @@
 package com.study.ioc.context;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ApplicationContext {
     Object getBean(String beanId);
     <T> T getBean(Class<T> clazz);
     <T> T getBean(String id, Class<T> clazz);
+    <T> Map<String, T> getBeansOfType(Class<T> clazz);
     List<String> getBeanNames();
 
+    /**
+     * A handle to look the bean up again and again, obtained once and kept, e.g. in a field of a request handler.
+     * This default looks the bean up on every {@link BeanHandle#get()}.
+     */
+    default <T> BeanHandle<T> handle(String id, Class<T> clazz) {
+        return () -> getBean(id, clazz);
+    }
 }
@@ -0,0 +1,13 @@
+package com.study.ioc.context;
+
+/**
+ * Repeated lookups of one bean, see {@link ApplicationContext#handle(String, Class)}.
+ */
+@FunctionalInterface
+public interface BeanHandle<T> {
+
+    /**
+     * Returns what {@link ApplicationContext#getBean(String, Class)} would return for the id and type of the handle.
+     */
+    T get();
+}
@@ -0,0 +1,135 @@
+package com.study.ioc.context;
+
+import com.study.ioc.metrics.ContextMetricsListener;
+import com.study.ioc.processor.BeanFactoryPostProcessor;
+import com.study.ioc.processor.BeanPostProcessor;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Optional settings of a context. The defaults give an eager, sequentially built context without metrics.
+ */
+public class ContextConfig {
+    private boolean lazyInit;
+    private Executor executor;
+    private boolean streaming;
+    private ApplicationContext parent;
+    private Path snapshotFile;
+    private final List<BeanFactoryPostProcessor> beanFactoryPostProcessors = new ArrayList<>();
+    private final List<BeanPostProcessor> beanPostProcessors = new ArrayList<>();
+    private boolean lifecycleMethods;
+    private Executor initExecutor;
+    private ContextMetricsListener metricsListener = ContextMetricsListener.NOOP;
+
+    public boolean isLazyInit() {
+        return lazyInit;
+    }
+
+    /**
+     * Beans without an explicit {@code lazy-init} attribute are created with their refs on first {@code getBean}.
+     */
+    public void setLazyInit(boolean lazyInit) {
+        this.lazyInit = lazyInit;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Beans are created and wired on this executor, independent beans in parallel.
+     */
+    public void setExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Beans are created while the definitions are still being read, when the reader supports streaming.
+     * Ignored when an executor is set.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public ApplicationContext getParent() {
+        return parent;
+    }
+
+    /**
+     * Beans not defined in the context are looked up in the parent, refs included. The parent's beans are shared,
+     * not copied.
+     */
+    public void setParent(ApplicationContext parent) {
+        this.parent = parent;
+    }
+
+    public Path getSnapshotFile() {
+        return snapshotFile;
+    }
+
+    /**
+     * The wiring of the context is saved to this file after start. Later starts replay it without reading the
+     * definitions as long as the reader reports unchanged sources. Only used for sequentially built contexts.
+     */
+    public void setSnapshotFile(Path snapshotFile) {
+        this.snapshotFile = snapshotFile;
+    }
+
+    public List<BeanFactoryPostProcessor> getBeanFactoryPostProcessors() {
+        return beanFactoryPostProcessors;
+    }
+
+    /**
+     * Processors run in the order they are added. A context with factory post-processors reads all definitions
+     * before creating beans, so streaming and snapshots are not used.
+     */
+    public void addBeanFactoryPostProcessor(BeanFactoryPostProcessor beanFactoryPostProcessor) {
+        beanFactoryPostProcessors.add(beanFactoryPostProcessor);
+    }
+
+    public List<BeanPostProcessor> getBeanPostProcessors() {
+        return beanPostProcessors;
+    }
+
+    public void addBeanPostProcessor(BeanPostProcessor beanPostProcessor) {
+        beanPostProcessors.add(beanPostProcessor);
+    }
+
+    public boolean isLifecycleMethods() {
+        return lifecycleMethods;
+    }
+
+    /**
+     * {@code @PostConstruct} methods run once a bean and the beans it references are wired,
+     * {@code @PreDestroy} methods of singletons run when the context is closed.
+     */
+    public void setLifecycleMethods(boolean lifecycleMethods) {
+        this.lifecycleMethods = lifecycleMethods;
+    }
+
+    public Executor getInitExecutor() {
+        return initExecutor;
+    }
+
+    /**
+     * Singletons are initialized on this executor, a bean after the beans it references, independent ones in parallel.
+     */
+    public void setInitExecutor(Executor initExecutor) {
+        this.initExecutor = initExecutor;
+    }
+
+    public ContextMetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    public void setMetricsListener(ContextMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+}
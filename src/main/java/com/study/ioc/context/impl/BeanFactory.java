@@ -0,0 +1,223 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.entity.Bean;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.exception.BeanInstantiationException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Creates fully wired instances of one bean definition. The class, constructor and setters are resolved once
+ * when the factory is built, so every {@link #create()} is a constructor call plus direct setter calls.
+ * Constructor argument values are converted once as well. Refs are resolved to their holders on the first
+ * {@link #create()}, as the factory is built while the beans of the context are still being created, and again
+ * only after a bean is registered or removed; they are not reported as lookups to the metrics listener.
+ * Refs to beans of the parent context are looked up there for every instance.
+ */
+class BeanFactory {
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+    private static final ResolvedRefs UNRESOLVED = new ResolvedRefs(null, null, -1);
+
+    private final GenericApplicationContext context;
+    private final String id;
+    private final Class<?> type;
+    private final MethodHandle constructor;
+    private final ConstructorInjector constructorInjector;
+    private final Object[] constructorArguments;
+    private final String[] constructorRefIds;
+    private final PropertyInjector[] valueInjectors;
+    private final String[] values;
+    private final PropertyInjector[] refInjectors;
+    private final String[] refIds;
+    private final Object[] lazyRefs;
+    // immutable, so a thread seeing an outdated instance only resolves again
+    private ResolvedRefs resolvedRefs = UNRESOLVED;
+
+    BeanFactory(GenericApplicationContext context, BeanDefinition beanDefinition) {
+        this.context = context;
+        this.id = beanDefinition.getId();
+        List<ConstructorArgument> arguments = beanDefinition.getConstructorArguments();
+        try {
+            this.type = Class.forName(beanDefinition.getClassName());
+            if (arguments.isEmpty()) {
+                Constructor<?> declaredConstructor = type.getDeclaredConstructor();
+                declaredConstructor.setAccessible(true);
+                this.constructor = MethodHandles.lookup().unreflectConstructor(declaredConstructor).asType(CONSTRUCTOR_TYPE);
+            } else {
+                this.constructor = null;
+            }
+        } catch (ReflectiveOperationException e) {
+            throw new BeanInstantiationException("Can't create bean " + id + " of class " + beanDefinition.getClassName(), e);
+        }
+
+        InjectionPlan injectionPlan = InjectionPlan.forClass(type);
+        if (arguments.isEmpty()) {
+            this.constructorInjector = null;
+            this.constructorArguments = null;
+            this.constructorRefIds = null;
+        } else {
+            this.constructorInjector = injectionPlan.getConstructor(arguments);
+            this.constructorArguments = new Object[arguments.size()];
+            this.constructorRefIds = new String[arguments.size()];
+            for (int i = 0; i < arguments.size(); i++) {
+                ConstructorArgument argument = arguments.get(i);
+                if (argument.isRef()) {
+                    constructorRefIds[i] = argument.getRef();
+                } else {
+                    try {
+                        constructorArguments[i] = constructorInjector.convertValue(i, argument.getValue());
+                    } catch (Throwable e) {
+                        throw new BeanInstantiationException("Can't convert constructor argument " + argument.getValue() + " of bean " + id, e);
+                    }
+                }
+            }
+        }
+        Map<String, String> valueDependencies = beanDefinition.getValueDependencies();
+        int valueCount = valueDependencies == null ? 0 : valueDependencies.size();
+        this.valueInjectors = new PropertyInjector[valueCount];
+        this.values = new String[valueCount];
+        if (valueCount > 0) {
+            int index = 0;
+            for (Map.Entry<String, String> entry : valueDependencies.entrySet()) {
+                valueInjectors[index] = injectionPlan.getInjector(entry.getKey());
+                values[index++] = entry.getValue();
+            }
+        }
+        Map<String, String> refDependencies = beanDefinition.getRefDependencies();
+        int refCount = refDependencies == null ? 0 : refDependencies.size();
+        this.refInjectors = new PropertyInjector[refCount];
+        this.refIds = new String[refCount];
+        this.lazyRefs = new Object[refCount];
+        if (refCount > 0) {
+            int index = 0;
+            for (Map.Entry<String, String> entry : refDependencies.entrySet()) {
+                refInjectors[index] = injectionPlan.getInjector(entry.getKey());
+                refIds[index] = entry.getValue();
+                if (beanDefinition.getLazyRefProperties().contains(entry.getKey())) {
+                    lazyRefs[index] = context.createLazyRef(id, entry.getValue(), refInjectors[index].getSetter().getParameterTypes()[0]);
+                }
+                index++;
+            }
+        }
+    }
+
+    Class<?> getType() {
+        return type;
+    }
+
+    Object create() {
+        ResolvedRefs resolvedRefs = this.resolvedRefs;
+        if (resolvedRefs.version != context.getTypeIndexVersion()) {
+            resolvedRefs = resolveRefs();
+        }
+        Object value;
+        if (constructorInjector == null) {
+            value = construct(null);
+        } else {
+            Object[] arguments = constructorArguments.clone();
+            for (int i = 0; i < constructorRefIds.length; i++) {
+                if (constructorRefIds[i] != null) {
+                    arguments[i] = getRef(resolvedRefs.constructorRefBeans[i], constructorRefIds[i]);
+                }
+            }
+            value = construct(arguments);
+        }
+        for (int i = 0; i < valueInjectors.length; i++) {
+            try {
+                valueInjectors[i].injectValue(value, values[i]);
+            } catch (Throwable e) {
+                throw new BeanInstantiationException("Can't inject value " + values[i] + " into bean " + id, e);
+            }
+        }
+        for (int i = 0; i < refInjectors.length; i++) {
+            Object ref = lazyRefs[i] == null ? getRef(resolvedRefs.refBeans[i], refIds[i]) : lazyRefs[i];
+            try {
+                refInjectors[i].injectRef(value, ref);
+            } catch (Throwable e) {
+                throw new BeanInstantiationException("Can't inject bean " + refIds[i] + " into bean " + id, e);
+            }
+        }
+        return context.initializeInstance(id, value);
+    }
+
+    /**
+     * Only calls the constructor, setters are left to the caller.
+     *
+     * @param refBeans resolves the refs among the constructor arguments
+     */
+    Object newInstance(Function<String, Bean> refBeans) {
+        if (constructorInjector == null) {
+            return construct(null);
+        }
+        Object[] arguments = constructorArguments.clone();
+        for (int i = 0; i < constructorRefIds.length; i++) {
+            if (constructorRefIds[i] != null) {
+                Bean refBean = refBeans.apply(constructorRefIds[i]);
+                if (refBean == null) {
+                    throw new BeanInstantiationException("Bean " + constructorRefIds[i] + " referenced by " + id + " is not defined", null);
+                }
+                arguments[i] = refBean.getValue();
+            }
+        }
+        return construct(arguments);
+    }
+
+    private Object construct(Object[] arguments) {
+        try {
+            return arguments == null ? constructor.invokeExact() : constructorInjector.newInstance(arguments);
+        } catch (BeanInstantiationException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new BeanInstantiationException("Can't create bean " + id + " of class " + type.getName(), e);
+        }
+    }
+
+    private ResolvedRefs resolveRefs() {
+        long version = context.getTypeIndexVersion();
+        Bean[] constructorRefBeans = null;
+        if (constructorRefIds != null) {
+            constructorRefBeans = new Bean[constructorRefIds.length];
+            for (int i = 0; i < constructorRefIds.length; i++) {
+                if (constructorRefIds[i] != null) {
+                    constructorRefBeans[i] = context.getLocalBean(constructorRefIds[i]);
+                }
+            }
+        }
+        Bean[] refBeans = new Bean[refIds.length];
+        for (int i = 0; i < refIds.length; i++) {
+            if (lazyRefs[i] == null) {
+                refBeans[i] = context.getLocalBean(refIds[i]);
+            }
+        }
+        ResolvedRefs resolvedRefs = new ResolvedRefs(constructorRefBeans, refBeans, version);
+        this.resolvedRefs = resolvedRefs;
+        return resolvedRefs;
+    }
+
+    private Object getRef(Bean refBean, String refId) {
+        Object ref = refBean == null ? context.getParentBeanValue(refId) : refBean.getValue();
+        if (ref == null) {
+            throw new BeanInstantiationException("Bean " + refId + " referenced by " + id + " is not defined", null);
+        }
+        return ref;
+    }
+
+    private static final class ResolvedRefs {
+        private final Bean[] constructorRefBeans;
+        private final Bean[] refBeans;
+        private final long version;
+
+        private ResolvedRefs(Bean[] constructorRefBeans, Bean[] refBeans, long version) {
+            this.constructorRefBeans = constructorRefBeans;
+            this.refBeans = refBeans;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.entity.Bean;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.exception.BeanDestructionException;
+import com.study.ioc.exception.ProcessPostConstructException;
+import com.study.ioc.graph.DependencyGraph;
+import com.study.ioc.processor.BeanPostProcessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs the bean post-processors and {@code @PostConstruct} methods of wired beans, and the {@code @PreDestroy}
+ * methods on close. A bean is initialized only after all beans it references are. With an executor, beans that
+ * don't depend on each other are initialized in parallel; beans with circular refs are initialized one after the
+ * other, in creation order.
+ */
+class BeanInitializer {
+    private final List<BeanPostProcessor> beanPostProcessors;
+    private final boolean lifecycleMethods;
+    private final Executor executor;
+    private final Deque<Bean> destroyableBeans = new ConcurrentLinkedDeque<>();
+
+    BeanInitializer(List<BeanPostProcessor> beanPostProcessors, boolean lifecycleMethods, Executor executor) {
+        this.beanPostProcessors = beanPostProcessors;
+        this.lifecycleMethods = lifecycleMethods;
+        this.executor = executor;
+    }
+
+    boolean hasBeanPostProcessors() {
+        return !beanPostProcessors.isEmpty();
+    }
+
+    /**
+     * Initializes the singletons of the given definitions. Scoped beans are initialized per instance, see
+     * {@link #initialize(String, Object)}.
+     */
+    void initializeBeans(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans) {
+        DependencyGraph graph = DependencyGraph.build(beanDefinitions);
+        List<String> order = graph.getCreationOrder();
+        if (executor == null) {
+            for (String id : order) {
+                initializeSingleton(beans.get(id));
+            }
+            return;
+        }
+
+        // beans referencing each other are initialized one after the other, in creation order
+        Map<String, Set<String>> components = new HashMap<>();
+        Map<Set<String>, CompletableFuture<Void>> lastInitialized = new IdentityHashMap<>();
+        for (Set<String> component : graph.getStronglyConnectedComponents()) {
+            if (component.size() > 1) {
+                for (String id : component) {
+                    components.put(id, component);
+                }
+            }
+        }
+        Map<String, CompletableFuture<Void>> initialized = new HashMap<>();
+        for (String id : order) {
+            Set<String> component = components.getOrDefault(id, Collections.emptySet());
+            List<CompletableFuture<?>> dependenciesInitialized = new ArrayList<>();
+            for (String dependency : graph.getDependencies(id)) {
+                if (!component.contains(dependency)) {
+                    dependenciesInitialized.add(initialized.get(dependency));
+                }
+            }
+            CompletableFuture<Void> previous = lastInitialized.get(component);
+            if (previous != null) {
+                dependenciesInitialized.add(previous);
+            }
+            Bean bean = beans.get(id);
+            CompletableFuture<Void> beanInitialized = CompletableFuture.allOf(dependenciesInitialized.toArray(new CompletableFuture<?>[0]))
+                    .thenRunAsync(() -> initializeSingleton(bean), executor);
+            initialized.put(id, beanInitialized);
+            if (!component.isEmpty()) {
+                lastInitialized.put(component, beanInitialized);
+            }
+        }
+        try {
+            CompletableFuture.allOf(initialized.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ProcessPostConstructException("Bean initialization failed", e.getCause());
+        }
+    }
+
+    /**
+     * Runs the before-initialization processors, the {@code @PostConstruct} methods and the after-initialization
+     * processors on one instance.
+     *
+     * @return the instance to use, possibly replaced by a processor
+     */
+    Object initialize(String id, Object value) {
+        for (BeanPostProcessor beanPostProcessor : beanPostProcessors) {
+            value = beanPostProcessor.postProcessBeforeInitialization(value, id);
+        }
+        if (lifecycleMethods) {
+            try {
+                LifecycleMethods.forClass(value.getClass()).postConstruct(value);
+            } catch (Throwable e) {
+                throw new ProcessPostConstructException("Can't run @PostConstruct methods of bean " + id, e);
+            }
+        }
+        for (BeanPostProcessor beanPostProcessor : beanPostProcessors) {
+            value = beanPostProcessor.postProcessAfterInitialization(value, id);
+        }
+        return value;
+    }
+
+    /**
+     * Runs the {@code @PreDestroy} methods of the initialized singletons, in reverse order of initialization.
+     * All beans are destroyed even if one fails, the first failure is thrown afterwards.
+     */
+    void destroyBeans() {
+        BeanDestructionException failure = null;
+        for (Iterator<Bean> iterator = destroyableBeans.descendingIterator(); iterator.hasNext(); ) {
+            Bean bean = iterator.next();
+            iterator.remove();
+            try {
+                LifecycleMethods.forClass(bean.getValue().getClass()).preDestroy(bean.getValue());
+            } catch (Throwable e) {
+                if (failure == null) {
+                    failure = new BeanDestructionException("Can't run @PreDestroy methods of bean " + bean.getId(), e);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Passes the given beans on to the initializer of the context that took them over, and destroys all others
+     * like {@link #destroyBeans()} does. The beans passed on are destroyed before the successor's own beans.
+     */
+    void destroyBeansExcept(Set<String> keptIds, BeanInitializer successor) {
+        List<Bean> keptBeans = new ArrayList<>();
+        for (Iterator<Bean> iterator = destroyableBeans.iterator(); iterator.hasNext(); ) {
+            Bean bean = iterator.next();
+            if (keptIds.contains(bean.getId())) {
+                keptBeans.add(bean);
+                iterator.remove();
+            }
+        }
+        for (int i = keptBeans.size() - 1; i >= 0; i--) {
+            successor.destroyableBeans.addFirst(keptBeans.get(i));
+        }
+        destroyBeans();
+    }
+
+    private void initializeSingleton(Bean bean) {
+        if (bean == null || bean instanceof ScopedBean) {
+            return;
+        }
+        bean.setValue(initialize(bean.getId(), bean.getValue()));
+        if (lifecycleMethods && LifecycleMethods.forClass(bean.getValue().getClass()).hasPreDestroyMethods()) {
+            destroyableBeans.add(bean);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.context.BeanHandle;
+import com.study.ioc.entity.Bean;
+import com.study.ioc.exception.NoSuchBeanDefinitionException;
+
+/**
+ * Keeps the value of a singleton together with the version of the type index it was looked up in. While no bean
+ * is registered or removed, {@link #get()} reads the cached value and compares the version, without a map lookup,
+ * type check or lookup metrics. Scoped beans and beans of the parent context are looked up on every call.
+ */
+class CachedBeanHandle<T> implements BeanHandle<T> {
+    private static final Resolved<Object> UNRESOLVED = new Resolved<>(null, -1);
+
+    private final GenericApplicationContext context;
+    private final String id;
+    private final Class<T> type;
+    // immutable, so a thread seeing an outdated instance only resolves again
+    @SuppressWarnings("unchecked")
+    private Resolved<T> resolved = (Resolved<T>) UNRESOLVED;
+
+    CachedBeanHandle(GenericApplicationContext context, String id, Class<T> type) {
+        this.context = context;
+        this.id = id;
+        this.type = type;
+    }
+
+    @Override
+    public T get() {
+        Resolved<T> resolved = this.resolved;
+        if (resolved.version == context.getTypeIndexVersion()) {
+            return resolved.value;
+        }
+        return resolve();
+    }
+
+    private T resolve() {
+        long version = context.getTypeIndexVersion();
+        Bean bean = context.getLocalBean(id);
+        if (bean == null || bean instanceof ScopedBean) {
+            return context.getBean(id, type);
+        }
+        Object value = bean.getValue();
+        if (!type.isInstance(value)) {
+            throw new NoSuchBeanDefinitionException(id, type.getName(), value.getClass().getName());
+        }
+        T typedValue = type.cast(value);
+        resolved = new Resolved<>(typedValue, version);
+        return typedValue;
+    }
+
+    private static final class Resolved<T> {
+        private final T value;
+        private final long version;
+
+        private Resolved(T value, long version) {
+            this.value = value;
+            this.version = version;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.convert.ValueConverters;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+
+/**
+ * A constructor compiled into a method handle that takes all arguments as one array, so a bean with constructor
+ * arguments is built in a single call. Value arguments are converted with the {@link ValueConverters} converter
+ * of their parameter type.
+ */
+class ConstructorInjector {
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private final Constructor<?> constructor;
+    private final MethodHandle handle;
+
+    private ConstructorInjector(Constructor<?> constructor, MethodHandle handle) {
+        this.constructor = constructor;
+        this.handle = handle;
+    }
+
+    static ConstructorInjector of(Constructor<?> constructor) {
+        try {
+            constructor.setAccessible(true);
+        } catch (RuntimeException e) {
+            // public constructor of a non-exported type, plain unreflect still works for it
+        }
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, constructor.getParameterCount())
+                    .asType(CONSTRUCTOR_TYPE);
+            return new ConstructorInjector(constructor, handle);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Constructor " + constructor + " is not accessible", e);
+        }
+    }
+
+    Object newInstance(Object[] arguments) throws Throwable {
+        return handle.invokeExact(arguments);
+    }
+
+    /**
+     * Converts a value argument to the type of the parameter at the index, boxed.
+     */
+    Object convertValue(int index, String value) throws Throwable {
+        return ValueConverters.getConverter(constructor.getParameterTypes()[index]).invoke(value);
+    }
+
+    Constructor<?> getConstructor() {
+        return constructor;
+    }
+}
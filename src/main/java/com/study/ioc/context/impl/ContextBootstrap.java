@@ -0,0 +1,177 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.context.ApplicationContext;
+import com.study.ioc.context.ContextConfig;
+import com.study.ioc.entity.Bean;
+import com.study.ioc.exception.NoSuchBeanDefinitionException;
+import com.study.ioc.reader.BeanDefinitionReader;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Starts a context in the background. Definitions are read and beans are built on the executor of the config,
+ * the way the executor constructor of {@link GenericApplicationContext} builds them; without one, on a virtual
+ * thread per task when the JDK has them, else on the common pool. With virtual threads, {@code @PostConstruct}
+ * methods run on them as well unless the config sets an init executor.
+ * <p>
+ * {@link #getBean(String)} completes as soon as that bean and everything it references is wired, and
+ * {@link #getEarlyContext()} finds such beans by id while the rest is still being built. Beans that need
+ * initialization, by lifecycle methods or post-processors, are only available once the whole context is started.
+ * Streaming and snapshot settings of the config are not used.
+ */
+public class ContextBootstrap {
+    private static final Method NEW_VIRTUAL_THREAD_EXECUTOR = findVirtualThreadExecutorFactory();
+
+    private final GenericApplicationContext context = new GenericApplicationContext();
+    private final Map<String, CompletableFuture<Object>> beanFutures = new ConcurrentHashMap<>();
+    private CompletableFuture<ApplicationContext> started;
+
+    private ContextBootstrap() {
+    }
+
+    public static ContextBootstrap start(String... paths) {
+        return start(new XmlBeanDefinitionReader(paths), new ContextConfig());
+    }
+
+    public static ContextBootstrap start(BeanDefinitionReader definitionReader, ContextConfig config) {
+        ContextBootstrap bootstrap = new ContextBootstrap();
+        Executor executor = config.getExecutor();
+        ExecutorService virtualThreadExecutor = executor == null ? newVirtualThreadExecutor() : null;
+        Executor initExecutor = config.getInitExecutor();
+        if (virtualThreadExecutor != null) {
+            executor = virtualThreadExecutor;
+            initExecutor = initExecutor == null ? virtualThreadExecutor : initExecutor;
+        } else if (executor == null) {
+            executor = ForkJoinPool.commonPool();
+        }
+        try {
+            bootstrap.started = bootstrap.context.buildAsync(definitionReader, config, executor, initExecutor, bootstrap::onBeanWired)
+                    .thenApply(ignored -> (ApplicationContext) bootstrap.context);
+        } catch (RuntimeException | Error e) {
+            // configuring the context or submitting the first task failed, nothing will complete and shut it down
+            if (virtualThreadExecutor != null) {
+                virtualThreadExecutor.shutdown();
+            }
+            throw e;
+        }
+        bootstrap.started.whenComplete((context, error) -> {
+            if (virtualThreadExecutor != null) {
+                virtualThreadExecutor.shutdown();
+            }
+            bootstrap.beanFutures.forEach((id, beanFuture) -> bootstrap.completeAfterStart(id, beanFuture));
+        });
+        return bootstrap;
+    }
+
+    /**
+     * Completes with the fully started context, or with the error that stopped it.
+     */
+    public CompletableFuture<ApplicationContext> getContext() {
+        return started;
+    }
+
+    /**
+     * The context while it is being built. {@code getBean(String)} returns the beans wired so far and {@code null}
+     * for the others; lookups by type and {@link ApplicationContext#getBeanNames()} only see beans once the context
+     * is started. Lazy beans should not be requested before that, they may reference beans that are not wired yet.
+     */
+    public ApplicationContext getEarlyContext() {
+        return context;
+    }
+
+    /**
+     * Completes with what {@code getBean(id)} of the context returns, as soon as the bean is wired. Completes with
+     * {@code null} once the context is started if the id is not defined. For a pooled bean it fails like the lookup
+     * does.
+     */
+    public CompletableFuture<Object> getBean(String id) {
+        CompletableFuture<Object> beanFuture = beanFutures.computeIfAbsent(id, key -> new CompletableFuture<>());
+        if (!beanFuture.isDone()) {
+            // the bean may have been published before its future was registered
+            if (started.isDone()) {
+                completeAfterStart(id, beanFuture);
+            } else if (context.getBeans().containsKey(id)) {
+                complete(id, beanFuture);
+            }
+        }
+        return beanFuture;
+    }
+
+    /**
+     * Like {@link #getBean(String)}, failing with {@link NoSuchBeanDefinitionException} if the bean is of another type.
+     */
+    public <T> CompletableFuture<T> getBean(String id, Class<T> clazz) {
+        return getBean(id).thenApply(value -> {
+            if (value != null && !clazz.isInstance(value)) {
+                throw new NoSuchBeanDefinitionException(id, clazz.getName(), value.getClass().getName());
+            }
+            return clazz.cast(value);
+        });
+    }
+
+    /**
+     * Whether this JDK runs the bootstrap on virtual threads when the config has no executor.
+     */
+    public static boolean isVirtualThreadsSupported() {
+        ExecutorService executor = newVirtualThreadExecutor();
+        if (executor == null) {
+            return false;
+        }
+        executor.shutdown();
+        return true;
+    }
+
+    private void onBeanWired(Bean bean) {
+        CompletableFuture<Object> beanFuture = beanFutures.get(bean.getId());
+        if (beanFuture != null) {
+            complete(bean.getId(), beanFuture);
+        }
+    }
+
+    private void completeAfterStart(String id, CompletableFuture<Object> beanFuture) {
+        started.whenComplete((context, error) -> {
+            if (error == null) {
+                complete(id, beanFuture);
+            } else {
+                beanFuture.completeExceptionally(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        });
+    }
+
+    private void complete(String id, CompletableFuture<Object> beanFuture) {
+        try {
+            beanFuture.complete(context.getBean(id));
+        } catch (RuntimeException e) {
+            beanFuture.completeExceptionally(e);
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutor() {
+        if (NEW_VIRTUAL_THREAD_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            // virtual threads are a preview feature that is not enabled
+            return null;
+        }
+    }
+
+    private static Method findVirtualThreadExecutorFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.entity.Bean;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.Scope;
+import com.study.ioc.graph.DependencyGraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The wiring of a started context, saved to a file: singletons in creation order with their resolved setters
+ * and already converted values, plus the definitions of lazy and scoped beans. A later start whose reader
+ * reports the same source version replays the file instead of reading definitions, resolving setters by name
+ * and converting values.
+ * <p>
+ * Values are saved with Java serialization, only strings, primitive wrappers, {@link BigDecimal},
+ * {@link BigInteger}, {@link Duration} and enums: a context with a value of another type is not saved, and a
+ * snapshot containing any other class is rejected while reading, before the class is initialized. A snapshot
+ * that can't be replayed, for example because a bean class changed, is ignored and the context starts normally.
+ */
+class ContextSnapshot {
+    private static final int MAGIC = 0x494f4353;
+    private static final int VERSION = 1;
+    private static final Map<String, Class<?>> PRIMITIVE_TYPES = new HashMap<>();
+    private static final Set<Class<?>> VALUE_TYPES = new HashSet<>(Arrays.asList(String.class, Boolean.class, Character.class,
+            Byte.class, Short.class, Integer.class, Long.class, Float.class, Double.class, BigDecimal.class, BigInteger.class, Duration.class));
+
+    static {
+        for (Class<?> type : new Class<?>[]{boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class}) {
+            PRIMITIVE_TYPES.put(type.getName(), type);
+        }
+    }
+
+    private final Path file;
+
+    ContextSnapshot(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Creates and wires the beans of the context from the snapshot.
+     *
+     * @return false if there is no usable snapshot for this source version, the context is untouched then
+     */
+    boolean replay(GenericApplicationContext context, String sourceVersion) {
+        if (sourceVersion == null || !Files.isRegularFile(file)) {
+            return false;
+        }
+        List<SingletonRecord> singletons = new ArrayList<>();
+        List<BeanDefinition> scopedBeanDefinitions = new ArrayList<>();
+        Map<String, BeanDefinition> lazyBeanDefinitions = new HashMap<>();
+        try (ObjectInputStream input = new ValueInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION || !input.readUTF().equals(sourceVersion)) {
+                return false;
+            }
+            for (int i = input.readInt(); i > 0; i--) {
+                scopedBeanDefinitions.add(readBeanDefinition(input));
+            }
+            for (int i = input.readInt(); i > 0; i--) {
+                BeanDefinition beanDefinition = readBeanDefinition(input);
+                lazyBeanDefinitions.put(beanDefinition.getId(), beanDefinition);
+            }
+            for (int i = input.readInt(); i > 0; i--) {
+                singletons.add(SingletonRecord.read(input));
+            }
+        } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+            return false;
+        }
+
+        try {
+            Map<String, Bean> beans = new HashMap<>();
+            for (SingletonRecord singleton : singletons) {
+                beans.put(singleton.id, new Bean(singleton.id, singleton.type.getDeclaredConstructor().newInstance()));
+            }
+            for (BeanDefinition beanDefinition : scopedBeanDefinitions) {
+                beans.put(beanDefinition.getId(), context.createBean(beanDefinition, beans::get));
+            }
+            Map<Method, PropertyInjector> injectors = new HashMap<>();
+            for (SingletonRecord singleton : singletons) {
+                Object target = beans.get(singleton.id).getValue();
+                for (Injection injection : singleton.injections) {
+                    Object value = injection.value;
+                    if (injection.refId != null) {
+                        Bean refBean = beans.get(injection.refId);
+                        refBean = refBean == null ? context.getParentBean(injection.refId) : refBean;
+                        value = refBean.getValue();
+                    }
+                    injectors.computeIfAbsent(injection.setter, PropertyInjector::of).injectRef(target, value);
+                }
+            }
+            context.setBeans(beans);
+        } catch (Throwable e) {
+            return false;
+        }
+        context.setLazyBeanDefinitions(lazyBeanDefinitions);
+        Map<String, BeanDefinition> singletonDefinitions = new HashMap<>();
+        for (SingletonRecord singleton : singletons) {
+            singletonDefinitions.put(singleton.id, singleton.toBeanDefinition());
+        }
+        context.initializeBeans(singletonDefinitions);
+        return true;
+    }
+
+    /**
+     * Saves the wiring of a context that was just started from the given definitions. Failures are ignored,
+     * the next start just reads the definitions again.
+     */
+    void write(String sourceVersion, Map<String, BeanDefinition> eagerBeanDefinitions,
+               Map<String, BeanDefinition> lazyBeanDefinitions, Map<String, Bean> beans) {
+        if (sourceVersion == null || !isRecordable(eagerBeanDefinitions) || !isRecordable(lazyBeanDefinitions)) {
+            return;
+        }
+        List<BeanDefinition> scopedBeanDefinitions = new ArrayList<>();
+        List<SingletonRecord> singletons = new ArrayList<>();
+        try {
+            for (String id : getCreationOrder(eagerBeanDefinitions)) {
+                BeanDefinition beanDefinition = eagerBeanDefinitions.get(id);
+                Bean bean = beans.get(id);
+                if (bean instanceof ScopedBean) {
+                    scopedBeanDefinitions.add(beanDefinition);
+                } else {
+                    singletons.add(SingletonRecord.of(beanDefinition, bean.getValue()));
+                }
+            }
+        } catch (Throwable e) {
+            return;
+        }
+
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            Path tempFile = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+            try {
+                try (ObjectOutputStream output = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                    output.writeInt(MAGIC);
+                    output.writeInt(VERSION);
+                    output.writeUTF(sourceVersion);
+                    output.writeInt(scopedBeanDefinitions.size());
+                    for (BeanDefinition beanDefinition : scopedBeanDefinitions) {
+                        writeBeanDefinition(output, beanDefinition);
+                    }
+                    output.writeInt(lazyBeanDefinitions.size());
+                    for (BeanDefinition beanDefinition : lazyBeanDefinitions.values()) {
+                        writeBeanDefinition(output, beanDefinition);
+                    }
+                    output.writeInt(singletons.size());
+                    for (SingletonRecord singleton : singletons) {
+                        singleton.write(output);
+                    }
+                }
+                Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException e) {
+            // the snapshot is only a shortcut, the next start reads the definitions again
+        }
+    }
+
+    /**
+     * Beans built through a constructor and lazy refs are not recorded as setter calls, and pool settings are not
+     * recorded at all, contexts with them are not saved.
+     */
+    private static boolean isRecordable(Map<String, BeanDefinition> beanDefinitions) {
+        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+            if (!beanDefinition.getConstructorArguments().isEmpty() || !beanDefinition.getLazyRefProperties().isEmpty()
+                    || beanDefinition.getScope() == Scope.POOLED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<String> getCreationOrder(Map<String, BeanDefinition> beanDefinitions) {
+        return DependencyGraph.build(beanDefinitions).getCreationOrder();
+    }
+
+    private static void writeBeanDefinition(ObjectOutputStream output, BeanDefinition beanDefinition) throws IOException {
+        output.writeUTF(beanDefinition.getId());
+        output.writeUTF(beanDefinition.getClassName());
+        Boolean lazyInit = beanDefinition.getLazyInit();
+        output.writeByte(lazyInit == null ? 0 : lazyInit ? 1 : 2);
+        output.writeByte(beanDefinition.getScope().ordinal());
+        writeDependencies(output, beanDefinition.getValueDependencies());
+        writeDependencies(output, beanDefinition.getRefDependencies());
+    }
+
+    private static BeanDefinition readBeanDefinition(ObjectInputStream input) throws IOException {
+        BeanDefinition beanDefinition = new BeanDefinition(input.readUTF(), input.readUTF());
+        byte lazyInit = input.readByte();
+        beanDefinition.setLazyInit(lazyInit == 0 ? null : lazyInit == 1);
+        beanDefinition.setScope(Scope.values()[input.readByte()]);
+        beanDefinition.setValueDependencies(readDependencies(input));
+        beanDefinition.setRefDependencies(readDependencies(input));
+        return beanDefinition;
+    }
+
+    private static void writeDependencies(ObjectOutputStream output, Map<String, String> dependencies) throws IOException {
+        if (dependencies == null) {
+            output.writeInt(0);
+            return;
+        }
+        output.writeInt(dependencies.size());
+        for (Map.Entry<String, String> entry : dependencies.entrySet()) {
+            output.writeUTF(entry.getKey());
+            output.writeUTF(entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readDependencies(ObjectInputStream input) throws IOException {
+        int size = input.readInt();
+        if (size == 0) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> dependencies = new HashMap<>(size * 4 / 3 + 1);
+        for (int i = 0; i < size; i++) {
+            dependencies.put(input.readUTF(), input.readUTF());
+        }
+        return dependencies;
+    }
+
+    private static Class<?> loadType(String name) throws ClassNotFoundException {
+        Class<?> type = PRIMITIVE_TYPES.get(name);
+        return type != null ? type : Class.forName(name, false, ContextSnapshot.class.getClassLoader());
+    }
+
+    /**
+     * Resolves only the classes of saved values, so a tampered snapshot can't make deserialization load and run
+     * code of other classes.
+     */
+    private static class ValueInputStream extends ObjectInputStream {
+
+        ValueInputStream(InputStream input) throws IOException {
+            super(input);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+            // Duration is written through its serialization proxy, BigInteger as a byte array
+            String name = description.getName();
+            if (!name.equals("java.time.Ser") && !name.equals("[B") && !name.equals(Number.class.getName())) {
+                Class<?> type = Class.forName(name, false, ContextSnapshot.class.getClassLoader());
+                if (!VALUE_TYPES.contains(type) && !Enum.class.isAssignableFrom(type)) {
+                    throw new InvalidClassException(name, "Not a value type of a context snapshot");
+                }
+            }
+            return super.resolveClass(description);
+        }
+    }
+
+    private static class SingletonRecord {
+        private final String id;
+        private final Class<?> type;
+        private final List<Injection> injections;
+
+        private SingletonRecord(String id, Class<?> type, List<Injection> injections) {
+            this.id = id;
+            this.type = type;
+            this.injections = injections;
+        }
+
+        static SingletonRecord of(BeanDefinition beanDefinition, Object value) throws Throwable {
+            InjectionPlan injectionPlan = InjectionPlan.forClass(value.getClass());
+            List<Injection> injections = new ArrayList<>();
+            Map<String, String> valueDependencies = beanDefinition.getValueDependencies();
+            if (valueDependencies != null) {
+                for (Map.Entry<String, String> entry : valueDependencies.entrySet()) {
+                    PropertyInjector injector = injectionPlan.getInjector(entry.getKey());
+                    Object convertedValue = injector.convertValue(entry.getValue());
+                    if (convertedValue != null && !VALUE_TYPES.contains(convertedValue.getClass()) && !(convertedValue instanceof Enum)) {
+                        throw new IllegalArgumentException("Value of " + entry.getKey() + " can't be saved");
+                    }
+                    injections.add(new Injection(injector.getSetter(), null, convertedValue));
+                }
+            }
+            Map<String, String> refDependencies = beanDefinition.getRefDependencies();
+            if (refDependencies != null) {
+                for (Map.Entry<String, String> entry : refDependencies.entrySet()) {
+                    injections.add(new Injection(injectionPlan.getInjector(entry.getKey()).getSetter(), entry.getValue(), null));
+                }
+            }
+            return new SingletonRecord(beanDefinition.getId(), value.getClass(), injections);
+        }
+
+        static SingletonRecord read(ObjectInputStream input) throws IOException, ReflectiveOperationException {
+            String id = input.readUTF();
+            Class<?> type = loadType(input.readUTF());
+            List<Injection> injections = new ArrayList<>();
+            for (int i = input.readInt(); i > 0; i--) {
+                Class<?> declaringClass = loadType(input.readUTF());
+                String setterName = input.readUTF();
+                Class<?> parameterType = loadType(input.readUTF());
+                Method setter = declaringClass.getMethod(setterName, parameterType);
+                if (input.readBoolean()) {
+                    injections.add(new Injection(setter, input.readUTF(), null));
+                } else {
+                    injections.add(new Injection(setter, null, input.readObject()));
+                }
+            }
+            return new SingletonRecord(id, type, injections);
+        }
+
+        /**
+         * A definition with just the refs, enough to order initialization.
+         */
+        BeanDefinition toBeanDefinition() {
+            BeanDefinition beanDefinition = new BeanDefinition(id, type.getName());
+            Map<String, String> refDependencies = new HashMap<>();
+            for (Injection injection : injections) {
+                if (injection.refId != null) {
+                    refDependencies.put(injection.setter.getName(), injection.refId);
+                }
+            }
+            beanDefinition.setRefDependencies(refDependencies);
+            return beanDefinition;
+        }
+
+        void write(ObjectOutputStream output) throws IOException {
+            output.writeUTF(id);
+            output.writeUTF(type.getName());
+            output.writeInt(injections.size());
+            for (Injection injection : injections) {
+                output.writeUTF(injection.setter.getDeclaringClass().getName());
+                output.writeUTF(injection.setter.getName());
+                output.writeUTF(injection.setter.getParameterTypes()[0].getName());
+                output.writeBoolean(injection.refId != null);
+                if (injection.refId != null) {
+                    output.writeUTF(injection.refId);
+                } else {
+                    output.writeObject(injection.value);
+                }
+            }
+        }
+    }
+
+    private static class Injection {
+        private final Method setter;
+        private final String refId;
+        private final Object value;
+
+        private Injection(Method setter, String refId, Object value) {
+            this.setter = setter;
+            this.refId = refId;
+            this.value = value;
+        }
+    }
+}
@@ -1,18 +1,63 @@
 package com.study.ioc.context.impl;
 
 import com.study.ioc.context.ApplicationContext;
+import com.study.ioc.context.BeanHandle;
+import com.study.ioc.context.ContextConfig;
 import com.study.ioc.entity.Bean;
 import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.entity.PoolSettings;
+import com.study.ioc.entity.PropertyMaps;
+import com.study.ioc.entity.Scope;
+import com.study.ioc.exception.BeanInstantiationException;
+import com.study.ioc.exception.CircularDependencyException;
+import com.study.ioc.exception.NoSuchBeanDefinitionException;
+import com.study.ioc.exception.NoUniqueBeanOfTypeException;
+import com.study.ioc.exception.PostProcessBeanFactoryException;
+import com.study.ioc.metrics.BeanPoolMetrics;
+import com.study.ioc.metrics.ContextMetricsListener;
+import com.study.ioc.processor.BeanFactoryPostProcessor;
+import com.study.ioc.proxy.LazyProxies;
 import com.study.ioc.reader.BeanDefinitionReader;
+import com.study.ioc.reader.StreamingBeanDefinitionReader;
 import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
 
+import java.io.Closeable;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
-public class GenericApplicationContext implements ApplicationContext {
+public class GenericApplicationContext implements ApplicationContext, Closeable {
 
-    private Map<String, Bean> beans;
+    private final Object lazyInitLock = new Object();
+    private final Map<String, Bean> lazyBeansInCreation = new HashMap<>();
+    private Map<String, Bean> beans = new ConcurrentHashMap<>();
+    private volatile Map<String, BeanDefinition> lazyBeanDefinitions = Collections.emptyMap();
+    private volatile List<String> beanNames = Collections.emptyList();
+    // changed in place while holding lazyInitLock, once the constructor is done
+    private Map<String, Class<?>> beanTypes = new HashMap<>();
+    private volatile TypeIndex typeIndex = TypeIndex.EMPTY;
+    private volatile boolean lazyBeanTypesIndexed = true;
+    private Map<String, Long> beanCreationTimes = Collections.emptyMap();
+    private ContextMetricsListener metricsListener = ContextMetricsListener.NOOP;
+    private boolean metricsEnabled;
+    private ParentLookupCache parent;
+    private BeanInitializer initializer;
 
     GenericApplicationContext() {
     }
@@ -22,52 +67,895 @@ public class GenericApplicationContext implements ApplicationContext {
     }
 
     public GenericApplicationContext(BeanDefinitionReader definitionReader) {
-        Map<String, BeanDefinition> beanDefinitions = definitionReader.getBeanDefinition();
+        this(definitionReader, new ContextConfig());
+    }
+
+    /**
+     * With {@code lazyInit} set, beans without an explicit {@code lazy-init} attribute are created with their
+     * refs on first {@code getBean}, instead of in the constructor.
+     */
+    public GenericApplicationContext(BeanDefinitionReader definitionReader, boolean lazyInit) {
+        this(definitionReader, lazyInitConfig(lazyInit));
+    }
+
+    /**
+     * Creates and wires the beans on the given executor. Beans that don't reference each other are built in
+     * parallel, a bean gets its refs injected once all beans it references are fully wired, beans referencing each
+     * other once all of them are instantiated. Circular constructor references are rejected before anything is
+     * instantiated.
+     */
+    public GenericApplicationContext(BeanDefinitionReader definitionReader, Executor executor) {
+        this(definitionReader, executorConfig(executor));
+    }
+
+    public GenericApplicationContext(BeanDefinitionReader definitionReader, ContextConfig config) {
+        configure(config);
+        boolean readAllDefinitions = !config.getBeanFactoryPostProcessors().isEmpty();
+        ContextSnapshot snapshot = null;
+        String sourceVersion = null;
+        if (config.getSnapshotFile() != null && config.getExecutor() == null && !config.isStreaming() && !readAllDefinitions) {
+            snapshot = new ContextSnapshot(config.getSnapshotFile());
+            sourceVersion = definitionReader.getSourceVersion();
+            if (snapshot.replay(this, sourceVersion)) {
+                return;
+            }
+        }
+        if (config.isStreaming() && config.getExecutor() == null && !readAllDefinitions
+                && definitionReader instanceof StreamingBeanDefinitionReader) {
+            setBeans(Collections.<String, Bean>emptyMap());
+            StreamingBeanCreator beanCreator = new StreamingBeanCreator(this, beans, config.isLazyInit(), initializer != null);
+            ((StreamingBeanDefinitionReader) definitionReader).readBeanDefinitions(beanCreator);
+            beanCreator.finish();
+            setBeans(beans);
+            setLazyBeanDefinitions(beanCreator.getLazyBeanDefinitions());
+            initializeBeans(beanCreator.getCreatedBeanDefinitions());
+            return;
+        }
+        Map<String, BeanDefinition> beanDefinitions = postProcessBeanFactory(definitionReader.getBeanDefinition(), config.getBeanFactoryPostProcessors());
+        beanDefinitions = splitLazyBeanDefinitions(beanDefinitions, config.isLazyInit());
+
+        if (config.getExecutor() == null) {
+            createBeans(beanDefinitions, Collections.<String, Bean>emptyMap());
+            if (snapshot != null) {
+                snapshot.write(sourceVersion, beanDefinitions, lazyBeanDefinitions, beans);
+            }
+        } else {
+            ParallelBeanCreator beanCreator = new ParallelBeanCreator(this, config.getExecutor());
+            setBeans(Collections.<String, Bean>emptyMap());
+            beanCreator.createBeans(beanDefinitions, beans);
+            setBeans(beans);
+            beanCreationTimes = beanCreator.getCreationTimes();
+            initializeBeans(beanDefinitions);
+        }
+    }
 
-        beans = createBeans(beanDefinitions);
-        injectValueDependencies(beanDefinitions, beans);
-        injectRefDependencies(beanDefinitions, beans);
+    /**
+     * Reads the definitions and builds the beans on the executor, the way the executor constructor does, without
+     * blocking the caller. Without initialization work every bean is published as soon as it is wired and passed
+     * to {@code wiredListener}; otherwise beans are published together once all are wired and initialized.
+     * See {@link ContextBootstrap}.
+     *
+     * @return completes once the context is fully started
+     */
+    CompletableFuture<Void> buildAsync(BeanDefinitionReader definitionReader, ContextConfig config, Executor executor,
+                                       Executor initExecutor, Consumer<Bean> wiredListener) {
+        configure(config, initExecutor);
+        return CompletableFuture.supplyAsync(definitionReader::getBeanDefinition, executor)
+                .thenCompose(readBeanDefinitions -> {
+                    Map<String, BeanDefinition> beanDefinitions = splitLazyBeanDefinitions(
+                            postProcessBeanFactory(readBeanDefinitions, config.getBeanFactoryPostProcessors()), config.isLazyInit());
+                    ParallelBeanCreator beanCreator = new ParallelBeanCreator(this, executor);
+                    Map<String, Bean> beans = this.beans;
+                    if (initializer == null) {
+                        beanCreator.setWiredListener(wiredListener);
+                    } else {
+                        beans = new ConcurrentHashMap<>();
+                    }
+                    Map<String, Bean> createdBeans = beans;
+                    return beanCreator.startBeans(beanDefinitions, createdBeans).thenRunAsync(() -> {
+                        setBeans(createdBeans);
+                        beanCreationTimes = beanCreator.getCreationTimes();
+                        initializeBeans(beanDefinitions);
+                    }, executor);
+                });
+    }
+
+    /**
+     * Builds a context from already read definitions, taking over the given beans as they are. Only the other eager
+     * beans are created and wired, always sequentially. The given beans must not reference anything outside of them.
+     */
+    GenericApplicationContext(Map<String, BeanDefinition> beanDefinitions, ContextConfig config, Map<String, Bean> existingBeans) {
+        configure(config);
+        createBeans(splitLazyBeanDefinitions(beanDefinitions, config.isLazyInit()), existingBeans);
     }
 
     @Override
     public Object getBean(String beanId) {
-        return null;
+        if (metricsEnabled) {
+            metricsListener.onLookupById(beanId);
+        }
+        return getBeanValue(beanId);
     }
 
     @Override
     public <T> T getBean(Class<T> clazz) {
-        return null;
+        if (metricsEnabled) {
+            metricsListener.onLookupByType(clazz);
+        }
+        List<String> candidates = getTypeIndex().get(clazz);
+        if (candidates.isEmpty()) {
+            return parent == null ? null : parent.getBean(clazz);
+        }
+        if (candidates.size() > 1) {
+            throw new NoUniqueBeanOfTypeException("No unique bean of type " + clazz.getName() + " is defined. Found beans: " + candidates);
+        }
+        return clazz.cast(getBeanValue(candidates.get(0)));
     }
 
     @Override
     public <T> T getBean(String id, Class<T> clazz) {
-        return null;
+        Object value = getBean(id);
+        if (value == null) {
+            return null;
+        }
+        if (!clazz.isInstance(value)) {
+            throw new NoSuchBeanDefinitionException(id, clazz.getName(), value.getClass().getName());
+        }
+        return clazz.cast(value);
     }
 
+    @Override
+    public <T> Map<String, T> getBeansOfType(Class<T> clazz) {
+        if (metricsEnabled) {
+            metricsListener.onLookupByType(clazz);
+        }
+        List<String> candidates = getTypeIndex().get(clazz);
+        Map<String, T> beansOfType = new LinkedHashMap<>();
+        if (parent != null) {
+            beansOfType.putAll(parent.getBeansOfType(clazz));
+        }
+        for (String id : candidates) {
+            beansOfType.put(id, clazz.cast(getBeanValue(id)));
+        }
+        return beansOfType;
+    }
+
+    /**
+     * Returns a handle that caches a singleton and looks it up again only after a bean is registered or removed.
+     * The bean is looked up and its type checked on the first {@link BeanHandle#get()}, not here. Calls through
+     * the handle are not reported as lookups to the metrics listener. Handles of pooled beans fail like
+     * {@link #getBean(String)} does, borrow their instances with {@link #borrowBean(String, Class)}.
+     */
+    @Override
+    public <T> BeanHandle<T> handle(String id, Class<T> clazz) {
+        return new CachedBeanHandle<>(this, id, clazz);
+    }
+
+    /**
+     * Returns an unmodifiable list that is replaced, not changed, when beans are registered or removed.
+     * Beans of the parent context are not listed.
+     */
     @Override
     public List<String> getBeanNames() {
-        return null;
+        return beanNames;
+    }
+
+    /**
+     * Borrows an instance of a pooled bean, it has to be given back with {@link #returnBean(String, Object)}.
+     * Pooled beans can only be used this way: looking them up with {@code getBean} or injecting them into other
+     * beans fails, as nothing would return those instances, and lookups by type do not see them. Waits up to the
+     * configured {@code pool-max-wait} when all instances are borrowed.
+     *
+     * @throws IllegalArgumentException if the bean is not pooled
+     * @throws com.study.ioc.exception.BeanPoolExhaustedException if no instance was returned in time
+     */
+    public <T> T borrowBean(String id, Class<T> clazz) {
+        if (metricsEnabled) {
+            metricsListener.onLookupById(id);
+        }
+        PooledBean pooledBean = getPooledBean(id);
+        Object value = pooledBean.borrow();
+        if (!clazz.isInstance(value)) {
+            pooledBean.release(value);
+            throw new NoSuchBeanDefinitionException(id, clazz.getName(), value.getClass().getName());
+        }
+        return clazz.cast(value);
+    }
+
+    /**
+     * Gives a borrowed instance back to the pool of its bean. Every borrowed instance must be returned exactly once.
+     *
+     * @throws IllegalArgumentException if the bean is not pooled, or the instance is not borrowed from it or
+     *                                  already returned
+     */
+    public void returnBean(String id, Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("No instance of pooled bean " + id + " to return");
+        }
+        getPooledBean(id).release(value);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bean is not pooled
+     */
+    public BeanPoolMetrics getPoolMetrics(String id) {
+        return getPooledBean(id).getMetrics();
+    }
+
+    private PooledBean getPooledBean(String id) {
+        Bean bean = getLocalBean(id);
+        if (!(bean instanceof PooledBean)) {
+            throw new IllegalArgumentException("Bean " + id + " is not pooled");
+        }
+        return (PooledBean) bean;
+    }
+
+    /**
+     * Adds a fully initialized object as a singleton. Lookups never block on registration, they see the bean
+     * once this method returns.
+     *
+     * @throws IllegalStateException if a bean with this id is already defined
+     */
+    public void registerBean(String id, Object value) {
+        synchronized (lazyInitLock) {
+            if (beans.containsKey(id) || lazyBeanDefinitions.containsKey(id)) {
+                throw new IllegalStateException("Bean " + id + " is already defined");
+            }
+            beanTypes.put(id, value.getClass());
+            beans.put(id, new Bean(id, value));
+            typeIndex = typeIndex.with(id, value.getClass());
+            updateBeanNames();
+        }
+    }
+
+    /**
+     * Removes a bean or a not yet created lazy definition. Beans that got the removed bean injected keep it.
+     *
+     * @return whether a bean with this id was defined
+     */
+    public boolean removeBean(String id) {
+        synchronized (lazyInitLock) {
+            Class<?> type = beanTypes.get(id);
+            Bean bean = beans.remove(id);
+            BeanDefinition lazyBeanDefinition = lazyBeanDefinitions.remove(id);
+            if (lazyBeanDefinition != null) {
+                if (type == null && lazyBeanTypesIndexed) {
+                    type = loadClass(lazyBeanDefinition);
+                }
+            }
+            if (bean == null && lazyBeanDefinition == null) {
+                return false;
+            }
+            beanTypes.remove(id);
+            if (type != null) {
+                typeIndex = typeIndex.without(id, type);
+            }
+            updateBeanNames();
+            return true;
+        }
+    }
+
+    /**
+     * Version of the type index, it grows with every bean registered or removed at runtime.
+     */
+    long getTypeIndexVersion() {
+        return typeIndex.getVersion();
+    }
+
+    /**
+     * Time spent creating and wiring each bean, in nanoseconds, when the context was built on an executor.
+     */
+    public Map<String, Long> getBeanCreationTimes() {
+        return beanCreationTimes;
+    }
+
+    private Object getBeanValue(String beanId) {
+        Bean bean = getLocalBean(beanId);
+        if (bean == null) {
+            return parent == null ? null : parent.getBean(beanId);
+        }
+        return bean.getValue();
+    }
+
+    /**
+     * Returns the holder of a bean, creating it if it is lazy. A bean of the parent context is wrapped.
+     */
+    Bean findBean(String beanId) {
+        Bean bean = getLocalBean(beanId);
+        return bean == null ? getParentBean(beanId) : bean;
+    }
+
+    /**
+     * Returns the holder of a bean of this context, creating it if it is lazy.
+     */
+    Bean getLocalBean(String beanId) {
+        Bean bean = beans.get(beanId);
+        if (bean == null) {
+            if (lazyBeanDefinitions.containsKey(beanId)) {
+                return createLazyBean(beanId);
+            }
+            // the bean may have been created and its lazy definition released since the first read
+            bean = beans.get(beanId);
+        }
+        return bean;
+    }
+
+    boolean hasLazyBeanDefinition(String beanId) {
+        return lazyBeanDefinitions.containsKey(beanId);
+    }
+
+    /**
+     * Creates the proxy injected for a lazy ref, see {@link LazyRefTarget}.
+     */
+    Object createLazyRef(String beanId, String refId, Class<?> type) {
+        try {
+            return LazyProxies.create(type, new LazyRefTarget(this, refId, beanId));
+        } catch (IllegalArgumentException e) {
+            throw new BeanInstantiationException("Can't create lazy ref to bean " + refId + " for bean " + beanId, e);
+        }
+    }
+
+    /**
+     * Wraps a bean of the parent context, so it can be injected into beans of this context.
+     */
+    Bean getParentBean(String beanId) {
+        Object value = getParentBeanValue(beanId);
+        return value == null ? null : new Bean(beanId, value);
+    }
+
+    Object getParentBeanValue(String beanId) {
+        return parent == null ? null : parent.getBean(beanId);
+    }
+
+    /**
+     * Changes whenever the bean set of this context or of a parent changes, -1 if a parent can't tell.
+     */
+    long getLookupVersion() {
+        if (parent == null) {
+            return typeIndex.getVersion();
+        }
+        long parentVersion = parent.getVersion();
+        return parentVersion < 0 ? -1 : typeIndex.getVersion() + parentVersion;
+    }
+
+    private void configure(ContextConfig config) {
+        configure(config, config.getInitExecutor());
+    }
+
+    private void configure(ContextConfig config, Executor initExecutor) {
+        metricsListener = config.getMetricsListener();
+        metricsEnabled = metricsListener != ContextMetricsListener.NOOP;
+        if (config.getParent() != null) {
+            parent = new ParentLookupCache(config.getParent());
+        }
+        if (config.isLifecycleMethods() || !config.getBeanPostProcessors().isEmpty()) {
+            initializer = new BeanInitializer(new ArrayList<>(config.getBeanPostProcessors()), config.isLifecycleMethods(), initExecutor);
+        }
+    }
+
+    private static Map<String, BeanDefinition> postProcessBeanFactory(Map<String, BeanDefinition> beanDefinitions,
+                                                                      List<BeanFactoryPostProcessor> beanFactoryPostProcessors) {
+        if (beanFactoryPostProcessors.isEmpty()) {
+            return beanDefinitions;
+        }
+        // the reader keeps properties in read-only maps, processors get maps they can change
+        Map<String, BeanDefinition> processedBeanDefinitions = new HashMap<>(beanDefinitions);
+        for (BeanDefinition beanDefinition : processedBeanDefinitions.values()) {
+            beanDefinition.setValueDependencies(mutableCopy(beanDefinition.getValueDependencies()));
+            beanDefinition.setRefDependencies(mutableCopy(beanDefinition.getRefDependencies()));
+        }
+        for (BeanFactoryPostProcessor beanFactoryPostProcessor : beanFactoryPostProcessors) {
+            try {
+                beanFactoryPostProcessor.postProcessBeanFactory(processedBeanDefinitions);
+            } catch (RuntimeException e) {
+                throw new PostProcessBeanFactoryException("Bean factory post-processor " + beanFactoryPostProcessor.getClass().getName() + " failed", e);
+            }
+        }
+        for (BeanDefinition beanDefinition : processedBeanDefinitions.values()) {
+            if (beanDefinition.getValueDependencies() != null) {
+                beanDefinition.setValueDependencies(PropertyMaps.copyOf(beanDefinition.getValueDependencies()));
+            }
+            if (beanDefinition.getRefDependencies() != null) {
+                beanDefinition.setRefDependencies(PropertyMaps.copyOf(beanDefinition.getRefDependencies()));
+            }
+        }
+        return processedBeanDefinitions;
+    }
+
+    private static Map<String, String> mutableCopy(Map<String, String> dependencies) {
+        return dependencies == null ? new HashMap<>() : new HashMap<>(dependencies);
+    }
+
+    /**
+     * Runs the post-processors and lifecycle methods of the just wired singletons of these definitions.
+     */
+    void initializeBeans(Map<String, BeanDefinition> beanDefinitions) {
+        if (initializer != null) {
+            initializer.initializeBeans(beanDefinitions, beans);
+            if (initializer.hasBeanPostProcessors()) {
+                // processors may have replaced beans with objects of other types
+                setBeans(beans);
+            }
+        }
+        prewarmPools(beanDefinitions.keySet(), beans);
+    }
+
+    /**
+     * Creates the minimum instances of the pooled beans once everything they may reference is wired.
+     */
+    private static void prewarmPools(Set<String> ids, Map<String, Bean> beans) {
+        for (String id : ids) {
+            Bean bean = beans.get(id);
+            if (bean instanceof PooledBean) {
+                ((PooledBean) bean).prewarm();
+            }
+        }
+    }
+
+    /**
+     * Initializes a new instance of a scoped bean.
+     */
+    Object initializeInstance(String id, Object value) {
+        return initializer == null ? value : initializer.initialize(id, value);
+    }
+
+    /**
+     * Runs the {@code @PreDestroy} methods of the initialized singletons. The beans stay available.
+     */
+    @Override
+    public void close() {
+        if (initializer != null) {
+            initializer.destroyBeans();
+        }
+    }
+
+    /**
+     * Closes a context replaced by one that took over the given beans: those are destroyed when the successor is
+     * closed, all other initialized singletons are destroyed now.
+     */
+    void closeReplaced(Set<String> keptIds, GenericApplicationContext successor) {
+        if (initializer != null) {
+            initializer.destroyBeansExcept(keptIds, successor.initializer);
+        }
+    }
+
+    private static ContextConfig lazyInitConfig(boolean lazyInit) {
+        ContextConfig config = new ContextConfig();
+        config.setLazyInit(lazyInit);
+        return config;
+    }
+
+    private static ContextConfig executorConfig(Executor executor) {
+        ContextConfig config = new ContextConfig();
+        config.setExecutor(executor);
+        return config;
+    }
+
+    /**
+     * Keeps the lazy definitions for on-demand creation and returns the ones to create now. A lazy bean
+     * referenced by an eager one is created eagerly as well, so eager beans never wait on first access.
+     */
+    private Map<String, BeanDefinition> splitLazyBeanDefinitions(Map<String, BeanDefinition> beanDefinitions, boolean lazyInit) {
+        Map<String, BeanDefinition> eagerBeanDefinitions = new HashMap<>();
+        Deque<BeanDefinition> toVisit = new ArrayDeque<>();
+        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+            Boolean beanLazyInit = beanDefinition.getLazyInit();
+            if (!(beanLazyInit == null ? lazyInit : beanLazyInit)) {
+                toVisit.add(beanDefinition);
+            }
+        }
+        while (!toVisit.isEmpty()) {
+            BeanDefinition beanDefinition = toVisit.poll();
+            if (eagerBeanDefinitions.put(beanDefinition.getId(), beanDefinition) != null) {
+                continue;
+            }
+            for (String refId : getRefIds(beanDefinition)) {
+                BeanDefinition refDefinition = beanDefinitions.get(refId);
+                if (refDefinition != null && !eagerBeanDefinitions.containsKey(refId)) {
+                    toVisit.add(refDefinition);
+                }
+            }
+        }
+        if (eagerBeanDefinitions.size() < beanDefinitions.size()) {
+            Map<String, BeanDefinition> lazyBeanDefinitions = new HashMap<>(beanDefinitions);
+            lazyBeanDefinitions.keySet().removeAll(eagerBeanDefinitions.keySet());
+            setLazyBeanDefinitions(lazyBeanDefinitions);
+        }
+        return eagerBeanDefinitions;
+    }
+
+    void setLazyBeanDefinitions(Map<String, BeanDefinition> lazyBeanDefinitions) {
+        if (!lazyBeanDefinitions.isEmpty()) {
+            this.lazyBeanDefinitions = new ConcurrentHashMap<>(lazyBeanDefinitions);
+            this.lazyBeanTypesIndexed = false;
+            updateBeanNames();
+        }
+    }
+
+    private void updateBeanNames() {
+        List<String> beanNames = new ArrayList<>(beans.keySet());
+        for (String id : lazyBeanDefinitions.keySet()) {
+            if (!beans.containsKey(id)) {
+                beanNames.add(id);
+            }
+        }
+        this.beanNames = Collections.unmodifiableList(beanNames);
+    }
+
+    /**
+     * Creates a lazy bean together with the lazy beans it transitively references. The new beans are published
+     * only after all of them are wired, so concurrent callers either wait here or see the finished graph.
+     */
+    private Bean createLazyBean(String beanId) {
+        synchronized (lazyInitLock) {
+            Bean bean = beans.get(beanId);
+            if (bean == null) {
+                bean = lazyBeansInCreation.get(beanId);
+            }
+            if (bean != null) {
+                return bean;
+            }
+            Map<String, BeanDefinition> beanDefinitions = new HashMap<>();
+            Deque<String> toVisit = new ArrayDeque<>();
+            toVisit.add(beanId);
+            while (!toVisit.isEmpty()) {
+                String id = toVisit.poll();
+                if (beans.containsKey(id) || lazyBeansInCreation.containsKey(id) || beanDefinitions.containsKey(id)) {
+                    continue;
+                }
+                BeanDefinition beanDefinition = lazyBeanDefinitions.get(id);
+                if (beanDefinition == null) {
+                    continue;
+                }
+                beanDefinitions.put(id, beanDefinition);
+                toVisit.addAll(getRefIds(beanDefinition));
+            }
+
+            Function<String, Bean> refBeans = id -> {
+                Bean refBean = lazyBeansInCreation.get(id);
+                return refBean == null ? beans.get(id) : refBean;
+            };
+            Map<String, Bean> createdBeans = createBeans(beanDefinitions, refBeans);
+            lazyBeansInCreation.putAll(createdBeans);
+            try {
+                injectValueDependencies(beanDefinitions, createdBeans);
+                for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+                    injectRefDependencies(beanDefinition, createdBeans.get(beanDefinition.getId()), refBeans);
+                }
+                if (initializer != null) {
+                    initializer.initializeBeans(beanDefinitions, createdBeans);
+                }
+                prewarmPools(beanDefinitions.keySet(), createdBeans);
+                beans.putAll(createdBeans);
+                releaseLazyBeanDefinitions(createdBeans);
+            } finally {
+                lazyBeansInCreation.keySet().removeAll(createdBeans.keySet());
+            }
+            return createdBeans.get(beanId);
+        }
+    }
+
+    /**
+     * Drops the definitions of created lazy beans, only their types are kept for lookups by type. Scoped beans
+     * keep what they need to create instances in their {@link BeanFactory}.
+     */
+    private void releaseLazyBeanDefinitions(Map<String, Bean> createdBeans) {
+        for (Bean bean : createdBeans.values()) {
+            putBeanType(beanTypes, bean);
+            lazyBeanDefinitions.remove(bean.getId());
+        }
+    }
+
+    /**
+     * Pooled beans are left out of lookups by type, their instances can only be borrowed by id.
+     */
+    private static void putBeanType(Map<String, Class<?>> beanTypes, Bean bean) {
+        if (bean instanceof PooledBean) {
+            return;
+        }
+        beanTypes.put(bean.getId(), bean instanceof ScopedBean ? ((ScopedBean) bean).getType() : bean.getValue().getClass());
+    }
+
+    /**
+     * Ids referenced through constructor arguments.
+     */
+    static List<String> getConstructorRefIds(BeanDefinition beanDefinition) {
+        List<String> refIds = new ArrayList<>();
+        for (ConstructorArgument constructorArgument : beanDefinition.getConstructorArguments()) {
+            if (constructorArgument.isRef()) {
+                refIds.add(constructorArgument.getRef());
+            }
+        }
+        return refIds;
+    }
+
+    /**
+     * Ids referenced through properties and constructor arguments, without lazy refs, their targets are
+     * created on use.
+     */
+    static List<String> getRefIds(BeanDefinition beanDefinition) {
+        List<String> refIds = new ArrayList<>();
+        Map<String, String> refDependencies = beanDefinition.getRefDependencies();
+        if (refDependencies != null) {
+            for (Map.Entry<String, String> entry : refDependencies.entrySet()) {
+                if (!beanDefinition.getLazyRefProperties().contains(entry.getKey())) {
+                    refIds.add(entry.getValue());
+                }
+            }
+        }
+        for (ConstructorArgument constructorArgument : beanDefinition.getConstructorArguments()) {
+            if (constructorArgument.isRef()) {
+                refIds.add(constructorArgument.getRef());
+            }
+        }
+        return refIds;
+    }
+
+    private TypeIndex getTypeIndex() {
+        if (!lazyBeanTypesIndexed) {
+            synchronized (lazyInitLock) {
+                if (!lazyBeanTypesIndexed) {
+                    Map<String, Class<?>> types = new HashMap<>(beanTypes);
+                    for (BeanDefinition beanDefinition : lazyBeanDefinitions.values()) {
+                        if (beanDefinition.getScope() != Scope.POOLED) {
+                            types.put(beanDefinition.getId(), loadClass(beanDefinition));
+                        }
+                    }
+                    typeIndex = TypeIndex.build(types, typeIndex.getVersion());
+                    lazyBeanTypesIndexed = true;
+                }
+            }
+        }
+        return typeIndex;
+    }
+
+    private Class<?> loadClass(BeanDefinition beanDefinition) {
+        try {
+            return Class.forName(beanDefinition.getClassName(), false, getClass().getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new BeanInstantiationException("Can't load class " + beanDefinition.getClassName() + " of bean " + beanDefinition.getId(), e);
+        }
+    }
+
+    private void createBeans(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> existingBeans) {
+        Map<String, BeanDefinition> newBeanDefinitions = beanDefinitions;
+        if (!existingBeans.isEmpty()) {
+            newBeanDefinitions = new HashMap<>(beanDefinitions);
+            newBeanDefinitions.keySet().removeAll(existingBeans.keySet());
+        }
+        Map<String, Bean> beans = createBeans(newBeanDefinitions, existingBeans::get);
+        beans.putAll(existingBeans);
+        setBeans(beans);
+        injectValueDependencies(newBeanDefinitions, this.beans);
+        injectRefDependencies(newBeanDefinitions, this.beans);
+        initializeBeans(newBeanDefinitions);
+    }
+
+    Map<String, Bean> getBeans() {
+        return beans;
     }
 
     Map<String, Bean> createBeans(Map<String, BeanDefinition> beanDefinitionMap) {
-        return null;
+        return createBeans(beanDefinitionMap, id -> null);
+    }
+
+    /**
+     * Instantiates the beans of the definitions. A bean with constructor refs is created after the beans it
+     * references; refs outside of the definitions are resolved with {@code refBeans}, then with the parent.
+     *
+     * @throws CircularDependencyException if beans reference each other through constructor arguments
+     */
+    Map<String, Bean> createBeans(Map<String, BeanDefinition> beanDefinitionMap, Function<String, Bean> refBeans) {
+        Map<String, Bean> beans = new HashMap<>();
+        Function<String, Bean> allRefBeans = id -> {
+            Bean refBean = beans.get(id);
+            return refBean == null ? refBeans.apply(id) : refBean;
+        };
+        Set<String> inCreation = new LinkedHashSet<>();
+        for (BeanDefinition beanDefinition : beanDefinitionMap.values()) {
+            createInOrder(beanDefinition, beanDefinitionMap, beans, allRefBeans, inCreation);
+        }
+        return beans;
+    }
+
+    private void createInOrder(BeanDefinition beanDefinition, Map<String, BeanDefinition> beanDefinitionMap, Map<String, Bean> beans,
+                               Function<String, Bean> refBeans, Set<String> inCreation) {
+        if (beans.containsKey(beanDefinition.getId())) {
+            return;
+        }
+        // an explicit stack of the definitions in creation, long constructor chains would overflow the call stack
+        Deque<BeanDefinition> path = new ArrayDeque<>();
+        Deque<Iterator<ConstructorArgument>> pathArguments = new ArrayDeque<>();
+        inCreation.add(beanDefinition.getId());
+        path.push(beanDefinition);
+        pathArguments.push(beanDefinition.getConstructorArguments().iterator());
+        while (!path.isEmpty()) {
+            Iterator<ConstructorArgument> arguments = pathArguments.peek();
+            if (arguments.hasNext()) {
+                ConstructorArgument constructorArgument = arguments.next();
+                BeanDefinition refDefinition = constructorArgument.isRef() ? beanDefinitionMap.get(constructorArgument.getRef()) : null;
+                if (refDefinition == null || beans.containsKey(refDefinition.getId())) {
+                    continue;
+                }
+                if (!inCreation.add(refDefinition.getId())) {
+                    throw new CircularDependencyException("Circular constructor reference between beans: " + String.join(" -> ", inCreation)
+                            + " -> " + refDefinition.getId());
+                }
+                path.push(refDefinition);
+                pathArguments.push(refDefinition.getConstructorArguments().iterator());
+                continue;
+            }
+            BeanDefinition created = path.pop();
+            pathArguments.pop();
+            beans.put(created.getId(), createBean(created, refBeans));
+            inCreation.remove(created.getId());
+        }
     }
 
     void injectValueDependencies(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans) {
+        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+            injectValueDependencies(beanDefinition, beans.get(beanDefinition.getId()));
+        }
     }
 
     void injectRefDependencies(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans) {
+        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+            injectRefDependencies(beanDefinition, beans.get(beanDefinition.getId()), beans::get);
+        }
+    }
+
+    /**
+     * @param refBeans resolves constructor refs of a singleton, the parent is asked for refs it doesn't know
+     */
+    Bean createBean(BeanDefinition beanDefinition, Function<String, Bean> refBeans) {
+        if (!metricsEnabled) {
+            return instantiateBean(beanDefinition, refBeans);
+        }
+        long start = System.nanoTime();
+        Bean bean = instantiateBean(beanDefinition, refBeans);
+        metricsListener.onBeanInstantiated(beanDefinition.getId(), System.nanoTime() - start);
+        return bean;
+    }
+
+    private Bean instantiateBean(BeanDefinition beanDefinition, Function<String, Bean> refBeans) {
+        String id = beanDefinition.getId();
+        switch (beanDefinition.getScope()) {
+            case PROTOTYPE:
+                return new PrototypeBean(id, new BeanFactory(this, beanDefinition));
+            case THREAD:
+                return new ThreadScopedBean(id, new BeanFactory(this, beanDefinition));
+            case POOLED:
+                PoolSettings poolSettings = beanDefinition.getPoolSettings();
+                return new PooledBean(id, new BeanFactory(this, beanDefinition), poolSettings == null ? PoolSettings.DEFAULT : poolSettings);
+            default:
+                break;
+        }
+        if (!beanDefinition.getConstructorArguments().isEmpty()) {
+            Object value = new BeanFactory(this, beanDefinition).newInstance(refId -> {
+                Bean refBean = refBeans.apply(refId);
+                return refBean == null ? getParentBean(refId) : refBean;
+            });
+            return new Bean(id, value);
+        }
+        try {
+            Object value = Class.forName(beanDefinition.getClassName()).getDeclaredConstructor().newInstance();
+            return new Bean(id, value);
+        } catch (ReflectiveOperationException e) {
+            throw new BeanInstantiationException("Can't create bean " + id + " of class " + beanDefinition.getClassName(), e);
+        }
+    }
+
+    /**
+     * Injects values into a singleton. Scoped beans are skipped, their factory wires every instance it creates.
+     */
+    void injectValueDependencies(BeanDefinition beanDefinition, Bean bean) {
+        Map<String, String> valueDependencies = beanDefinition.getValueDependencies();
+        if (valueDependencies == null || bean instanceof ScopedBean) {
+            return;
+        }
+        long start = metricsEnabled ? System.nanoTime() : 0;
+        Object value = bean.getValue();
+        InjectionPlan injectionPlan = InjectionPlan.forClass(value.getClass());
+        for (Map.Entry<String, String> entry : valueDependencies.entrySet()) {
+            PropertyInjector injector = injectionPlan.getInjector(entry.getKey());
+            try {
+                injector.injectValue(value, entry.getValue());
+            } catch (Throwable e) {
+                throw new BeanInstantiationException("Can't inject value " + entry.getValue() + " into property " + entry.getKey() + " of bean " + beanDefinition.getId(), e);
+            }
+        }
+        if (metricsEnabled) {
+            metricsListener.onBeanInjected(beanDefinition.getId(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @param refBeans resolves refs of a singleton, the parent is asked for refs it doesn't know
+     */
+    void injectRefDependencies(BeanDefinition beanDefinition, Bean bean, Function<String, Bean> refBeans) {
+        Map<String, String> refDependencies = beanDefinition.getRefDependencies();
+        if (refDependencies == null || bean instanceof ScopedBean) {
+            return;
+        }
+        long start = metricsEnabled ? System.nanoTime() : 0;
+        Object value = bean.getValue();
+        InjectionPlan injectionPlan = InjectionPlan.forClass(value.getClass());
+        for (Map.Entry<String, String> entry : refDependencies.entrySet()) {
+            if (beanDefinition.getLazyRefProperties().contains(entry.getKey())) {
+                injectLazyRef(beanDefinition, value, injectionPlan.getInjector(entry.getKey()), entry.getKey(), entry.getValue());
+                continue;
+            }
+            Bean refBean = refBeans.apply(entry.getValue());
+            if (refBean == null) {
+                refBean = getParentBean(entry.getValue());
+            }
+            if (refBean == null) {
+                throw new BeanInstantiationException("Bean " + entry.getValue() + " referenced by " + beanDefinition.getId() + " is not defined", null);
+            }
+            injectRef(beanDefinition, value, injectionPlan.getInjector(entry.getKey()), entry.getKey(), refBean);
+        }
+        if (metricsEnabled) {
+            metricsListener.onBeanInjected(beanDefinition.getId(), System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Injects a single ref into a singleton, scoped beans are skipped like in {@link #injectRefDependencies}.
+     */
+    void injectRefDependency(BeanDefinition beanDefinition, Bean bean, String propertyName, Bean refBean) {
+        if (bean instanceof ScopedBean) {
+            return;
+        }
+        Object value = bean.getValue();
+        injectRef(beanDefinition, value, InjectionPlan.forClass(value.getClass()).getInjector(propertyName), propertyName, refBean);
+    }
+
+    /**
+     * Injects a proxy for a lazy ref into a singleton, scoped beans are skipped like in {@link #injectRefDependencies}.
+     */
+    void injectLazyRefDependency(BeanDefinition beanDefinition, Bean bean, String propertyName, String refId) {
+        if (bean instanceof ScopedBean) {
+            return;
+        }
+        Object value = bean.getValue();
+        injectLazyRef(beanDefinition, value, InjectionPlan.forClass(value.getClass()).getInjector(propertyName), propertyName, refId);
+    }
 
+    private void injectLazyRef(BeanDefinition beanDefinition, Object value, PropertyInjector injector, String propertyName, String refId) {
+        Object lazyRef = createLazyRef(beanDefinition.getId(), refId, injector.getSetter().getParameterTypes()[0]);
+        try {
+            injector.injectRef(value, lazyRef);
+        } catch (Throwable e) {
+            throw new BeanInstantiationException("Can't inject lazy ref to bean " + refId + " into property " + propertyName + " of bean " + beanDefinition.getId(), e);
+        }
     }
 
-    private String getSetterName(String fieldName) {
-        return "set" + fieldName.substring(0, 1).toUpperCase() + fieldName.substring(1);
+    private void injectRef(BeanDefinition beanDefinition, Object value, PropertyInjector injector, String propertyName, Bean refBean) {
+        try {
+            injector.injectRef(value, refBean.getValue());
+        } catch (Throwable e) {
+            throw new BeanInstantiationException("Can't inject bean " + refBean.getId() + " into property " + propertyName + " of bean " + beanDefinition.getId(), e);
+        }
     }
 
     void injectValue(Object object, Method classMethod, String propertyValue) throws ReflectiveOperationException {
+        try {
+            InjectionPlan.forClass(object.getClass()).getInjector(classMethod).injectValue(object, propertyValue);
+        } catch (RuntimeException | Error | ReflectiveOperationException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new InvocationTargetException(e);
+        }
     }
 
     void setBeans(Map<String, Bean> beans) {
-        this.beans = beans;
+        Map<String, Class<?>> beanTypes = new HashMap<>();
+        for (Bean bean : beans.values()) {
+            putBeanType(beanTypes, bean);
+        }
+        this.beans = new ConcurrentHashMap<>(beans);
+        this.beanTypes = beanTypes;
+        this.typeIndex = TypeIndex.build(beanTypes, typeIndex.getVersion() + 1);
+        updateBeanNames();
     }
 }
@@ -0,0 +1,115 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.convert.Setters;
+import com.study.ioc.convert.ValueConverters;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.exception.BeanInstantiationException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Setters and constructors of one bean class, resolved on first use and kept as compiled {@link PropertyInjector}s
+ * and {@link ConstructorInjector}s. Plans are cached per class, so wiring another bean of the same class does no
+ * reflective lookups.
+ */
+class InjectionPlan {
+    private static final ClassValue<InjectionPlan> PLANS = new ClassValue<InjectionPlan>() {
+        @Override
+        protected InjectionPlan computeValue(Class<?> type) {
+            return new InjectionPlan(type);
+        }
+    };
+
+    private final Class<?> clazz;
+    private final Map<String, PropertyInjector> injectors = new ConcurrentHashMap<>();
+    private final Map<Method, PropertyInjector> setterInjectors = new ConcurrentHashMap<>();
+    private final Map<String, ConstructorInjector> constructors = new ConcurrentHashMap<>();
+
+    private InjectionPlan(Class<?> clazz) {
+        this.clazz = clazz;
+    }
+
+    static InjectionPlan forClass(Class<?> clazz) {
+        return PLANS.get(clazz);
+    }
+
+    PropertyInjector getInjector(String propertyName) {
+        PropertyInjector injector = injectors.get(propertyName);
+        if (injector == null) {
+            injector = injectors.computeIfAbsent(propertyName, name -> PropertyInjector.of(findSetter(name)));
+        }
+        return injector;
+    }
+
+    /**
+     * Returns the injector of a setter the caller already looked up.
+     */
+    PropertyInjector getInjector(Method setter) {
+        PropertyInjector injector = setterInjectors.get(setter);
+        if (injector == null) {
+            injector = setterInjectors.computeIfAbsent(setter, PropertyInjector::of);
+        }
+        return injector;
+    }
+
+    /**
+     * Returns the constructor for these arguments. Constructors are matched by parameter count, and a value
+     * argument only matches a parameter type that has a converter; more than one match is an error.
+     */
+    ConstructorInjector getConstructor(List<ConstructorArgument> constructorArguments) {
+        String signature = getSignature(constructorArguments);
+        ConstructorInjector constructor = constructors.get(signature);
+        if (constructor == null) {
+            constructor = constructors.computeIfAbsent(signature, key -> ConstructorInjector.of(findConstructor(constructorArguments)));
+        }
+        return constructor;
+    }
+
+    private Constructor<?> findConstructor(List<ConstructorArgument> constructorArguments) {
+        List<Constructor<?>> candidates = new ArrayList<>();
+        for (Constructor<?> constructor : clazz.getDeclaredConstructors()) {
+            if (constructor.getParameterCount() == constructorArguments.size() && acceptsValues(constructor, constructorArguments)) {
+                candidates.add(constructor);
+            }
+        }
+        if (candidates.isEmpty()) {
+            throw new BeanInstantiationException("No constructor for " + constructorArguments + " found in class " + clazz.getName(), null);
+        }
+        if (candidates.size() > 1) {
+            throw new BeanInstantiationException("Constructor arguments " + constructorArguments + " match more than one constructor of class "
+                    + clazz.getName() + ": " + candidates, null);
+        }
+        return candidates.get(0);
+    }
+
+    private static boolean acceptsValues(Constructor<?> constructor, List<ConstructorArgument> constructorArguments) {
+        Class<?>[] parameterTypes = constructor.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (!constructorArguments.get(i).isRef() && ValueConverters.getConverter(parameterTypes[i]) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getSignature(List<ConstructorArgument> constructorArguments) {
+        char[] signature = new char[constructorArguments.size()];
+        for (int i = 0; i < signature.length; i++) {
+            signature[i] = constructorArguments.get(i).isRef() ? 'R' : 'V';
+        }
+        return new String(signature);
+    }
+
+    private Method findSetter(String propertyName) {
+        Method setter = Setters.find(clazz, propertyName);
+        if (setter == null) {
+            throw new BeanInstantiationException("No setter " + Setters.getSetterName(propertyName) + " found in class " + clazz.getName(), null);
+        }
+        return setter;
+    }
+}
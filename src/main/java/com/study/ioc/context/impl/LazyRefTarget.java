@@ -0,0 +1,37 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.entity.Bean;
+import com.study.ioc.exception.BeanInstantiationException;
+
+import java.util.function.Supplier;
+
+/**
+ * Target of a lazy ref proxy. The referenced bean is looked up, and created if it is lazy, on the first call;
+ * a singleton is kept from then on, a scoped bean is asked for its instance on every call, so a singleton can hold
+ * a thread-scoped bean. A ref to an undefined bean fails on the first call.
+ */
+class LazyRefTarget implements Supplier<Object> {
+    private final GenericApplicationContext context;
+    private final String refId;
+    private final String beanId;
+    private volatile Bean bean;
+
+    LazyRefTarget(GenericApplicationContext context, String refId, String beanId) {
+        this.context = context;
+        this.refId = refId;
+        this.beanId = beanId;
+    }
+
+    @Override
+    public Object get() {
+        Bean bean = this.bean;
+        if (bean == null) {
+            bean = context.findBean(refId);
+            if (bean == null) {
+                throw new BeanInstantiationException("Bean " + refId + " referenced by " + beanId + " is not defined", null);
+            }
+            this.bean = bean;
+        }
+        return bean.getValue();
+    }
+}
@@ -0,0 +1,125 @@
+package com.study.ioc.context.impl;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link PostConstruct} and {@link PreDestroy} methods of a class, looked up once per class and kept as method
+ * handles. Methods of superclasses are included; init methods run superclass first, destroy methods subclass first.
+ * A method overridden in a subclass runs once, and only if the overriding method is annotated.
+ */
+public final class LifecycleMethods {
+    private static final MethodType LIFECYCLE_METHOD_TYPE = MethodType.methodType(void.class, Object.class);
+    private static final ClassValue<LifecycleMethods> LIFECYCLE_METHODS = new ClassValue<LifecycleMethods>() {
+        @Override
+        protected LifecycleMethods computeValue(Class<?> type) {
+            return new LifecycleMethods(type);
+        }
+    };
+
+    private final List<Method> postConstructMethodList;
+    private final List<Method> preDestroyMethodList;
+    private final MethodHandle[] postConstructMethods;
+    private final MethodHandle[] preDestroyMethods;
+
+    private LifecycleMethods(Class<?> type) {
+        List<Method> postConstructMethodList = new ArrayList<>();
+        List<Method> preDestroyMethodList = new ArrayList<>();
+        List<MethodHandle> postConstructMethods = new ArrayList<>();
+        List<MethodHandle> preDestroyMethods = new ArrayList<>();
+        Map<String, Method> subclassMethods = new HashMap<>();
+        for (Class<?> clazz = type; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                boolean overridable = method.getParameterCount() == 0 && !Modifier.isStatic(method.getModifiers());
+                if (overridable && isOverridden(method, subclassMethods.get(method.getName()))) {
+                    continue;
+                }
+                if (overridable && !Modifier.isPrivate(method.getModifiers())) {
+                    subclassMethods.putIfAbsent(method.getName(), method);
+                }
+                if (method.isAnnotationPresent(PostConstruct.class)) {
+                    postConstructMethods.add(0, toHandle(method, PostConstruct.class));
+                    postConstructMethodList.add(0, method);
+                }
+                if (method.isAnnotationPresent(PreDestroy.class)) {
+                    preDestroyMethods.add(toHandle(method, PreDestroy.class));
+                    preDestroyMethodList.add(method);
+                }
+            }
+        }
+        this.postConstructMethodList = Collections.unmodifiableList(postConstructMethodList);
+        this.preDestroyMethodList = Collections.unmodifiableList(preDestroyMethodList);
+        this.postConstructMethods = postConstructMethods.toArray(new MethodHandle[0]);
+        this.preDestroyMethods = preDestroyMethods.toArray(new MethodHandle[0]);
+    }
+
+    private static boolean isOverridden(Method method, Method subclassMethod) {
+        int modifiers = method.getModifiers();
+        if (subclassMethod == null || Modifier.isPrivate(modifiers)) {
+            return false;
+        }
+        return Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers)
+                || method.getDeclaringClass().getPackage() == subclassMethod.getDeclaringClass().getPackage();
+    }
+
+    static LifecycleMethods forClass(Class<?> type) {
+        return LIFECYCLE_METHODS.get(type);
+    }
+
+    /**
+     * The {@link PostConstruct} methods a context runs for a bean of the class, in the order it runs them.
+     *
+     * @throws IllegalArgumentException if an annotated method has parameters or is static
+     */
+    public static List<Method> getPostConstructMethods(Class<?> type) {
+        return forClass(type).postConstructMethodList;
+    }
+
+    /**
+     * The {@link PreDestroy} methods a context runs for a bean of the class, in the order it runs them.
+     *
+     * @throws IllegalArgumentException if an annotated method has parameters or is static
+     */
+    public static List<Method> getPreDestroyMethods(Class<?> type) {
+        return forClass(type).preDestroyMethodList;
+    }
+
+    boolean hasPreDestroyMethods() {
+        return preDestroyMethods.length > 0;
+    }
+
+    void postConstruct(Object bean) throws Throwable {
+        for (MethodHandle method : postConstructMethods) {
+            method.invokeExact(bean);
+        }
+    }
+
+    void preDestroy(Object bean) throws Throwable {
+        for (MethodHandle method : preDestroyMethods) {
+            method.invokeExact(bean);
+        }
+    }
+
+    private static MethodHandle toHandle(Method method, Class<? extends Annotation> annotation) {
+        if (method.getParameterCount() != 0 || Modifier.isStatic(method.getModifiers())) {
+            throw new IllegalArgumentException("@" + annotation.getSimpleName() + " method " + method + " must be an instance method without parameters");
+        }
+        try {
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method).asType(LIFECYCLE_METHOD_TYPE);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new IllegalArgumentException("@" + annotation.getSimpleName() + " method " + method + " is not accessible", e);
+        }
+    }
+}
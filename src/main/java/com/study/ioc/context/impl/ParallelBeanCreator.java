@@ -0,0 +1,166 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.entity.Bean;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.exception.BeanInstantiationException;
+import com.study.ioc.graph.DependencyGraph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Builds beans on an executor following the ref dependency graph. Every bean is instantiated and gets its values
+ * as soon as a worker is free; its refs are injected after the referenced beans are fully wired. A bean with
+ * constructor arguments is only instantiated once the beans it references are wired. Beans in a ref cycle only
+ * wait for each other to be instantiated, lazy refs don't wait at all.
+ * A bean is put into the target map only once it is wired, then it is passed to the wired listener.
+ */
+class ParallelBeanCreator {
+    private final GenericApplicationContext context;
+    private final Executor executor;
+    private final Map<String, Long> creationTimes = new ConcurrentHashMap<>();
+    private Consumer<Bean> wiredListener;
+
+    ParallelBeanCreator(GenericApplicationContext context, Executor executor) {
+        this.context = context;
+        this.executor = executor;
+    }
+
+    void setWiredListener(Consumer<Bean> wiredListener) {
+        this.wiredListener = wiredListener;
+    }
+
+    void createBeans(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans) {
+        try {
+            startBeans(beanDefinitions, beans).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new BeanInstantiationException("Bean creation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Submits the creation of all beans without waiting for it.
+     *
+     * @return completes once every bean is wired
+     */
+    CompletableFuture<Void> startBeans(Map<String, BeanDefinition> beanDefinitions, Map<String, Bean> beans) {
+        DependencyGraph graph = DependencyGraph.build(beanDefinitions);
+        Map<String, Set<String>> missingReferences = new HashMap<>();
+        for (Map.Entry<String, Set<String>> entry : graph.getMissingReferences().entrySet()) {
+            for (String refId : entry.getValue()) {
+                if (!context.hasLazyBeanDefinition(refId) && context.getParentBean(refId) == null) {
+                    missingReferences.computeIfAbsent(entry.getKey(), id -> new HashSet<>()).add(refId);
+                }
+            }
+        }
+        if (!missingReferences.isEmpty()) {
+            throw new BeanInstantiationException("Beans reference undefined beans: " + missingReferences, null);
+        }
+        List<String> creationOrder = graph.getCreationOrder();
+        Map<String, Integer> components = new HashMap<>(creationOrder.size() * 4 / 3 + 1);
+        List<Set<String>> stronglyConnectedComponents = graph.getStronglyConnectedComponents();
+        for (int i = 0; i < stronglyConnectedComponents.size(); i++) {
+            for (String id : stronglyConnectedComponents.get(i)) {
+                components.put(id, i);
+            }
+        }
+
+        // beans of a ref cycle can't wait for each other to be wired, they only wait for each other to be created;
+        // the creation order lists them next to each other
+        Map<String, CompletableFuture<Bean>> created = new HashMap<>(creationOrder.size() * 4 / 3 + 1);
+        Map<String, Bean> createdBeans = new ConcurrentHashMap<>(creationOrder.size() * 4 / 3 + 1);
+        Map<String, CompletableFuture<Void>> wired = new HashMap<>(creationOrder.size() * 4 / 3 + 1);
+        List<String> component = new ArrayList<>();
+        for (String id : creationOrder) {
+            if (!component.isEmpty() && !components.get(id).equals(components.get(component.get(0)))) {
+                startWiring(component, beanDefinitions, components, created, createdBeans, wired, beans);
+                component.clear();
+            }
+            component.add(id);
+            BeanDefinition beanDefinition = beanDefinitions.get(id);
+            if (beanDefinition.getConstructorArguments().isEmpty()) {
+                created.put(id, CompletableFuture.supplyAsync(() -> create(beanDefinition, createdBeans), executor));
+            } else {
+                CompletableFuture<?>[] dependenciesReady = getReadyFutures(id, GenericApplicationContext.getConstructorRefIds(beanDefinition),
+                        components, created, wired);
+                created.put(id, CompletableFuture.allOf(dependenciesReady)
+                        .thenApplyAsync(ignored -> create(beanDefinition, createdBeans), executor));
+            }
+        }
+        startWiring(component, beanDefinitions, components, created, createdBeans, wired, beans);
+        return CompletableFuture.allOf(wired.values().toArray(new CompletableFuture<?>[0]));
+    }
+
+    private void startWiring(List<String> component, Map<String, BeanDefinition> beanDefinitions, Map<String, Integer> components,
+                             Map<String, CompletableFuture<Bean>> created, Map<String, Bean> createdBeans,
+                             Map<String, CompletableFuture<Void>> wired, Map<String, Bean> beans) {
+        for (String id : component) {
+            BeanDefinition beanDefinition = beanDefinitions.get(id);
+            CompletableFuture<Bean> beanCreated = created.get(id);
+            CompletableFuture<?>[] dependenciesReady = getReadyFutures(id, GenericApplicationContext.getRefIds(beanDefinition),
+                    components, created, wired);
+            CompletableFuture<?>[] ready = Arrays.copyOf(dependenciesReady, dependenciesReady.length + 1);
+            ready[dependenciesReady.length] = beanCreated;
+            wired.put(id, CompletableFuture.allOf(ready)
+                    .thenRunAsync(() -> injectRefs(beanDefinition, beanCreated.join(), createdBeans, beans), executor));
+        }
+    }
+
+    /**
+     * Futures a bean waits for before it gets the given refs: the referenced bean being wired, or only being created
+     * when it is in the same ref cycle. Refs to beans outside of the definitions are already available.
+     */
+    private static CompletableFuture<?>[] getReadyFutures(String id, List<String> refIds, Map<String, Integer> components,
+                                                         Map<String, CompletableFuture<Bean>> created,
+                                                         Map<String, CompletableFuture<Void>> wired) {
+        List<CompletableFuture<?>> futures = new ArrayList<>(refIds.size());
+        Integer component = components.get(id);
+        for (String refId : refIds) {
+            Integer refComponent = components.get(refId);
+            if (refComponent == null) {
+                continue;
+            }
+            futures.add(refComponent.equals(component) ? created.get(refId) : wired.get(refId));
+        }
+        return futures.toArray(new CompletableFuture<?>[0]);
+    }
+
+    Map<String, Long> getCreationTimes() {
+        Map<String, Long> result = new LinkedHashMap<>(creationTimes);
+        return Collections.unmodifiableMap(result);
+    }
+
+    private Bean create(BeanDefinition beanDefinition, Map<String, Bean> createdBeans) {
+        long start = System.nanoTime();
+        Bean bean = context.createBean(beanDefinition, createdBeans::get);
+        context.injectValueDependencies(beanDefinition, bean);
+        createdBeans.put(bean.getId(), bean);
+        creationTimes.merge(beanDefinition.getId(), System.nanoTime() - start, Long::sum);
+        return bean;
+    }
+
+    private void injectRefs(BeanDefinition beanDefinition, Bean bean, Map<String, Bean> createdBeans, Map<String, Bean> beans) {
+        long start = System.nanoTime();
+        context.injectRefDependencies(beanDefinition, bean, createdBeans::get);
+        beans.put(bean.getId(), bean);
+        if (wiredListener != null) {
+            wiredListener.accept(bean);
+        }
+        creationTimes.merge(beanDefinition.getId(), System.nanoTime() - start, Long::sum);
+    }
+}
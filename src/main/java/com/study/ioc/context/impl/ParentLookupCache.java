@@ -0,0 +1,91 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.context.ApplicationContext;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lookups a child context delegates to its parent. Ids and types the parent has no bean for are remembered,
+ * so repeated misses stop at the child. The remembered misses are dropped when the bean set of a parent up the
+ * chain changes, and once {@link #MAX_MISSES} ids or types are remembered, so probing ids built from input can't
+ * grow them without bound. Only a {@link GenericApplicationContext} parent exposes a version; other parents
+ * are asked every time and nothing is remembered.
+ */
+class ParentLookupCache {
+    static final int MAX_MISSES = 1024;
+
+    private final ApplicationContext parent;
+    private volatile Misses misses = new Misses(-1);
+
+    ParentLookupCache(ApplicationContext parent) {
+        this.parent = parent;
+    }
+
+    Object getBean(String id) {
+        Misses misses = getMisses();
+        if (misses.ids.contains(id)) {
+            return null;
+        }
+        Object value = parent.getBean(id);
+        if (value == null && misses.version >= 0) {
+            remember(misses.ids, id);
+        }
+        return value;
+    }
+
+    <T> T getBean(Class<T> clazz) {
+        Misses misses = getMisses();
+        if (misses.types.contains(clazz)) {
+            return null;
+        }
+        T value = parent.getBean(clazz);
+        if (value == null && misses.version >= 0) {
+            remember(misses.types, clazz);
+        }
+        return value;
+    }
+
+    <T> Map<String, T> getBeansOfType(Class<T> clazz) {
+        return parent.getBeansOfType(clazz);
+    }
+
+    long getVersion() {
+        return parent instanceof GenericApplicationContext ? ((GenericApplicationContext) parent).getLookupVersion() : -1;
+    }
+
+    int getMissCount() {
+        Misses misses = this.misses;
+        return misses.ids.size() + misses.types.size();
+    }
+
+    private static <T> void remember(Set<T> misses, T miss) {
+        if (misses.size() >= MAX_MISSES) {
+            // concurrent misses may overshoot the limit a little before one of them clears
+            misses.clear();
+        }
+        misses.add(miss);
+    }
+
+    private Misses getMisses() {
+        Misses misses = this.misses;
+        long version = getVersion();
+        if (misses.version != version) {
+            // a lookup that raced with the parent change only records into the replaced instance
+            misses = new Misses(version);
+            this.misses = misses;
+        }
+        return misses;
+    }
+
+    private static class Misses {
+        private final long version;
+        private final Set<String> ids = ConcurrentHashMap.newKeySet();
+        private final Set<Class<?>> types = ConcurrentHashMap.newKeySet();
+
+        private Misses(long version) {
+            this.version = version;
+        }
+    }
+}
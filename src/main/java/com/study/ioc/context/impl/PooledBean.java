@@ -0,0 +1,146 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.entity.PoolSettings;
+import com.study.ioc.exception.BeanPoolExhaustedException;
+import com.study.ioc.metrics.BeanPoolMetrics;
+
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lends instances out of a pool, {@link #borrow()} takes one and {@link #release(Object)} gives it back. Plain
+ * lookups and injection go through {@link #getValue()}, which refuses: an instance handed out that way would
+ * never be returned. The number of borrowed instances is bounded by a non-fair semaphore, so a borrow that finds
+ * a free permit is one CAS plus a poll of the lock-free idle queue; only a borrow from an exhausted pool parks,
+ * for at most the configured wait. Counters are {@link LongAdder}s, they don't make borrowing threads contend.
+ */
+class PooledBean extends ScopedBean {
+    private final PoolSettings settings;
+    private final Semaphore permits;
+    private final Queue<Object> idle = new ConcurrentLinkedQueue<>();
+    private final Set<Instance> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger idleCount = new AtomicInteger();
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder waitTime = new LongAdder();
+    private final LongAdder exhaustions = new LongAdder();
+    private final LongAdder created = new LongAdder();
+    private final LongAdder discarded = new LongAdder();
+
+    PooledBean(String id, BeanFactory beanFactory, PoolSettings settings) {
+        super(id, beanFactory);
+        this.settings = settings;
+        this.permits = new Semaphore(settings.getMaxSize());
+    }
+
+    @Override
+    public Object getValue() {
+        throw new UnsupportedOperationException("Bean " + getId() + " is pooled, borrow instances with borrowBean and give them back with returnBean");
+    }
+
+    Object borrow() {
+        borrows.increment();
+        if (!permits.tryAcquire()) {
+            awaitPermit();
+        }
+        Object value = idle.poll();
+        if (value != null) {
+            idleCount.decrementAndGet();
+        } else {
+            try {
+                value = beanFactory.create();
+            } catch (RuntimeException | Error e) {
+                permits.release();
+                throw e;
+            }
+            created.increment();
+        }
+        borrowed.add(new Instance(value));
+        return value;
+    }
+
+    /**
+     * Takes back a borrowed instance. It is kept for the next borrow unless the pool already holds its maximum
+     * of idle instances.
+     *
+     * @throws IllegalArgumentException if the instance is not borrowed from this pool or already returned
+     */
+    void release(Object value) {
+        if (!borrowed.remove(new Instance(value))) {
+            throw new IllegalArgumentException("Instance " + value + " is not borrowed from pooled bean " + getId());
+        }
+        if (idleCount.incrementAndGet() <= settings.getMaxIdle()) {
+            idle.offer(value);
+        } else {
+            idleCount.decrementAndGet();
+            discarded.increment();
+        }
+        permits.release();
+    }
+
+    /**
+     * Fills the pool up to its minimum size with idle instances.
+     */
+    void prewarm() {
+        while (idleCount.get() < settings.getMinSize()) {
+            idleCount.incrementAndGet();
+            idle.offer(beanFactory.create());
+            created.increment();
+        }
+    }
+
+    BeanPoolMetrics getMetrics() {
+        return new BeanPoolMetrics(settings.getMaxSize(), idleCount.get(), settings.getMaxSize() - permits.availablePermits(),
+                borrows.sum(), waits.sum(), waitTime.sum(), exhaustions.sum(), created.sum(), discarded.sum());
+    }
+
+    private void awaitPermit() {
+        waits.increment();
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            if (settings.getMaxWaitMillis() < 0) {
+                permits.acquire();
+                acquired = true;
+            } else {
+                acquired = permits.tryAcquire(settings.getMaxWaitMillis(), TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            waitTime.add(System.nanoTime() - start);
+        }
+        if (!acquired) {
+            exhaustions.increment();
+            throw new BeanPoolExhaustedException("All " + settings.getMaxSize() + " instances of pooled bean " + getId() + " are borrowed");
+        }
+    }
+
+    /**
+     * Identity of an instance, pooled beans may override equals.
+     */
+    private static final class Instance {
+        private final Object value;
+
+        Instance(Object value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Instance && ((Instance) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(value);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.convert.ValueConverters;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * A single setter compiled into method handles. The value handle has the {@link ValueConverters} converter for
+ * the parameter type bound in, so primitive setters are called with the parsed primitive and nothing is boxed.
+ */
+class PropertyInjector {
+    private static final MethodType VALUE_SETTER_TYPE = MethodType.methodType(void.class, Object.class, String.class);
+    private static final MethodType REF_SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Method setter;
+    private final MethodHandle refSetter;
+    private final MethodHandle valueSetter;
+
+    private PropertyInjector(Method setter, MethodHandle handle) {
+        this.setter = setter;
+        this.refSetter = handle.asType(REF_SETTER_TYPE);
+        MethodHandle converter = ValueConverters.getConverter(setter.getParameterTypes()[0]);
+        // setters of other types only take refs
+        this.valueSetter = converter == null ? null : MethodHandles.filterArguments(handle, 1, converter).asType(VALUE_SETTER_TYPE);
+    }
+
+    static PropertyInjector of(Method setter) {
+        try {
+            setter.setAccessible(true);
+        } catch (RuntimeException e) {
+            // public setter of a non-exported type, plain unreflect still works for it
+        }
+        try {
+            return new PropertyInjector(setter, MethodHandles.lookup().unreflect(setter));
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Setter " + setter + " is not accessible", e);
+        }
+    }
+
+    void injectValue(Object target, String value) throws Throwable {
+        getValueSetter().invokeExact(target, value);
+    }
+
+    void injectRef(Object target, Object ref) throws Throwable {
+        refSetter.invokeExact(target, ref);
+    }
+
+    Method getSetter() {
+        return setter;
+    }
+
+    /**
+     * Converts a property value to the parameter type, boxed. Injecting the result with {@link #injectRef}
+     * has the same effect as {@link #injectValue} with the string.
+     */
+    Object convertValue(String value) throws Throwable {
+        return getConverter().invoke(value);
+    }
+
+    private MethodHandle getValueSetter() {
+        if (valueSetter == null) {
+            throw new IllegalArgumentException("Unsupported property type " + setter.getParameterTypes()[0].getName());
+        }
+        return valueSetter;
+    }
+
+    private MethodHandle getConverter() {
+        Class<?> parameterType = setter.getParameterTypes()[0];
+        MethodHandle converter = ValueConverters.getConverter(parameterType);
+        if (converter == null) {
+            throw new IllegalArgumentException("Unsupported property type " + parameterType.getName());
+        }
+        return converter;
+    }
+}
@@ -0,0 +1,16 @@
+package com.study.ioc.context.impl;
+
+/**
+ * Creates a new instance for every {@link #getValue()}.
+ */
+class PrototypeBean extends ScopedBean {
+
+    PrototypeBean(String id, BeanFactory beanFactory) {
+        super(id, beanFactory);
+    }
+
+    @Override
+    public Object getValue() {
+        return beanFactory.create();
+    }
+}
@@ -0,0 +1,254 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.context.ApplicationContext;
+import com.study.ioc.context.ContextConfig;
+import com.study.ioc.entity.Bean;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.graph.DependencyGraph;
+import com.study.ioc.reader.BeanDefinitionReader;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A context that re-reads its definitions when one of the watched files changes. Only beans whose definition
+ * changed and the beans that transitively reference them are created again, all other singletons are carried
+ * over. The new beans are wired in a fresh {@link GenericApplicationContext} that replaces the current one in a
+ * single volatile write, so lookups see either the old or the new graph, never a partly wired one.
+ * <p>
+ * Beans referencing a removed bean are rebuilt as well, so the reload fails unless their refs are fixed too. The
+ * {@code @PreDestroy} methods of replaced and removed singletons run once the new beans are published. A failed
+ * reload keeps the current beans and is available from {@link #getLastReloadFailure()}. The files are watched
+ * once {@link #start()} is called. Contexts are always built sequentially, the executor and streaming settings of
+ * the config are not used.
+ */
+public class ReloadableApplicationContext implements ApplicationContext, Closeable {
+    private static final long DEBOUNCE_MILLIS = 50;
+
+    private final BeanDefinitionReader definitionReader;
+    private final ContextConfig config;
+    private final Set<Path> watchedFiles = new HashSet<>();
+    private final WatchService watchService;
+    private Thread watcher;
+    private volatile GenericApplicationContext context;
+    private volatile RuntimeException lastReloadFailure;
+    private Map<String, BeanDefinition> beanDefinitions;
+
+    /**
+     * Watches the context files, found on the classpath or in the file system like {@link XmlBeanDefinitionReader}
+     * finds them.
+     *
+     * @throws IllegalArgumentException if a path is not a plain file, like an entry of a jar, and can't be watched
+     */
+    public ReloadableApplicationContext(String... paths) {
+        this(new XmlBeanDefinitionReader(paths), new ContextConfig(), getFiles(paths));
+    }
+
+    public ReloadableApplicationContext(BeanDefinitionReader definitionReader, ContextConfig config, Path... watchedFiles) {
+        this.definitionReader = definitionReader;
+        this.config = config;
+        this.beanDefinitions = definitionReader.getBeanDefinition();
+        this.context = new GenericApplicationContext(beanDefinitions, config, Collections.<String, Bean>emptyMap());
+        this.watchService = watch(watchedFiles);
+    }
+
+    /**
+     * Starts watching the files, changes before this call are not noticed. Does nothing if no file is watched or
+     * the watcher is already running.
+     *
+     * @return this context
+     */
+    public synchronized ReloadableApplicationContext start() {
+        if (watchService != null && watcher == null) {
+            watcher = new Thread(() -> watchFiles(watchService), "ioc-context-reload");
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+        return this;
+    }
+
+    @Override
+    public Object getBean(String beanId) {
+        return context.getBean(beanId);
+    }
+
+    @Override
+    public <T> T getBean(Class<T> clazz) {
+        return context.getBean(clazz);
+    }
+
+    @Override
+    public <T> T getBean(String id, Class<T> clazz) {
+        return context.getBean(id, clazz);
+    }
+
+    @Override
+    public <T> Map<String, T> getBeansOfType(Class<T> clazz) {
+        return context.getBeansOfType(clazz);
+    }
+
+    @Override
+    public List<String> getBeanNames() {
+        return context.getBeanNames();
+    }
+
+    /**
+     * Reads the definitions again and publishes the rebuilt beans.
+     *
+     * @return ids of the beans that were created again
+     * @throws com.study.ioc.exception.BeanDestructionException if a replaced bean can't be destroyed, the rebuilt
+     *                                                           beans are published anyway
+     */
+    public synchronized Set<String> reload() {
+        Map<String, BeanDefinition> newBeanDefinitions = definitionReader.getBeanDefinition();
+        Set<String> changedIds = new HashSet<>();
+        for (BeanDefinition beanDefinition : newBeanDefinitions.values()) {
+            if (!beanDefinition.equals(beanDefinitions.get(beanDefinition.getId()))) {
+                changedIds.add(beanDefinition.getId());
+            }
+        }
+        for (String id : beanDefinitions.keySet()) {
+            if (!newBeanDefinitions.containsKey(id)) {
+                changedIds.add(id);
+            }
+        }
+        if (changedIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+
+        // beans that referenced a removed bean are only found in the old graph
+        Set<String> rebuiltIds = getDependents(changedIds, DependencyGraph.build(newBeanDefinitions), DependencyGraph.build(beanDefinitions));
+        rebuiltIds.retainAll(newBeanDefinitions.keySet());
+        Map<String, Bean> existingBeans = new HashMap<>();
+        for (Bean bean : context.getBeans().values()) {
+            if (!rebuiltIds.contains(bean.getId()) && newBeanDefinitions.containsKey(bean.getId()) && !(bean instanceof ScopedBean)) {
+                existingBeans.put(bean.getId(), bean);
+            }
+        }
+        GenericApplicationContext previous = context;
+        context = new GenericApplicationContext(newBeanDefinitions, config, existingBeans);
+        beanDefinitions = newBeanDefinitions;
+        lastReloadFailure = null;
+        previous.closeReplaced(existingBeans.keySet(), context);
+        return rebuiltIds;
+    }
+
+    /**
+     * The error of the last reload triggered by a file change, or null if it succeeded.
+     */
+    public RuntimeException getLastReloadFailure() {
+        return lastReloadFailure;
+    }
+
+    /**
+     * Stops watching the files and runs the {@code @PreDestroy} methods of the current beans.
+     * The beans stay available.
+     */
+    @Override
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+        context.close();
+    }
+
+    private static Set<String> getDependents(Set<String> ids, DependencyGraph... graphs) {
+        Set<String> dependents = new HashSet<>(ids);
+        Deque<String> toVisit = new ArrayDeque<>(ids);
+        while (!toVisit.isEmpty()) {
+            String id = toVisit.poll();
+            for (DependencyGraph graph : graphs) {
+                for (String dependent : graph.getDependents(id)) {
+                    if (dependents.add(dependent)) {
+                        toVisit.add(dependent);
+                    }
+                }
+            }
+        }
+        return dependents;
+    }
+
+    private WatchService watch(Path[] files) {
+        if (files.length == 0) {
+            return null;
+        }
+        try {
+            WatchService watchService = FileSystems.getDefault().newWatchService();
+            Set<Path> directories = new HashSet<>();
+            for (Path file : files) {
+                Path absoluteFile = file.toAbsolutePath().normalize();
+                watchedFiles.add(absoluteFile);
+                if (directories.add(absoluteFile.getParent())) {
+                    absoluteFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                }
+            }
+            return watchService;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't watch context files", e);
+        }
+    }
+
+    private void watchFiles(WatchService watchService) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = isWatchedFileChanged(key);
+                if (changed) {
+                    // editors often write a file in several steps, wait for the last one
+                    Thread.sleep(DEBOUNCE_MILLIS);
+                    for (WatchKey pendingKey = watchService.poll(); pendingKey != null; pendingKey = watchService.poll()) {
+                        isWatchedFileChanged(pendingKey);
+                    }
+                    try {
+                        reload();
+                    } catch (RuntimeException e) {
+                        lastReloadFailure = e;
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // closed, stop watching
+        }
+    }
+
+    private boolean isWatchedFileChanged(WatchKey key) {
+        boolean changed = false;
+        Path directory = (Path) key.watchable();
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (context instanceof Path && watchedFiles.contains(directory.resolve((Path) context))) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private static Path[] getFiles(String[] paths) {
+        Path[] files = new Path[paths.length];
+        for (int i = 0; i < paths.length; i++) {
+            files[i] = XmlBeanDefinitionReader.findFile(paths[i]);
+            if (files[i] == null) {
+                throw new IllegalArgumentException("Context file " + paths[i] + " is not found or not a plain file and can't be watched");
+            }
+        }
+        return files;
+    }
+}
@@ -0,0 +1,27 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.entity.Bean;
+
+/**
+ * A bean that is not a single shared instance. {@link #getValue()} asks the scope for the instance to use.
+ */
+abstract class ScopedBean extends Bean {
+    final BeanFactory beanFactory;
+
+    ScopedBean(String id, BeanFactory beanFactory) {
+        super(id, null);
+        this.beanFactory = beanFactory;
+    }
+
+    Class<?> getType() {
+        return beanFactory.getType();
+    }
+
+    @Override
+    public abstract Object getValue();
+
+    @Override
+    public void setValue(Object value) {
+        throw new UnsupportedOperationException("Bean " + getId() + " is scoped and has no single value");
+    }
+}
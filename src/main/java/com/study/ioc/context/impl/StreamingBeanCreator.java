@@ -0,0 +1,189 @@
+package com.study.ioc.context.impl;
+
+import com.study.ioc.entity.Bean;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.exception.BeanInstantiationException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Creates beans while the definitions are streamed in. A bean is instantiated and gets its values as soon as its
+ * definition arrives; each ref is injected right away when the referenced bean exists, otherwise it waits until
+ * that definition arrives. Refs to scoped beans are injected in {@link #finish()}, when everything their
+ * factories may look up is defined.
+ * <p>
+ * Lazy definitions are kept aside until a created bean references them, then they are created like eager ones,
+ * which matches the promotion done for a fully read definition map. Beans with constructor arguments are
+ * created in {@link #finish()}, in the order their constructor refs need.
+ */
+class StreamingBeanCreator implements Consumer<BeanDefinition> {
+    private final GenericApplicationContext context;
+    private final Map<String, Bean> beans;
+    private final boolean lazyInit;
+    private final Map<String, BeanDefinition> lazyBeanDefinitions = new HashMap<>();
+    private final Map<String, List<PendingRef>> pendingRefs = new HashMap<>();
+    private final Set<String> referencedIds = new HashSet<>();
+    private final List<PendingRef> scopedRefs = new ArrayList<>();
+    private final Deque<BeanDefinition> toCreate = new ArrayDeque<>();
+    private final Map<String, BeanDefinition> toConstruct = new HashMap<>();
+    private final Map<String, BeanDefinition> createdBeanDefinitions;
+
+    /**
+     * @param keepBeanDefinitions whether the definitions of created beans are needed afterwards, for initialization
+     */
+    StreamingBeanCreator(GenericApplicationContext context, Map<String, Bean> beans, boolean lazyInit, boolean keepBeanDefinitions) {
+        this.context = context;
+        this.beans = beans;
+        this.lazyInit = lazyInit;
+        this.createdBeanDefinitions = keepBeanDefinitions ? new HashMap<>() : null;
+    }
+
+    @Override
+    public void accept(BeanDefinition beanDefinition) {
+        Boolean beanLazyInit = beanDefinition.getLazyInit();
+        if ((beanLazyInit == null ? lazyInit : beanLazyInit) && !referencedIds.contains(beanDefinition.getId())) {
+            lazyBeanDefinitions.put(beanDefinition.getId(), beanDefinition);
+            return;
+        }
+        toCreate.add(beanDefinition);
+        createQueued();
+    }
+
+    private void createQueued() {
+        while (!toCreate.isEmpty()) {
+            BeanDefinition beanDefinition = toCreate.poll();
+            if (beanDefinition.getConstructorArguments().isEmpty()) {
+                add(beanDefinition, context.createBean(beanDefinition, beans::get));
+            } else {
+                toConstruct.put(beanDefinition.getId(), beanDefinition);
+            }
+        }
+    }
+
+    /**
+     * Injects the refs to scoped beans and the refs the parent context resolves, and fails if a ref is still
+     * waiting for a definition that never came.
+     */
+    void finish() {
+        while (!toConstruct.isEmpty()) {
+            Map<String, BeanDefinition> beanDefinitions = new HashMap<>(toConstruct);
+            toConstruct.clear();
+            Deque<BeanDefinition> toVisit = new ArrayDeque<>(beanDefinitions.values());
+            while (!toVisit.isEmpty()) {
+                for (ConstructorArgument constructorArgument : toVisit.poll().getConstructorArguments()) {
+                    BeanDefinition lazyBeanDefinition = constructorArgument.isRef() ? lazyBeanDefinitions.remove(constructorArgument.getRef()) : null;
+                    if (lazyBeanDefinition != null) {
+                        referencedIds.add(lazyBeanDefinition.getId());
+                        beanDefinitions.put(lazyBeanDefinition.getId(), lazyBeanDefinition);
+                        toVisit.add(lazyBeanDefinition);
+                    }
+                }
+            }
+            Map<String, Bean> createdBeans = context.createBeans(beanDefinitions, beans::get);
+            for (Map.Entry<String, Bean> entry : createdBeans.entrySet()) {
+                add(beanDefinitions.get(entry.getKey()), entry.getValue());
+            }
+            createQueued();
+        }
+        Map<String, Set<String>> missingReferences = new HashMap<>();
+        for (Map.Entry<String, List<PendingRef>> entry : pendingRefs.entrySet()) {
+            Bean parentBean = context.getParentBean(entry.getKey());
+            for (PendingRef pendingRef : entry.getValue()) {
+                if (parentBean != null) {
+                    inject(pendingRef, parentBean);
+                } else {
+                    missingReferences.computeIfAbsent(pendingRef.beanDefinition.getId(), id -> new HashSet<>()).add(entry.getKey());
+                }
+            }
+        }
+        if (!missingReferences.isEmpty()) {
+            throw new BeanInstantiationException("Beans reference undefined beans: " + missingReferences, null);
+        }
+        for (PendingRef scopedRef : scopedRefs) {
+            inject(scopedRef, beans.get(scopedRef.refId));
+        }
+    }
+
+    Map<String, BeanDefinition> getCreatedBeanDefinitions() {
+        return createdBeanDefinitions == null ? Collections.<String, BeanDefinition>emptyMap() : createdBeanDefinitions;
+    }
+
+    Map<String, BeanDefinition> getLazyBeanDefinitions() {
+        return lazyBeanDefinitions.isEmpty() ? Collections.<String, BeanDefinition>emptyMap() : lazyBeanDefinitions;
+    }
+
+    private void add(BeanDefinition beanDefinition, Bean bean) {
+        String id = beanDefinition.getId();
+        context.injectValueDependencies(beanDefinition, bean);
+        beans.put(id, bean);
+        if (createdBeanDefinitions != null) {
+            createdBeanDefinitions.put(id, beanDefinition);
+        }
+
+        Map<String, String> refDependencies = beanDefinition.getRefDependencies();
+        if (refDependencies != null) {
+            for (Map.Entry<String, String> entry : refDependencies.entrySet()) {
+                if (beanDefinition.getLazyRefProperties().contains(entry.getKey())) {
+                    context.injectLazyRefDependency(beanDefinition, bean, entry.getKey(), entry.getValue());
+                    continue;
+                }
+                PendingRef ref = new PendingRef(beanDefinition, bean, entry.getKey(), entry.getValue());
+                Bean refBean = beans.get(ref.refId);
+                if (refBean != null) {
+                    injectOrDefer(ref, refBean);
+                } else {
+                    pendingRefs.computeIfAbsent(ref.refId, refId -> new ArrayList<>()).add(ref);
+                    if (referencedIds.add(ref.refId)) {
+                        BeanDefinition lazyBeanDefinition = lazyBeanDefinitions.remove(ref.refId);
+                        if (lazyBeanDefinition != null) {
+                            toCreate.add(lazyBeanDefinition);
+                        }
+                    }
+                }
+            }
+        }
+
+        List<PendingRef> waiting = pendingRefs.remove(id);
+        if (waiting != null) {
+            for (PendingRef ref : waiting) {
+                injectOrDefer(ref, bean);
+            }
+        }
+    }
+
+    private void injectOrDefer(PendingRef ref, Bean refBean) {
+        if (refBean instanceof ScopedBean) {
+            scopedRefs.add(ref);
+        } else {
+            inject(ref, refBean);
+        }
+    }
+
+    private void inject(PendingRef ref, Bean refBean) {
+        context.injectRefDependency(ref.beanDefinition, ref.bean, ref.propertyName, refBean);
+    }
+
+    private static class PendingRef {
+        private final BeanDefinition beanDefinition;
+        private final Bean bean;
+        private final String propertyName;
+        private final String refId;
+
+        private PendingRef(BeanDefinition beanDefinition, Bean bean, String propertyName, String refId) {
+            this.beanDefinition = beanDefinition;
+            this.bean = bean;
+            this.propertyName = propertyName;
+            this.refId = refId;
+        }
+    }
+}
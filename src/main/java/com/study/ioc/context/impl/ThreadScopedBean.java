@@ -0,0 +1,18 @@
+package com.study.ioc.context.impl;
+
+/**
+ * Keeps one instance per thread, created on the first {@link #getValue()} in that thread.
+ */
+class ThreadScopedBean extends ScopedBean {
+    private final ThreadLocal<Object> values;
+
+    ThreadScopedBean(String id, BeanFactory beanFactory) {
+        super(id, beanFactory);
+        this.values = ThreadLocal.withInitial(beanFactory::create);
+    }
+
+    @Override
+    public Object getValue() {
+        return values.get();
+    }
+}
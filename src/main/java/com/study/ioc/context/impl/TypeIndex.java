@@ -0,0 +1,97 @@
+package com.study.ioc.context.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps every class, superclass and interface of the registered beans to the ids of the beans assignable to it.
+ * Built once per bean set, so lookups by type are a single hash lookup without reflection.
+ * <p>
+ * An index is never modified. Registering or removing a bean derives a new version that shares the id lists of
+ * all types the bean is not assignable to.
+ */
+class TypeIndex {
+    static final TypeIndex EMPTY = new TypeIndex(Collections.<Class<?>, List<String>>emptyMap(), 0);
+
+    private final Map<Class<?>, List<String>> beanIdsByType;
+    private final long version;
+
+    private TypeIndex(Map<Class<?>, List<String>> beanIdsByType, long version) {
+        this.beanIdsByType = beanIdsByType;
+        this.version = version;
+    }
+
+    static TypeIndex build(Map<String, Class<?>> beanTypes) {
+        return build(beanTypes, 0);
+    }
+
+    static TypeIndex build(Map<String, Class<?>> beanTypes, long version) {
+        Map<Class<?>, List<String>> beanIdsByType = new HashMap<>();
+        for (Map.Entry<String, Class<?>> entry : beanTypes.entrySet()) {
+            for (Class<?> type : getAssignableTypes(entry.getValue())) {
+                beanIdsByType.computeIfAbsent(type, key -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+        for (Map.Entry<Class<?>, List<String>> entry : beanIdsByType.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return new TypeIndex(beanIdsByType, version);
+    }
+
+    TypeIndex with(String id, Class<?> beanType) {
+        Map<Class<?>, List<String>> beanIdsByType = new HashMap<>(this.beanIdsByType);
+        for (Class<?> type : getAssignableTypes(beanType)) {
+            List<String> candidates = new ArrayList<>(get(type));
+            candidates.add(id);
+            beanIdsByType.put(type, Collections.unmodifiableList(candidates));
+        }
+        return new TypeIndex(beanIdsByType, version + 1);
+    }
+
+    TypeIndex without(String id, Class<?> beanType) {
+        Map<Class<?>, List<String>> beanIdsByType = new HashMap<>(this.beanIdsByType);
+        for (Class<?> type : getAssignableTypes(beanType)) {
+            List<String> candidates = new ArrayList<>(get(type));
+            candidates.remove(id);
+            if (candidates.isEmpty()) {
+                beanIdsByType.remove(type);
+            } else {
+                beanIdsByType.put(type, Collections.unmodifiableList(candidates));
+            }
+        }
+        return new TypeIndex(beanIdsByType, version + 1);
+    }
+
+    /**
+     * Grows with every change of the indexed bean set.
+     */
+    long getVersion() {
+        return version;
+    }
+
+    List<String> get(Class<?> type) {
+        List<String> candidates = beanIdsByType.get(type);
+        return candidates == null ? Collections.<String>emptyList() : candidates;
+    }
+
+    static Set<Class<?>> getAssignableTypes(Class<?> clazz) {
+        Set<Class<?>> types = new HashSet<>();
+        collectAssignableTypes(clazz, types);
+        return types;
+    }
+
+    private static void collectAssignableTypes(Class<?> clazz, Set<Class<?>> types) {
+        if (clazz == null || !types.add(clazz)) {
+            return;
+        }
+        collectAssignableTypes(clazz.getSuperclass(), types);
+        for (Class<?> anInterface : clazz.getInterfaces()) {
+            collectAssignableTypes(anInterface, types);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.study.ioc.convert;
+
+import com.study.ioc.exception.BeanInstantiationException;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds the setter of a property, shared by runtime injection and generated contexts so both pick the same
+ * method. Of overloaded setters the one whose parameter type has a {@link ValueConverters converter} is
+ * preferred; when that still leaves more than one, the property is ambiguous.
+ */
+public final class Setters {
+
+    private Setters() {
+    }
+
+    /**
+     * Returns the public one-argument setter of the property, or {@code null} if the class has none.
+     *
+     * @throws BeanInstantiationException if more than one setter matches
+     */
+    public static Method find(Class<?> type, String propertyName) {
+        String setterName = getSetterName(propertyName);
+        List<Method> candidates = new ArrayList<>();
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(setterName) && method.getParameterCount() == 1 && !method.isBridge()) {
+                candidates.add(method);
+            }
+        }
+        if (candidates.size() > 1) {
+            List<Method> convertible = new ArrayList<>();
+            for (Method candidate : candidates) {
+                if (ValueConverters.getConverter(candidate.getParameterTypes()[0]) != null) {
+                    convertible.add(candidate);
+                }
+            }
+            if (convertible.size() != 1) {
+                throw new BeanInstantiationException("Property " + propertyName + " of class " + type.getName()
+                        + " has more than one setter: " + candidates, null);
+            }
+            return convertible.get(0);
+        }
+        return candidates.isEmpty() ? null : candidates.get(0);
+    }
+
+    public static String getSetterName(String propertyName) {
+        return "set" + propertyName.substring(0, 1).toUpperCase() + propertyName.substring(1);
+    }
+}
@@ -0,0 +1,9 @@
+package com.study.ioc.convert;
+
+/**
+ * Converts the text of a {@code <property value=...>} into the type of the setter parameter.
+ */
+@FunctionalInterface
+public interface ValueConverter<T> {
+    T convert(String value);
+}
@@ -0,0 +1,105 @@
+package com.study.ioc.convert;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of string converters used for value injection, kept as method handles of type {@code (String)T}.
+ * Primitive types have dedicated converters returning the primitive itself, so a primitive setter bound to
+ * one of them is called without boxing. Enums are converted by constant name.
+ * <p>
+ * Setters bind their converter on first injection, so custom converters must be registered before the first
+ * context that uses the type is created; registering a converter for a type that was already looked up fails.
+ * A converter registered for a primitive type also converts its wrapper, and the other way round.
+ */
+public final class ValueConverters {
+    private static final Map<Class<?>, MethodHandle> CONVERTERS = new ConcurrentHashMap<>();
+    private static final Set<Class<?>> USED_TYPES = ConcurrentHashMap.newKeySet();
+    private static final MethodHandle ENUM_VALUE_OF;
+    private static final MethodHandle CONVERT;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            CONVERTERS.put(String.class, MethodHandles.identity(String.class));
+            CONVERTERS.put(int.class, lookup.findStatic(Integer.class, "parseInt", MethodType.methodType(int.class, String.class)));
+            CONVERTERS.put(long.class, lookup.findStatic(Long.class, "parseLong", MethodType.methodType(long.class, String.class)));
+            CONVERTERS.put(double.class, lookup.findStatic(Double.class, "parseDouble", MethodType.methodType(double.class, String.class)));
+            CONVERTERS.put(float.class, lookup.findStatic(Float.class, "parseFloat", MethodType.methodType(float.class, String.class)));
+            CONVERTERS.put(short.class, lookup.findStatic(Short.class, "parseShort", MethodType.methodType(short.class, String.class)));
+            CONVERTERS.put(byte.class, lookup.findStatic(Byte.class, "parseByte", MethodType.methodType(byte.class, String.class)));
+            CONVERTERS.put(boolean.class, lookup.findStatic(ValueConverters.class, "parseBoolean", MethodType.methodType(boolean.class, String.class)));
+            CONVERTERS.put(char.class, lookup.findStatic(ValueConverters.class, "parseChar", MethodType.methodType(char.class, String.class)));
+            for (Class<?> primitiveType : new Class<?>[]{int.class, long.class, double.class, float.class, short.class, byte.class, boolean.class, char.class}) {
+                MethodHandle converter = CONVERTERS.get(primitiveType);
+                CONVERTERS.put(MethodType.methodType(primitiveType).wrap().returnType(), converter.asType(converter.type().wrap()));
+            }
+            CONVERTERS.put(BigDecimal.class, lookup.findConstructor(BigDecimal.class, MethodType.methodType(void.class, String.class)));
+            CONVERTERS.put(BigInteger.class, lookup.findConstructor(BigInteger.class, MethodType.methodType(void.class, String.class)));
+            CONVERTERS.put(Duration.class, lookup.findStatic(Duration.class, "parse", MethodType.methodType(Duration.class, CharSequence.class))
+                    .asType(MethodType.methodType(Duration.class, String.class)));
+            ENUM_VALUE_OF = lookup.findStatic(Enum.class, "valueOf", MethodType.methodType(Enum.class, Class.class, String.class));
+            CONVERT = lookup.findVirtual(ValueConverter.class, "convert", MethodType.methodType(Object.class, String.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private ValueConverters() {
+    }
+
+    /**
+     * @throws IllegalStateException if the converter of the type, or of its primitive or wrapper, is already in use
+     */
+    public static <T> void register(Class<T> type, ValueConverter<? extends T> converter) {
+        MethodType methodType = MethodType.methodType(type);
+        Class<?> pairedType = type.isPrimitive() ? methodType.wrap().returnType() : methodType.unwrap().returnType();
+        if (USED_TYPES.contains(type) || USED_TYPES.contains(pairedType)) {
+            throw new IllegalStateException("Converter for " + type.getName() + " is already in use, register it before creating contexts");
+        }
+        MethodHandle handle = CONVERT.bindTo(converter);
+        CONVERTERS.put(type, handle.asType(MethodType.methodType(type, String.class)));
+        if (pairedType != type) {
+            CONVERTERS.put(pairedType, handle.asType(MethodType.methodType(pairedType, String.class)));
+        }
+    }
+
+    /**
+     * Returns the converter for the type as a {@code (String)type} method handle, or {@code null} if there is none.
+     */
+    public static MethodHandle getConverter(Class<?> type) {
+        if (!USED_TYPES.contains(type)) {
+            USED_TYPES.add(type);
+        }
+        MethodHandle converter = CONVERTERS.get(type);
+        if (converter == null && type.isEnum()) {
+            converter = MethodHandles.insertArguments(ENUM_VALUE_OF, 0, type).asType(MethodType.methodType(type, String.class));
+            CONVERTERS.putIfAbsent(type, converter);
+        }
+        return converter;
+    }
+
+    private static boolean parseBoolean(String value) {
+        if (value.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (value.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Value " + value + " is not a boolean");
+    }
+
+    private static char parseChar(String value) {
+        if (value.length() != 1) {
+            throw new IllegalArgumentException("Value " + value + " is not a single character");
+        }
+        return value.charAt(0);
+    }
+}
@@ -1,12 +1,21 @@
 package com.study.ioc.entity;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 public class BeanDefinition {
     private String id;
     private String className;
     private Map<String, String> valueDependencies;
     private Map<String, String> refDependencies;
+    private Set<String> lazyRefProperties = Collections.emptySet();
+    private List<ConstructorArgument> constructorArguments = Collections.emptyList();
+    private Boolean lazyInit;
+    private Scope scope = Scope.SINGLETON;
+    private PoolSettings poolSettings;
 
     public BeanDefinition(String id, String className) {
         this.id = id;
@@ -44,4 +53,78 @@ public class BeanDefinition {
     public void setRefDependencies(Map<String, String> refDependencies) {
         this.refDependencies = refDependencies;
     }
+
+    /**
+     * Names of the ref properties that get a proxy resolving the referenced bean on use, instead of the bean itself.
+     */
+    public Set<String> getLazyRefProperties() {
+        return lazyRefProperties;
+    }
+
+    public void setLazyRefProperties(Set<String> lazyRefProperties) {
+        this.lazyRefProperties = lazyRefProperties;
+    }
+
+    /**
+     * Arguments in parameter order. Empty for beans created with their no-arg constructor.
+     */
+    public List<ConstructorArgument> getConstructorArguments() {
+        return constructorArguments;
+    }
+
+    public void setConstructorArguments(List<ConstructorArgument> constructorArguments) {
+        this.constructorArguments = constructorArguments;
+    }
+
+    public Boolean getLazyInit() {
+        return lazyInit;
+    }
+
+    public void setLazyInit(Boolean lazyInit) {
+        this.lazyInit = lazyInit;
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public void setScope(Scope scope) {
+        this.scope = scope;
+    }
+
+    /**
+     * Pool sizes of a {@link Scope#POOLED} bean, {@code null} means {@link PoolSettings#DEFAULT}.
+     */
+    public PoolSettings getPoolSettings() {
+        return poolSettings;
+    }
+
+    public void setPoolSettings(PoolSettings poolSettings) {
+        this.poolSettings = poolSettings;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BeanDefinition that = (BeanDefinition) o;
+        return Objects.equals(id, that.id) &&
+                Objects.equals(className, that.className) &&
+                Objects.equals(valueDependencies, that.valueDependencies) &&
+                Objects.equals(refDependencies, that.refDependencies) &&
+                Objects.equals(lazyRefProperties, that.lazyRefProperties) &&
+                Objects.equals(constructorArguments, that.constructorArguments) &&
+                Objects.equals(lazyInit, that.lazyInit) &&
+                scope == that.scope &&
+                Objects.equals(poolSettings, that.poolSettings);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, className, valueDependencies, refDependencies, lazyRefProperties, constructorArguments, lazyInit, scope, poolSettings);
+    }
 }
@@ -0,0 +1,61 @@
+package com.study.ioc.entity;
+
+import java.util.Objects;
+
+/**
+ * Sizes of the pool of a {@link Scope#POOLED} bean. {@code minSize} instances are created at startup, at most
+ * {@code maxSize} are borrowed at a time and at most {@code maxIdle} returned ones are kept. A borrower waits up to
+ * {@code maxWaitMillis} for an instance when all are borrowed, a negative value waits without limit.
+ */
+public class PoolSettings {
+    public static final PoolSettings DEFAULT = new PoolSettings(0, 8, 8, -1);
+
+    private final int minSize;
+    private final int maxSize;
+    private final int maxIdle;
+    private final long maxWaitMillis;
+
+    public PoolSettings(int minSize, int maxSize, int maxIdle, long maxWaitMillis) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize || maxIdle < minSize) {
+            throw new IllegalArgumentException("Pool sizes must satisfy 0 <= min <= max, max >= 1 and idle >= min, got min " + minSize
+                    + ", max " + maxSize + ", idle " + maxIdle);
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.maxIdle = maxIdle;
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int getMaxIdle() {
+        return maxIdle;
+    }
+
+    public long getMaxWaitMillis() {
+        return maxWaitMillis;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PoolSettings that = (PoolSettings) o;
+        return minSize == that.minSize && maxSize == that.maxSize && maxIdle == that.maxIdle && maxWaitMillis == that.maxWaitMillis;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minSize, maxSize, maxIdle, maxWaitMillis);
+    }
+}
@@ -0,0 +1,166 @@
+package com.study.ioc.entity;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Read-only property maps for bean definitions, kept in one flat array of names and values instead of paying for
+ * a hash table and its entries per definition. Most beans have a handful of properties, which are searched
+ * linearly; larger sets are sorted by name and binary searched.
+ */
+public final class PropertyMaps {
+    static final int MAX_LINEAR_SIZE = 8;
+
+    private PropertyMaps() {
+    }
+
+    /**
+     * Builds a map from the first {@code count} name/value pairs stored one after another in {@code namesAndValues}.
+     * A name given twice keeps its last value, like {@link Map#put}.
+     */
+    public static Map<String, String> of(String[] namesAndValues, int count) {
+        if (count == 0) {
+            return Collections.emptyMap();
+        }
+        if (count > MAX_LINEAR_SIZE) {
+            Map<String, String> map = new TreeMap<>();
+            for (int i = 0; i < count; i++) {
+                map.put(namesAndValues[i * 2], namesAndValues[i * 2 + 1]);
+            }
+            String[] entries = new String[map.size() * 2];
+            int index = 0;
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                entries[index++] = entry.getKey();
+                entries[index++] = entry.getValue();
+            }
+            return new ArrayMap(entries, map.size() > MAX_LINEAR_SIZE);
+        }
+        String[] entries = new String[count * 2];
+        int size = 0;
+        for (int i = 0; i < count; i++) {
+            String name = namesAndValues[i * 2];
+            int index = indexOf(entries, size, name);
+            if (index < 0) {
+                index = size++;
+                entries[index * 2] = name;
+            }
+            entries[index * 2 + 1] = namesAndValues[i * 2 + 1];
+        }
+        if (size < count) {
+            String[] trimmed = new String[size * 2];
+            System.arraycopy(entries, 0, trimmed, 0, trimmed.length);
+            entries = trimmed;
+        }
+        return new ArrayMap(entries, false);
+    }
+
+    /**
+     * Flattens any property map, for example one changed by a bean factory post-processor.
+     */
+    public static Map<String, String> copyOf(Map<String, String> map) {
+        String[] namesAndValues = new String[map.size() * 2];
+        int index = 0;
+        for (Map.Entry<String, String> entry : map.entrySet()) {
+            namesAndValues[index++] = entry.getKey();
+            namesAndValues[index++] = entry.getValue();
+        }
+        return of(namesAndValues, map.size());
+    }
+
+    private static int indexOf(String[] entries, int size, Object name) {
+        for (int i = 0; i < size; i++) {
+            if (entries[i * 2].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int binarySearch(String[] entries, int size, Object name) {
+        if (!(name instanceof String)) {
+            return -1;
+        }
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int comparison = entries[middle * 2].compareTo((String) name);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private static final class ArrayMap extends AbstractMap<String, String> {
+        private final String[] entries;
+        private final boolean sorted;
+
+        private ArrayMap(String[] entries, boolean sorted) {
+            this.entries = entries;
+            this.sorted = sorted;
+        }
+
+        private int find(Object key) {
+            return sorted ? binarySearch(entries, size(), key) : indexOf(entries, size(), key);
+        }
+
+        @Override
+        public int size() {
+            return entries.length / 2;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return find(key) >= 0;
+        }
+
+        @Override
+        public String get(Object key) {
+            int index = find(key);
+            return index < 0 ? null : entries[index * 2 + 1];
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<Entry<String, String>>() {
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new Iterator<Entry<String, String>>() {
+                        private int index;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < entries.length;
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            Entry<String, String> entry = new SimpleImmutableEntry<>(entries[index], entries[index + 1]);
+                            index += 2;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return ArrayMap.this.size();
+                }
+            };
+        }
+    }
+}
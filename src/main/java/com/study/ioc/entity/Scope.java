@@ -0,0 +1,8 @@
+package com.study.ioc.entity;
+
+public enum Scope {
+    SINGLETON,
+    PROTOTYPE,
+    THREAD,
+    POOLED
+}
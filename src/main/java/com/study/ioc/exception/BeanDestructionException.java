@@ -0,0 +1,7 @@
+package com.study.ioc.exception;
+
+public class BeanDestructionException extends RuntimeException {
+    public BeanDestructionException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
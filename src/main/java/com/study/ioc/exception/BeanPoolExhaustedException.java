@@ -0,0 +1,8 @@
+package com.study.ioc.exception;
+
+public class BeanPoolExhaustedException extends RuntimeException {
+
+    public BeanPoolExhaustedException(String message) {
+        super(message);
+    }
+}
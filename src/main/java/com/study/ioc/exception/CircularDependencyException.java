@@ -0,0 +1,8 @@
+package com.study.ioc.exception;
+
+public class CircularDependencyException extends RuntimeException {
+
+    public CircularDependencyException(String message) {
+        super(message);
+    }
+}
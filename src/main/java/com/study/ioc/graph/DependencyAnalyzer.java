@@ -0,0 +1,63 @@
+package com.study.ioc.graph;
+
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Command line entry point for {@link DependencyReport}:
+ * {@code DependencyAnalyzer [--format dot|json] [--times <file>] <context xml>...}.
+ * <p>
+ * Context files are paths in the file system or resources on the classpath.
+ * The times file is a properties file mapping bean ids to creation times in nanoseconds. The report goes to
+ * standard output, JSON by default; the exit code is 2 if the graph has a constructor cycle or missing refs.
+ * Cycles through properties are reported but legal.
+ */
+public class DependencyAnalyzer {
+
+    public static void main(String[] args) throws IOException {
+        String format = "json";
+        Map<String, Long> creationTimes = new HashMap<>();
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--format") && i + 1 < args.length) {
+                format = args[++i];
+            } else if (args[i].equals("--times") && i + 1 < args.length) {
+                creationTimes = readCreationTimes(args[++i]);
+            } else {
+                paths.add(args[i]);
+            }
+        }
+        if (paths.isEmpty() || !(format.equals("dot") || format.equals("json"))) {
+            System.err.println("Usage: DependencyAnalyzer [--format dot|json] [--times <file>] <context xml>...");
+            System.exit(1);
+        }
+
+        DependencyReport report = DependencyReport.of(new XmlBeanDefinitionReader(paths.toArray(new String[0])), creationTimes);
+        System.out.print(format.equals("dot") ? report.toDot() : report.toJson());
+        if (!report.getConstructorCycle().isEmpty() || !report.getMissingReferences().isEmpty()) {
+            System.exit(2);
+        }
+    }
+
+    static Map<String, Long> readCreationTimes(String file) throws IOException {
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(Paths.get(file), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        Map<String, Long> creationTimes = new HashMap<>();
+        for (String id : properties.stringPropertyNames()) {
+            creationTimes.put(id, Long.parseLong(properties.getProperty(id).trim()));
+        }
+        return creationTimes;
+    }
+}
@@ -0,0 +1,333 @@
+package com.study.ioc.graph;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.exception.CircularDependencyException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ref dependency graph of a set of bean definitions. An edge goes from a bean to every bean it references
+ * through {@link BeanDefinition#getRefDependencies()} or a constructor argument. Nothing is instantiated to build it.
+ * All walks use explicit stacks, so chains of any length can be ordered.
+ */
+public class DependencyGraph {
+    private static final int VISITING = 1;
+    private static final int VISITED = 2;
+
+    private final Map<String, Set<String>> dependencies;
+    private final Map<String, Set<String>> dependents;
+    private final Map<String, Set<String>> creationDependencies;
+    private final Map<String, Set<String>> constructorDependencies;
+    private final Map<String, Set<String>> constructorDependents;
+    private final Map<String, Set<String>> missingReferences;
+
+    private DependencyGraph(Map<String, Set<String>> dependencies, Map<String, Set<String>> dependents,
+                            Map<String, Set<String>> creationDependencies,
+                            Map<String, Set<String>> constructorDependencies, Map<String, Set<String>> constructorDependents,
+                            Map<String, Set<String>> missingReferences) {
+        this.dependencies = dependencies;
+        this.dependents = dependents;
+        this.creationDependencies = creationDependencies;
+        this.constructorDependencies = constructorDependencies;
+        this.constructorDependents = constructorDependents;
+        this.missingReferences = missingReferences;
+    }
+
+    public static DependencyGraph build(Map<String, BeanDefinition> beanDefinitions) {
+        Map<String, Set<String>> dependencies = new LinkedHashMap<>();
+        Map<String, Set<String>> dependents = new LinkedHashMap<>();
+        Map<String, Set<String>> creationDependencies = new HashMap<>();
+        Map<String, Set<String>> constructorDependencies = new HashMap<>();
+        Map<String, Set<String>> constructorDependents = new HashMap<>();
+        Map<String, Set<String>> missingReferences = new LinkedHashMap<>();
+        for (String id : beanDefinitions.keySet()) {
+            dependencies.put(id, new LinkedHashSet<>());
+            dependents.put(id, new LinkedHashSet<>());
+            creationDependencies.put(id, new LinkedHashSet<>());
+            constructorDependencies.put(id, Collections.<String>emptySet());
+            constructorDependents.put(id, Collections.<String>emptySet());
+        }
+        for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+            for (ConstructorArgument constructorArgument : beanDefinition.getConstructorArguments()) {
+                if (constructorArgument.isRef()) {
+                    String id = beanDefinition.getId();
+                    String refId = constructorArgument.getRef();
+                    addEdge(id, refId, beanDefinitions, dependencies, dependents, missingReferences);
+                    if (beanDefinitions.containsKey(refId)) {
+                        creationDependencies.get(id).add(refId);
+                        addConstructorEdge(constructorDependencies, id, refId);
+                        addConstructorEdge(constructorDependents, refId, id);
+                    }
+                }
+            }
+            Map<String, String> refDependencies = beanDefinition.getRefDependencies();
+            if (refDependencies == null) {
+                continue;
+            }
+            for (Map.Entry<String, String> entry : refDependencies.entrySet()) {
+                String refId = entry.getValue();
+                addEdge(beanDefinition.getId(), refId, beanDefinitions, dependencies, dependents, missingReferences);
+                if (beanDefinitions.containsKey(refId) && !beanDefinition.getLazyRefProperties().contains(entry.getKey())) {
+                    creationDependencies.get(beanDefinition.getId()).add(refId);
+                }
+            }
+        }
+        return new DependencyGraph(dependencies, dependents, creationDependencies, constructorDependencies, constructorDependents,
+                missingReferences);
+    }
+
+    private static void addConstructorEdge(Map<String, Set<String>> edges, String from, String to) {
+        Set<String> targets = edges.get(from);
+        if (targets.isEmpty()) {
+            targets = new LinkedHashSet<>();
+            edges.put(from, targets);
+        }
+        targets.add(to);
+    }
+
+    private static void addEdge(String id, String refId, Map<String, BeanDefinition> beanDefinitions, Map<String, Set<String>> dependencies,
+                                Map<String, Set<String>> dependents, Map<String, Set<String>> missingReferences) {
+        if (beanDefinitions.containsKey(refId)) {
+            dependencies.get(id).add(refId);
+            dependents.get(refId).add(id);
+        } else {
+            missingReferences.computeIfAbsent(id, key -> new LinkedHashSet<>()).add(refId);
+        }
+    }
+
+    public Set<String> getBeanIds() {
+        return Collections.unmodifiableSet(dependencies.keySet());
+    }
+
+    public Set<String> getDependencies(String id) {
+        Set<String> result = dependencies.get(id);
+        return result == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(result);
+    }
+
+    public Set<String> getDependents(String id) {
+        Set<String> result = dependents.get(id);
+        return result == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Beans that have to be created before the bean is wired: its dependencies without lazy refs, whose targets
+     * are created on first use.
+     */
+    public Set<String> getCreationDependencies(String id) {
+        Set<String> result = creationDependencies.get(id);
+        return result == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Beans the bean gets as constructor arguments, they have to be created before the bean itself.
+     */
+    public Set<String> getConstructorDependencies(String id) {
+        Set<String> result = constructorDependencies.get(id);
+        return result == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Refs pointing to ids that have no definition, keyed by the id of the referencing bean.
+     */
+    public Map<String, Set<String>> getMissingReferences() {
+        return Collections.unmodifiableMap(missingReferences);
+    }
+
+    /**
+     * Returns the first cycle found as a path that starts and ends with the same id, or an empty list.
+     */
+    public List<String> findCycle() {
+        return findCycle(dependencies);
+    }
+
+    /**
+     * Like {@link #findCycle()}, following constructor arguments only. Such a cycle can't be created.
+     */
+    public List<String> findConstructorCycle() {
+        return findCycle(constructorDependencies);
+    }
+
+    /**
+     * Returns the bean ids ordered so that every bean comes after all beans it references. Beans that reference
+     * each other through properties can't all come after each other; among them a bean only comes after the beans
+     * it gets as constructor arguments, all of them are created before the first one is wired.
+     *
+     * @throws CircularDependencyException if beans reference each other through constructor arguments only
+     */
+    public List<String> getCreationOrder() {
+        List<String> cycle = findConstructorCycle();
+        if (!cycle.isEmpty()) {
+            throw new CircularDependencyException("Circular constructor reference between beans: " + String.join(" -> ", cycle));
+        }
+        List<String> order = new ArrayList<>(dependencies.size());
+        for (Set<String> component : getStronglyConnectedComponents(dependencies)) {
+            if (component.size() == 1) {
+                order.addAll(component);
+            } else {
+                addInConstructorOrder(component, order);
+            }
+        }
+        return order;
+    }
+
+    /**
+     * Groups the beans into strongly connected components, beans that reach each other through refs. A component
+     * comes after all components it references, a bean that is in no cycle forms a component of its own.
+     */
+    public List<Set<String>> getStronglyConnectedComponents() {
+        return getStronglyConnectedComponents(dependencies);
+    }
+
+    /**
+     * Like {@link #getStronglyConnectedComponents()}, following {@link #getCreationDependencies(String)} only: the
+     * groups of beans a parallel start creates together and wires once all of them exist. Each component lists
+     * its beans so that constructor arguments come first.
+     *
+     * @throws CircularDependencyException if beans reference each other through constructor arguments only
+     */
+    public List<List<String>> getCreationComponents() {
+        List<String> cycle = findConstructorCycle();
+        if (!cycle.isEmpty()) {
+            throw new CircularDependencyException("Circular constructor reference between beans: " + String.join(" -> ", cycle));
+        }
+        List<List<String>> components = new ArrayList<>();
+        for (Set<String> component : getStronglyConnectedComponents(creationDependencies)) {
+            List<String> members = new ArrayList<>(component.size());
+            if (component.size() == 1) {
+                members.addAll(component);
+            } else {
+                addInConstructorOrder(component, members);
+            }
+            components.add(members);
+        }
+        return components;
+    }
+
+    private List<Set<String>> getStronglyConnectedComponents(Map<String, Set<String>> edges) {
+        // Tarjan's algorithm with an explicit stack, long ref chains would overflow the call stack
+        Map<String, Integer> indexes = new HashMap<>(dependencies.size() * 4 / 3 + 1);
+        Map<String, Integer> lowLinks = new HashMap<>(dependencies.size() * 4 / 3 + 1);
+        Deque<String> stack = new ArrayDeque<>();
+        Set<String> onStack = new HashSet<>();
+        Deque<String> path = new ArrayDeque<>();
+        Deque<Iterator<String>> pathDependencies = new ArrayDeque<>();
+        List<Set<String>> components = new ArrayList<>();
+        for (String root : dependencies.keySet()) {
+            if (indexes.containsKey(root)) {
+                continue;
+            }
+            visit(root, edges, indexes, lowLinks, stack, onStack, path, pathDependencies);
+            while (!path.isEmpty()) {
+                String id = path.peek();
+                Iterator<String> iterator = pathDependencies.peek();
+                if (iterator.hasNext()) {
+                    String dependency = iterator.next();
+                    if (!indexes.containsKey(dependency)) {
+                        visit(dependency, edges, indexes, lowLinks, stack, onStack, path, pathDependencies);
+                    } else if (onStack.contains(dependency)) {
+                        lowLinks.put(id, Math.min(lowLinks.get(id), indexes.get(dependency)));
+                    }
+                    continue;
+                }
+                path.pop();
+                pathDependencies.pop();
+                if (!path.isEmpty()) {
+                    lowLinks.put(path.peek(), Math.min(lowLinks.get(path.peek()), lowLinks.get(id)));
+                }
+                if (lowLinks.get(id).equals(indexes.get(id))) {
+                    Set<String> component = new LinkedHashSet<>();
+                    String member;
+                    do {
+                        member = stack.pop();
+                        onStack.remove(member);
+                        component.add(member);
+                    } while (!member.equals(id));
+                    components.add(component);
+                }
+            }
+        }
+        return components;
+    }
+
+    private static void visit(String id, Map<String, Set<String>> edges, Map<String, Integer> indexes, Map<String, Integer> lowLinks,
+                              Deque<String> stack, Set<String> onStack, Deque<String> path, Deque<Iterator<String>> pathDependencies) {
+        indexes.put(id, indexes.size());
+        lowLinks.put(id, indexes.get(id));
+        stack.push(id);
+        onStack.add(id);
+        path.push(id);
+        pathDependencies.push(edges.get(id).iterator());
+    }
+
+    private void addInConstructorOrder(Set<String> component, List<String> order) {
+        Map<String, Integer> remainingDependencies = new HashMap<>();
+        Deque<String> ready = new ArrayDeque<>();
+        for (String id : component) {
+            int count = 0;
+            for (String dependency : constructorDependencies.get(id)) {
+                if (component.contains(dependency)) {
+                    count++;
+                }
+            }
+            remainingDependencies.put(id, count);
+            if (count == 0) {
+                ready.add(id);
+            }
+        }
+        while (!ready.isEmpty()) {
+            String id = ready.poll();
+            order.add(id);
+            for (String dependent : constructorDependents.get(id)) {
+                if (component.contains(dependent) && remainingDependencies.merge(dependent, -1, Integer::sum) == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+    }
+
+    private static List<String> findCycle(Map<String, Set<String>> edges) {
+        Map<String, Integer> states = new HashMap<>();
+        List<String> path = new ArrayList<>();
+        Deque<Iterator<String>> pathEdges = new ArrayDeque<>();
+        for (String root : edges.keySet()) {
+            if (states.containsKey(root)) {
+                continue;
+            }
+            states.put(root, VISITING);
+            path.add(root);
+            pathEdges.push(edges.get(root).iterator());
+            while (!pathEdges.isEmpty()) {
+                Iterator<String> iterator = pathEdges.peek();
+                if (!iterator.hasNext()) {
+                    pathEdges.pop();
+                    states.put(path.remove(path.size() - 1), VISITED);
+                    continue;
+                }
+                String dependency = iterator.next();
+                Integer state = states.get(dependency);
+                if (state == null) {
+                    states.put(dependency, VISITING);
+                    path.add(dependency);
+                    pathEdges.push(edges.get(dependency).iterator());
+                } else if (state == VISITING) {
+                    List<String> cycle = new ArrayList<>(path.subList(path.indexOf(dependency), path.size()));
+                    cycle.add(dependency);
+                    return cycle;
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+}
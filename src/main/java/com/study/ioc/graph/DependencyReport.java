@@ -0,0 +1,288 @@
+package com.study.ioc.graph;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.reader.BeanDefinitionReader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Static analysis of the ref graph of a set of definitions: cycles, missing refs, fan-in and fan-out of every
+ * bean and, with per-bean creation times, the critical path, the chain of dependent beans that bounds a parallel
+ * start no matter how many threads are used. Nothing is instantiated.
+ * <p>
+ * Creation times in nanoseconds can be taken from
+ * {@link com.study.ioc.context.impl.GenericApplicationContext#getBeanCreationTimes()} or a metrics listener.
+ * Beans without a time count as 1, so without times the critical path is the longest ref chain. Lazy refs are
+ * left out of it, they don't order creation. Beans referencing each other through properties are created
+ * together, the way a parallel start creates them; only cycles of constructor arguments can't be created.
+ */
+public class DependencyReport {
+    private final DependencyGraph graph;
+    private final Map<String, Long> creationTimes;
+    private final List<List<String>> cycles;
+    private final Set<String> beansInCycles = new HashSet<>();
+    private final List<String> constructorCycle;
+    private List<String> criticalPath;
+    private final Map<String, Integer> criticalPathIndexes = new HashMap<>();
+    private long criticalPathTime;
+
+    private DependencyReport(DependencyGraph graph, Map<String, Long> creationTimes) {
+        this.graph = graph;
+        this.creationTimes = creationTimes;
+        this.cycles = findCycles(graph);
+        for (List<String> cycle : cycles) {
+            beansInCycles.addAll(cycle);
+        }
+        this.constructorCycle = graph.findConstructorCycle();
+        if (constructorCycle.isEmpty()) {
+            computeCriticalPath();
+        } else {
+            this.criticalPath = Collections.emptyList();
+            this.criticalPathTime = 0;
+        }
+    }
+
+    /**
+     * Follows a parallel start: the beans of a creation component are created together, a bean waiting only for
+     * its constructor arguments in the same component, and a component is wired once all its beans exist. A bean
+     * that needs a bean of another component starts when the last bean of that component is created.
+     */
+    private void computeCriticalPath() {
+        Map<String, Long> finishTimes = new HashMap<>();
+        Map<String, String> slowestDependencies = new HashMap<>();
+        Map<String, Integer> componentIndexes = new HashMap<>();
+        List<String> lastOfComponents = new ArrayList<>();
+        String last = null;
+        for (List<String> component : graph.getCreationComponents()) {
+            int componentIndex = lastOfComponents.size();
+            for (String id : component) {
+                componentIndexes.put(id, componentIndex);
+            }
+            String lastOfComponent = null;
+            for (String id : component) {
+                long start = 0;
+                String slowestDependency = null;
+                for (String dependency : graph.getCreationDependencies(id)) {
+                    int dependencyComponent = componentIndexes.get(dependency);
+                    String waitedFor;
+                    if (dependencyComponent != componentIndex) {
+                        waitedFor = lastOfComponents.get(dependencyComponent);
+                    } else if (graph.getConstructorDependencies(id).contains(dependency)) {
+                        waitedFor = dependency;
+                    } else {
+                        continue;
+                    }
+                    if (slowestDependency == null || finishTimes.get(waitedFor) > start) {
+                        start = finishTimes.get(waitedFor);
+                        slowestDependency = waitedFor;
+                    }
+                }
+                if (slowestDependency != null) {
+                    slowestDependencies.put(id, slowestDependency);
+                }
+                finishTimes.put(id, start + getCreationTime(id));
+                if (lastOfComponent == null || finishTimes.get(id) > finishTimes.get(lastOfComponent)) {
+                    lastOfComponent = id;
+                }
+            }
+            lastOfComponents.add(lastOfComponent);
+            if (last == null || finishTimes.get(lastOfComponent) > finishTimes.get(last)) {
+                last = lastOfComponent;
+            }
+        }
+        List<String> path = new ArrayList<>();
+        for (String id = last; id != null; id = slowestDependencies.get(id)) {
+            path.add(id);
+        }
+        Collections.reverse(path);
+        for (int i = 0; i < path.size(); i++) {
+            criticalPathIndexes.put(path.get(i), i);
+        }
+        this.criticalPath = Collections.unmodifiableList(path);
+        this.criticalPathTime = last == null ? 0 : finishTimes.get(last);
+    }
+
+    public static DependencyReport of(Map<String, BeanDefinition> beanDefinitions, Map<String, Long> creationTimes) {
+        return new DependencyReport(DependencyGraph.build(beanDefinitions), creationTimes);
+    }
+
+    public static DependencyReport of(BeanDefinitionReader reader, Map<String, Long> creationTimes) {
+        return of(reader.getBeanDefinition(), creationTimes);
+    }
+
+    public DependencyGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Groups of beans that reference each other, directly or transitively, each sorted in graph order.
+     * A bean referencing itself is a group of one. Cycles through properties are legal, see
+     * {@link #getConstructorCycle()} for the ones that are not.
+     */
+    public List<List<String>> getCycles() {
+        return cycles;
+    }
+
+    /**
+     * A cycle of constructor arguments as a path that starts and ends with the same id, or an empty list.
+     * Such beans can't be created.
+     */
+    public List<String> getConstructorCycle() {
+        return constructorCycle;
+    }
+
+    public Map<String, Set<String>> getMissingReferences() {
+        return graph.getMissingReferences();
+    }
+
+    /**
+     * Number of beans referencing the bean.
+     */
+    public int getFanIn(String id) {
+        return graph.getDependents(id).size();
+    }
+
+    /**
+     * Number of beans the bean references, refs to undefined beans excluded.
+     */
+    public int getFanOut(String id) {
+        return graph.getDependencies(id).size();
+    }
+
+    /**
+     * Beans of the slowest ref chain, from the first to create to the last. Empty if the graph has a constructor cycle.
+     */
+    public List<String> getCriticalPath() {
+        return criticalPath;
+    }
+
+    public long getCriticalPathTime() {
+        return criticalPathTime;
+    }
+
+    /**
+     * Graphviz digraph with an edge from every bean to the beans it references. Beans on the critical path and
+     * their edges are red, beans in cycles are orange and missing beans are dashed.
+     */
+    public String toDot() {
+        StringBuilder dot = new StringBuilder("digraph beans {\n");
+        for (String id : graph.getBeanIds()) {
+            dot.append("    ").append(quote(id)).append(" [label=").append(quote(id + "\nin " + getFanIn(id) + " / out " + getFanOut(id)));
+            if (criticalPathIndexes.containsKey(id)) {
+                dot.append(", color=red");
+            } else if (beansInCycles.contains(id)) {
+                dot.append(", color=orange");
+            }
+            dot.append("];\n");
+        }
+        for (String id : graph.getBeanIds()) {
+            for (String dependency : graph.getDependencies(id)) {
+                dot.append("    ").append(quote(id)).append(" -> ").append(quote(dependency));
+                Integer index = criticalPathIndexes.get(id);
+                if (index != null && index > 0 && criticalPath.get(index - 1).equals(dependency)) {
+                    dot.append(" [color=red]");
+                }
+                dot.append(";\n");
+            }
+        }
+        for (Map.Entry<String, Set<String>> entry : getMissingReferences().entrySet()) {
+            for (String refId : entry.getValue()) {
+                dot.append("    ").append(quote(entry.getKey())).append(" -> ").append(quote(refId)).append(" [style=dashed];\n");
+            }
+        }
+        return dot.append("}\n").toString();
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\n  \"beans\": [");
+        String separator = "\n";
+        for (String id : graph.getBeanIds()) {
+            json.append(separator).append("    {\"id\": ").append(quote(id))
+                    .append(", \"fanIn\": ").append(getFanIn(id))
+                    .append(", \"fanOut\": ").append(getFanOut(id))
+                    .append(", \"dependencies\": ").append(toJsonArray(graph.getDependencies(id)));
+            Long creationTime = creationTimes.get(id);
+            if (creationTime != null) {
+                json.append(", \"creationTime\": ").append(creationTime);
+            }
+            json.append('}');
+            separator = ",\n";
+        }
+        json.append("\n  ],\n  \"cycles\": [");
+        separator = "";
+        for (List<String> cycle : cycles) {
+            json.append(separator).append(toJsonArray(cycle));
+            separator = ", ";
+        }
+        json.append("],\n  \"constructorCycle\": ").append(toJsonArray(constructorCycle));
+        json.append(",\n  \"missingReferences\": {");
+        separator = "";
+        for (Map.Entry<String, Set<String>> entry : getMissingReferences().entrySet()) {
+            json.append(separator).append(quote(entry.getKey())).append(": ").append(toJsonArray(entry.getValue()));
+            separator = ", ";
+        }
+        json.append("},\n  \"criticalPath\": ").append(toJsonArray(criticalPath))
+                .append(",\n  \"criticalPathTime\": ").append(criticalPathTime)
+                .append("\n}\n");
+        return json.toString();
+    }
+
+    private long getCreationTime(String id) {
+        Long creationTime = creationTimes.get(id);
+        return creationTime == null ? 1 : creationTime;
+    }
+
+    /**
+     * Strongly connected components with more than one bean or a self-reference.
+     */
+    private static List<List<String>> findCycles(DependencyGraph graph) {
+        Map<String, Integer> positions = new HashMap<>();
+        for (String id : graph.getBeanIds()) {
+            positions.put(id, positions.size());
+        }
+        List<List<String>> cycles = new ArrayList<>();
+        for (Set<String> component : graph.getStronglyConnectedComponents()) {
+            String first = component.iterator().next();
+            if (component.size() > 1 || graph.getDependencies(first).contains(first)) {
+                List<String> cycle = new ArrayList<>(component);
+                cycle.sort(Comparator.comparing(positions::get));
+                cycles.add(Collections.unmodifiableList(cycle));
+            }
+        }
+        return Collections.unmodifiableList(cycles);
+    }
+
+    private static String toJsonArray(Iterable<String> values) {
+        StringBuilder json = new StringBuilder("[");
+        String separator = "";
+        for (String value : values) {
+            json.append(separator).append(quote(value));
+            separator = ", ";
+        }
+        return json.append(']').toString();
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c == '\n') {
+                quoted.append("\\n");
+            } else if (c < ' ') {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,88 @@
+package com.study.ioc.metrics;
+
+/**
+ * Values of the pool of a pooled bean at one point in time. Wait times are in nanoseconds and only count borrows
+ * that found every instance borrowed.
+ */
+public class BeanPoolMetrics {
+    private final int maxSize;
+    private final int idle;
+    private final int borrowed;
+    private final long borrows;
+    private final long waits;
+    private final long waitTime;
+    private final long exhaustions;
+    private final long created;
+    private final long discarded;
+
+    public BeanPoolMetrics(int maxSize, int idle, int borrowed, long borrows, long waits, long waitTime, long exhaustions,
+                           long created, long discarded) {
+        this.maxSize = maxSize;
+        this.idle = idle;
+        this.borrowed = borrowed;
+        this.borrows = borrows;
+        this.waits = waits;
+        this.waitTime = waitTime;
+        this.exhaustions = exhaustions;
+        this.created = created;
+        this.discarded = discarded;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Returned instances kept for the next borrow.
+     */
+    public int getIdle() {
+        return idle;
+    }
+
+    /**
+     * Instances borrowed and not yet returned.
+     */
+    public int getBorrowed() {
+        return borrowed;
+    }
+
+    public long getBorrows() {
+        return borrows;
+    }
+
+    /**
+     * Borrows that had to wait for a returned instance.
+     */
+    public long getWaits() {
+        return waits;
+    }
+
+    public long getWaitTime() {
+        return waitTime;
+    }
+
+    /**
+     * Borrows that gave up because no instance was returned in time.
+     */
+    public long getExhaustions() {
+        return exhaustions;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Returned instances dropped because the pool already kept its maximum of idle ones.
+     */
+    public long getDiscarded() {
+        return discarded;
+    }
+
+    @Override
+    public String toString() {
+        return "BeanPoolMetrics{maxSize=" + maxSize + ", idle=" + idle + ", borrowed=" + borrowed + ", borrows=" + borrows
+                + ", waits=" + waits + ", waitTime=" + waitTime + ", exhaustions=" + exhaustions + ", created=" + created
+                + ", discarded=" + discarded + '}';
+    }
+}
@@ -0,0 +1,25 @@
+package com.study.ioc.metrics;
+
+/**
+ * Receives timings and lookup events from readers and contexts. All methods do nothing by default,
+ * implement the ones of interest. Times are in nanoseconds.
+ */
+public interface ContextMetricsListener {
+    ContextMetricsListener NOOP = new ContextMetricsListener() {
+    };
+
+    default void onDefinitionsParsed(String path, long nanos) {
+    }
+
+    default void onBeanInstantiated(String id, long nanos) {
+    }
+
+    default void onBeanInjected(String id, long nanos) {
+    }
+
+    default void onLookupById(String id) {
+    }
+
+    default void onLookupByType(Class<?> type) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.study.ioc.metrics;
+
+import java.util.Map;
+
+public interface ContextMetricsMXBean {
+    Map<String, Long> getParseTimes();
+
+    Map<String, Long> getInstantiationTimes();
+
+    Map<String, Long> getInjectionTimes();
+
+    Map<String, Long> getLookupsById();
+
+    Map<String, Long> getLookupsByType();
+
+    void reset();
+}
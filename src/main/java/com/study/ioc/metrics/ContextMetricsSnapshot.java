@@ -0,0 +1,45 @@
+package com.study.ioc.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Values of a {@link RecordingMetricsListener} at one point in time. Times are in nanoseconds,
+ * lookups by type are keyed by class name.
+ */
+public class ContextMetricsSnapshot {
+    private final Map<String, Long> parseTimes;
+    private final Map<String, Long> instantiationTimes;
+    private final Map<String, Long> injectionTimes;
+    private final Map<String, Long> lookupsById;
+    private final Map<String, Long> lookupsByType;
+
+    public ContextMetricsSnapshot(Map<String, Long> parseTimes, Map<String, Long> instantiationTimes, Map<String, Long> injectionTimes,
+                                  Map<String, Long> lookupsById, Map<String, Long> lookupsByType) {
+        this.parseTimes = Collections.unmodifiableMap(parseTimes);
+        this.instantiationTimes = Collections.unmodifiableMap(instantiationTimes);
+        this.injectionTimes = Collections.unmodifiableMap(injectionTimes);
+        this.lookupsById = Collections.unmodifiableMap(lookupsById);
+        this.lookupsByType = Collections.unmodifiableMap(lookupsByType);
+    }
+
+    public Map<String, Long> getParseTimes() {
+        return parseTimes;
+    }
+
+    public Map<String, Long> getInstantiationTimes() {
+        return instantiationTimes;
+    }
+
+    public Map<String, Long> getInjectionTimes() {
+        return injectionTimes;
+    }
+
+    public Map<String, Long> getLookupsById() {
+        return lookupsById;
+    }
+
+    public Map<String, Long> getLookupsByType() {
+        return lookupsByType;
+    }
+}
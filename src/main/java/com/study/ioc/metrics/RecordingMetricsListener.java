@@ -0,0 +1,120 @@
+package com.study.ioc.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulates all events in striped counters, so concurrent lookups don't contend on a single value.
+ * The recorded values are available as a {@link ContextMetricsSnapshot} and, once registered, over JMX.
+ */
+public class RecordingMetricsListener implements ContextMetricsListener, ContextMetricsMXBean {
+    private final ConcurrentMap<String, LongAdder> parseTimes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> instantiationTimes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> injectionTimes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> lookupsById = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Class<?>, LongAdder> lookupsByType = new ConcurrentHashMap<>();
+
+    @Override
+    public void onDefinitionsParsed(String path, long nanos) {
+        add(parseTimes, path, nanos);
+    }
+
+    @Override
+    public void onBeanInstantiated(String id, long nanos) {
+        add(instantiationTimes, id, nanos);
+    }
+
+    @Override
+    public void onBeanInjected(String id, long nanos) {
+        add(injectionTimes, id, nanos);
+    }
+
+    @Override
+    public void onLookupById(String id) {
+        add(lookupsById, id, 1);
+    }
+
+    @Override
+    public void onLookupByType(Class<?> type) {
+        add(lookupsByType, type, 1);
+    }
+
+    public ContextMetricsSnapshot snapshot() {
+        return new ContextMetricsSnapshot(getParseTimes(), getInstantiationTimes(), getInjectionTimes(), getLookupsById(), getLookupsByType());
+    }
+
+    /**
+     * Registers this listener in the platform MBean server as {@code com.study.ioc:type=ContextMetrics,name=<name>}.
+     */
+    public ObjectName registerMBean(String name) {
+        try {
+            ObjectName objectName = new ObjectName("com.study.ioc:type=ContextMetrics,name=" + ObjectName.quote(name));
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            mBeanServer.registerMBean(this, objectName);
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Can't register context metrics " + name, e);
+        }
+    }
+
+    @Override
+    public Map<String, Long> getParseTimes() {
+        return toMap(parseTimes);
+    }
+
+    @Override
+    public Map<String, Long> getInstantiationTimes() {
+        return toMap(instantiationTimes);
+    }
+
+    @Override
+    public Map<String, Long> getInjectionTimes() {
+        return toMap(injectionTimes);
+    }
+
+    @Override
+    public Map<String, Long> getLookupsById() {
+        return toMap(lookupsById);
+    }
+
+    @Override
+    public Map<String, Long> getLookupsByType() {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<Class<?>, LongAdder> entry : lookupsByType.entrySet()) {
+            result.put(entry.getKey().getName(), entry.getValue().sum());
+        }
+        return result;
+    }
+
+    @Override
+    public void reset() {
+        parseTimes.clear();
+        instantiationTimes.clear();
+        injectionTimes.clear();
+        lookupsById.clear();
+        lookupsByType.clear();
+    }
+
+    private static <K> void add(ConcurrentMap<K, LongAdder> counters, K key, long value) {
+        LongAdder counter = counters.get(key);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(key, k -> new LongAdder());
+        }
+        counter.add(value);
+    }
+
+    private static Map<String, Long> toMap(ConcurrentMap<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            result.put(entry.getKey(), entry.getValue().sum());
+        }
+        return result;
+    }
+}
@@ -0,0 +1,16 @@
+package com.study.ioc.processor;
+
+import com.study.ioc.entity.BeanDefinition;
+
+import java.util.Map;
+
+/**
+ * Changes the definitions of a context after they are read and before any bean is created.
+ */
+public interface BeanFactoryPostProcessor {
+
+    /**
+     * @param beanDefinitions all definitions of the context; definitions can be changed, added and removed
+     */
+    void postProcessBeanFactory(Map<String, BeanDefinition> beanDefinitions);
+}
@@ -0,0 +1,17 @@
+package com.study.ioc.processor;
+
+/**
+ * Sees every bean after it is wired, around its {@code @PostConstruct} methods. The returned object replaces the
+ * bean for lookups; beans that were wired with the original keep it. With an init executor configured the
+ * methods are called from several threads.
+ */
+public interface BeanPostProcessor {
+
+    default Object postProcessBeforeInitialization(Object bean, String beanId) {
+        return bean;
+    }
+
+    default Object postProcessAfterInitialization(Object bean, String beanId) {
+        return bean;
+    }
+}
@@ -0,0 +1,130 @@
+package com.study.ioc.proxy;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Creates proxies that forward every public method to the object returned by a {@link Supplier}, called anew on
+ * every invocation. The proxy class of each type is generated as bytecode once and loaded in its own class loader:
+ * one final class per proxied type with plain virtual or interface calls, so call sites through a proxy stay
+ * monomorphic and can be inlined, unlike {@link java.lang.reflect.Proxy} with its shared invocation handler.
+ * <p>
+ * Interfaces and public non-final classes with a public or protected no-arg constructor can be proxied.
+ * For a class the constructor runs once per proxy, and only public methods are forwarded.
+ */
+public final class LazyProxies {
+    private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Supplier.class);
+    private static final AtomicInteger PROXY_COUNT = new AtomicInteger();
+    private static final ClassValue<MethodHandle> CONSTRUCTORS = new ClassValue<MethodHandle>() {
+        @Override
+        protected MethodHandle computeValue(Class<?> type) {
+            return generate(type);
+        }
+    };
+
+    private LazyProxies() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the type can't be proxied
+     */
+    public static <T> T create(Class<T> type, Supplier<?> target) {
+        try {
+            return type.cast((Object) CONSTRUCTORS.get(type).invokeExact(target));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalArgumentException("Can't create proxy of " + type.getName(), e);
+        }
+    }
+
+    public static boolean isProxy(Object object) {
+        return object != null && object.getClass().getClassLoader() instanceof ProxyClassLoader;
+    }
+
+    private static MethodHandle generate(Class<?> type) {
+        if (!Modifier.isPublic(type.getModifiers()) || type.isPrimitive() || type.isArray()) {
+            throw new IllegalArgumentException("Can't proxy " + type.getName() + ", only public classes and interfaces can be proxied");
+        }
+        if (!type.isInterface()) {
+            if (Modifier.isFinal(type.getModifiers())) {
+                throw new IllegalArgumentException("Can't proxy final class " + type.getName());
+            }
+            if (!hasAccessibleNoArgConstructor(type)) {
+                throw new IllegalArgumentException("Can't proxy " + type.getName() + ", it has no public or protected no-arg constructor");
+            }
+        }
+        String className = "com/study/ioc/proxy/generated/" + type.getSimpleName() + "$$Proxy" + PROXY_COUNT.incrementAndGet();
+        byte[] classFile = new ProxyClassWriter().write(className, type, getProxiedMethods(type));
+        Class<?> proxyClass = new ProxyClassLoader(type.getClassLoader()).define(className.replace('/', '.'), classFile);
+        try {
+            return MethodHandles.publicLookup().findConstructor(proxyClass, MethodType.methodType(void.class, Supplier.class))
+                    .asType(CONSTRUCTOR_TYPE);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Generated proxy " + className + " has no constructor", e);
+        }
+    }
+
+    private static boolean hasAccessibleNoArgConstructor(Class<?> type) {
+        for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+            int modifiers = constructor.getModifiers();
+            if (constructor.getParameterCount() == 0 && (Modifier.isPublic(modifiers) || Modifier.isProtected(modifiers))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Public instance methods that can be overridden, including {@code equals}, {@code hashCode} and
+     * {@code toString}, one per name and descriptor.
+     */
+    private static List<Method> getProxiedMethods(Class<?> type) {
+        Map<String, Method> methods = new LinkedHashMap<>();
+        List<Method> candidates = new ArrayList<>();
+        for (Method method : Object.class.getMethods()) {
+            candidates.add(method);
+        }
+        for (Method method : type.getMethods()) {
+            candidates.add(method);
+        }
+        for (Method method : candidates) {
+            int modifiers = method.getModifiers();
+            if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers)) {
+                continue;
+            }
+            String key = method.getName() + ProxyClassWriter.descriptor(method);
+            Method previous = methods.get(key);
+            if (previous == null || previous.getDeclaringClass().isAssignableFrom(method.getDeclaringClass())) {
+                methods.put(key, method);
+            }
+        }
+        for (Method method : type.getMethods()) {
+            // a final method hides proxied methods with the same signature, e.g. an interface method it implements
+            if (Modifier.isFinal(method.getModifiers())) {
+                methods.remove(method.getName() + ProxyClassWriter.descriptor(method));
+            }
+        }
+        return new ArrayList<>(methods.values());
+    }
+
+    private static class ProxyClassLoader extends ClassLoader {
+        ProxyClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        Class<?> define(String name, byte[] classFile) {
+            return defineClass(name, classFile, 0, classFile.length);
+        }
+    }
+}
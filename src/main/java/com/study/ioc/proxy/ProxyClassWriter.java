@@ -0,0 +1,276 @@
+package com.study.ioc.proxy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the class file of a delegating proxy: a final class extending the proxied class, or implementing the
+ * proxied interface, with a {@code Supplier} field and one method per proxied method that calls the same method
+ * on {@code (Type) target.get()}. Method bodies have no branches, so the class file needs no stack map frames.
+ */
+class ProxyClassWriter {
+    private static final int CLASS_VERSION = 52;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_PRIVATE = 0x0002;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+    private static final String SUPPLIER = "java/util/function/Supplier";
+    private static final String TARGET_FIELD = "target";
+
+    private final ByteArrayOutputStream constantPoolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream constantPool = new DataOutputStream(constantPoolBytes);
+    private final Map<String, Integer> constants = new HashMap<>();
+    private int constantCount = 1;
+
+    /**
+     * @param className   internal name of the proxy class
+     * @param type        proxied class or interface
+     * @param methods     methods to delegate, with distinct names and descriptors
+     */
+    byte[] write(String className, Class<?> type, List<Method> methods) {
+        try {
+            String typeName = internalName(type);
+            String superName = type.isInterface() ? "java/lang/Object" : typeName;
+            int thisClass = classConstant(className);
+            int superClass = classConstant(superName);
+            int interfaceClass = type.isInterface() ? classConstant(typeName) : 0;
+            int targetField = memberConstant(9, className, TARGET_FIELD, "L" + SUPPLIER + ";");
+            int supplierGet = memberConstant(11, SUPPLIER, "get", "()Ljava/lang/Object;");
+            int code = utf8("Code");
+
+            List<byte[]> methodBytes = new ArrayList<>();
+            methodBytes.add(constructor(superName, targetField, code));
+            for (Method method : methods) {
+                methodBytes.add(delegate(type, typeName, method, targetField, supplierGet, code));
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(0xCAFEBABE);
+            output.writeShort(0);
+            output.writeShort(CLASS_VERSION);
+            output.writeShort(constantCount);
+            constantPool.flush();
+            constantPoolBytes.writeTo(output);
+            output.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            output.writeShort(thisClass);
+            output.writeShort(superClass);
+            if (type.isInterface()) {
+                output.writeShort(1);
+                output.writeShort(interfaceClass);
+            } else {
+                output.writeShort(0);
+            }
+            output.writeShort(1);
+            output.writeShort(ACC_PRIVATE | ACC_FINAL);
+            output.writeShort(utf8(TARGET_FIELD));
+            output.writeShort(utf8("L" + SUPPLIER + ";"));
+            output.writeShort(0);
+            output.writeShort(methodBytes.size());
+            for (byte[] method : methodBytes) {
+                output.write(method);
+            }
+            output.writeShort(0);
+            output.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] constructor(String superName, int targetField, int code) throws IOException {
+        int superConstructor = memberConstant(10, superName, "<init>", "()V");
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream instructions = new DataOutputStream(body);
+        instructions.writeByte(0x2a); // aload_0
+        instructions.writeByte(0xb7); // invokespecial
+        instructions.writeShort(superConstructor);
+        instructions.writeByte(0x2a); // aload_0
+        instructions.writeByte(0x2b); // aload_1
+        instructions.writeByte(0xb5); // putfield
+        instructions.writeShort(targetField);
+        instructions.writeByte(0xb1); // return
+        return method(ACC_PUBLIC, "<init>", "(L" + SUPPLIER + ";)V", code, 2, 2, body.toByteArray());
+    }
+
+    private byte[] delegate(Class<?> type, String typeName, Method method, int targetField, int supplierGet, int code) throws IOException {
+        String descriptor = descriptor(method);
+        boolean interfaceCall = type.isInterface() && method.getDeclaringClass() != Object.class;
+        int target = interfaceCall
+                ? memberConstant(11, typeName, method.getName(), descriptor)
+                : memberConstant(10, method.getDeclaringClass() == Object.class ? "java/lang/Object" : typeName, method.getName(), descriptor);
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream instructions = new DataOutputStream(body);
+        instructions.writeByte(0x2a); // aload_0
+        instructions.writeByte(0xb4); // getfield
+        instructions.writeShort(targetField);
+        instructions.writeByte(0xb9); // invokeinterface Supplier.get
+        instructions.writeShort(supplierGet);
+        instructions.writeByte(1);
+        instructions.writeByte(0);
+        instructions.writeByte(0xc0); // checkcast
+        instructions.writeShort(classConstant(typeName));
+        int slot = 1;
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            instructions.writeByte(loadOpcode(parameterType));
+            instructions.writeByte(slot);
+            slot += size(parameterType);
+        }
+        if (interfaceCall) {
+            instructions.writeByte(0xb9); // invokeinterface
+            instructions.writeShort(target);
+            instructions.writeByte(slot);
+            instructions.writeByte(0);
+        } else {
+            instructions.writeByte(0xb6); // invokevirtual
+            instructions.writeShort(target);
+        }
+        instructions.writeByte(returnOpcode(method.getReturnType()));
+        return method(ACC_PUBLIC | ACC_FINAL, method.getName(), descriptor, code, Math.max(slot, 2), slot, body.toByteArray());
+    }
+
+    private byte[] method(int access, String name, String descriptor, int code, int maxStack, int maxLocals, byte[] instructions) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeShort(access);
+        output.writeShort(utf8(name));
+        output.writeShort(utf8(descriptor));
+        output.writeShort(1);
+        output.writeShort(code);
+        output.writeInt(12 + instructions.length);
+        output.writeShort(maxStack);
+        output.writeShort(maxLocals);
+        output.writeInt(instructions.length);
+        output.write(instructions);
+        output.writeShort(0);
+        output.writeShort(0);
+        return bytes.toByteArray();
+    }
+
+    private int utf8(String value) throws IOException {
+        Integer index = constants.get("U" + value);
+        if (index == null) {
+            constantPool.writeByte(1);
+            constantPool.writeUTF(value);
+            index = add("U" + value);
+        }
+        return index;
+    }
+
+    private int classConstant(String internalName) throws IOException {
+        Integer index = constants.get("C" + internalName);
+        if (index == null) {
+            int name = utf8(internalName);
+            constantPool.writeByte(7);
+            constantPool.writeShort(name);
+            index = add("C" + internalName);
+        }
+        return index;
+    }
+
+    /**
+     * A field (9), method (10) or interface method (11) reference.
+     */
+    private int memberConstant(int tag, String owner, String name, String descriptor) throws IOException {
+        String key = tag + owner + "." + name + descriptor;
+        Integer index = constants.get(key);
+        if (index == null) {
+            int ownerClass = classConstant(owner);
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            constantPool.writeByte(12);
+            constantPool.writeShort(nameIndex);
+            constantPool.writeShort(descriptorIndex);
+            int nameAndType = add("N" + key);
+            constantPool.writeByte(tag);
+            constantPool.writeShort(ownerClass);
+            constantPool.writeShort(nameAndType);
+            index = add(key);
+        }
+        return index;
+    }
+
+    private int add(String key) {
+        int index = constantCount++;
+        constants.put(key, index);
+        return index;
+    }
+
+    static String internalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    static String descriptor(Method method) {
+        StringBuilder descriptor = new StringBuilder("(");
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            descriptor.append(descriptor(parameterType));
+        }
+        return descriptor.append(')').append(descriptor(method.getReturnType())).toString();
+    }
+
+    private static String descriptor(Class<?> type) {
+        if (type.isArray()) {
+            return internalName(type);
+        }
+        if (!type.isPrimitive()) {
+            return "L" + internalName(type) + ";";
+        }
+        if (type == void.class) {
+            return "V";
+        } else if (type == boolean.class) {
+            return "Z";
+        } else if (type == byte.class) {
+            return "B";
+        } else if (type == char.class) {
+            return "C";
+        } else if (type == short.class) {
+            return "S";
+        } else if (type == int.class) {
+            return "I";
+        } else if (type == long.class) {
+            return "J";
+        } else if (type == float.class) {
+            return "F";
+        }
+        return "D";
+    }
+
+    private static int size(Class<?> type) {
+        return type == long.class || type == double.class ? 2 : 1;
+    }
+
+    private static int loadOpcode(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return 0x19; // aload
+        } else if (type == long.class) {
+            return 0x16; // lload
+        } else if (type == float.class) {
+            return 0x17; // fload
+        } else if (type == double.class) {
+            return 0x18; // dload
+        }
+        return 0x15; // iload
+    }
+
+    private static int returnOpcode(Class<?> type) {
+        if (type == void.class) {
+            return 0xb1; // return
+        } else if (!type.isPrimitive()) {
+            return 0xb0; // areturn
+        } else if (type == long.class) {
+            return 0xad; // lreturn
+        } else if (type == float.class) {
+            return 0xae; // freturn
+        } else if (type == double.class) {
+            return 0xaf; // dreturn
+        }
+        return 0xac; // ireturn
+    }
+}
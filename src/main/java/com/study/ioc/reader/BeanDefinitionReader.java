@@ -6,4 +6,12 @@ import java.util.Map;
 
 public interface BeanDefinitionReader {
     Map<String, BeanDefinition> getBeanDefinition();
+
+    /**
+     * Identifies the current content of the sources without reading them, so results derived from the
+     * definitions can be reused while it stays the same. {@code null} if the reader can't tell.
+     */
+    default String getSourceVersion() {
+        return null;
+    }
 }
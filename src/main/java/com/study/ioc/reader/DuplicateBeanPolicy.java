@@ -0,0 +1,10 @@
+package com.study.ioc.reader;
+
+/**
+ * What a reader does when the same bean id is defined in more than one source.
+ */
+public enum DuplicateBeanPolicy {
+    FAIL,
+    FIRST_WINS,
+    LAST_WINS
+}
@@ -0,0 +1,22 @@
+package com.study.ioc.reader;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares one {@code String} instance per distinct id, class name and property name among the definitions
+ * read together. Large contexts repeat the same few class and property names in every definition, and every ref
+ * repeats an id. Unlike {@link String#intern()} the names are only held while the interner is reachable, readers
+ * drop it once the definitions are read.
+ */
+public class NameInterner {
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+
+    public String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        String interned = names.putIfAbsent(name, name);
+        return interned == null ? name : interned;
+    }
+}
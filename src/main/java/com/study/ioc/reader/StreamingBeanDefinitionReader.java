@@ -0,0 +1,17 @@
+package com.study.ioc.reader;
+
+import com.study.ioc.entity.BeanDefinition;
+
+import java.util.function.Consumer;
+
+/**
+ * A reader that can hand out definitions one by one while it is still reading, so beans can be created
+ * before the last definition is known.
+ */
+public interface StreamingBeanDefinitionReader extends BeanDefinitionReader {
+
+    /**
+     * Passes every definition to the consumer in source order. An id is passed at most once.
+     */
+    void readBeanDefinitions(Consumer<BeanDefinition> consumer);
+}
@@ -0,0 +1,52 @@
+package com.study.ioc.reader.annotation;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.exception.ParseContextException;
+import com.study.ioc.reader.BeanDefinitionReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads the definitions of {@link com.study.ioc.annotation.Component} classes from the component indexes
+ * written by {@link com.study.ioc.annotation.processor.ComponentIndexProcessor}. Nothing is scanned at runtime,
+ * every jar or class directory contributes one small index file.
+ */
+public class AnnotationBeanDefinitionReader implements BeanDefinitionReader {
+    private final ClassLoader classLoader;
+
+    public AnnotationBeanDefinitionReader() {
+        this(AnnotationBeanDefinitionReader.class.getClassLoader());
+    }
+
+    public AnnotationBeanDefinitionReader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public Map<String, BeanDefinition> getBeanDefinition() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        try {
+            Enumeration<URL> indexes = classLoader.getResources(ComponentIndex.LOCATION);
+            while (indexes.hasMoreElements()) {
+                URL index = indexes.nextElement();
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+                    for (BeanDefinition beanDefinition : ComponentIndex.read(reader).values()) {
+                        if (beanDefinitionMap.put(beanDefinition.getId(), beanDefinition) != null) {
+                            throw new ParseContextException("Bean " + beanDefinition.getId() + " is defined in more than one component index");
+                        }
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new ParseContextException("Can't read component index " + ComponentIndex.LOCATION, e);
+        }
+        return beanDefinitionMap;
+    }
+}
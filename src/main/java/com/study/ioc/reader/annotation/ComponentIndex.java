@@ -0,0 +1,127 @@
+package com.study.ioc.reader.annotation;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.Scope;
+import com.study.ioc.exception.ParseContextException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Text format of the component index written at compile time. One tab separated record per line:
+ * <pre>
+ * bean  &lt;id&gt;       &lt;class name&gt; &lt;scope&gt;
+ * value &lt;property&gt; &lt;value&gt;
+ * ref   &lt;property&gt; &lt;bean id&gt;
+ * </pre>
+ * {@code value} and {@code ref} records belong to the preceding {@code bean}. Tabs, line breaks and
+ * backslashes inside fields are escaped with a backslash.
+ */
+public class ComponentIndex {
+    public static final String LOCATION = "META-INF/ioc/components.idx";
+
+    private static final String BEAN = "bean";
+    private static final String VALUE = "value";
+    private static final String REF = "ref";
+
+    private ComponentIndex() {
+    }
+
+    public static void write(Writer writer, Collection<BeanDefinition> beanDefinitions) throws IOException {
+        for (BeanDefinition beanDefinition : beanDefinitions) {
+            writeRecord(writer, BEAN, beanDefinition.getId(), beanDefinition.getClassName(), beanDefinition.getScope().name());
+            for (Map.Entry<String, String> entry : beanDefinition.getValueDependencies().entrySet()) {
+                writeRecord(writer, VALUE, entry.getKey(), entry.getValue());
+            }
+            for (Map.Entry<String, String> entry : beanDefinition.getRefDependencies().entrySet()) {
+                writeRecord(writer, REF, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    public static Map<String, BeanDefinition> read(BufferedReader reader) throws IOException {
+        Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>();
+        BeanDefinition beanDefinition = null;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            List<String> fields = split(line);
+            String type = fields.get(0);
+            if (BEAN.equals(type) && fields.size() == 4) {
+                beanDefinition = new BeanDefinition(fields.get(1), fields.get(2));
+                beanDefinition.setScope(Scope.valueOf(fields.get(3)));
+                beanDefinition.setValueDependencies(new LinkedHashMap<>());
+                beanDefinition.setRefDependencies(new LinkedHashMap<>());
+                beanDefinitions.put(beanDefinition.getId(), beanDefinition);
+            } else if (VALUE.equals(type) && fields.size() == 3 && beanDefinition != null) {
+                beanDefinition.getValueDependencies().put(fields.get(1), fields.get(2));
+            } else if (REF.equals(type) && fields.size() == 3 && beanDefinition != null) {
+                beanDefinition.getRefDependencies().put(fields.get(1), fields.get(2));
+            } else {
+                throw new ParseContextException("Wrong component index record: " + line);
+            }
+        }
+        return beanDefinitions;
+    }
+
+    private static void writeRecord(Writer writer, String... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                writer.write('\t');
+            }
+            writer.write(escape(fields[i]));
+        }
+        writer.write('\n');
+    }
+
+    private static String escape(String field) {
+        StringBuilder result = new StringBuilder(field.length());
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            switch (c) {
+                case '\\':
+                    result.append("\\\\");
+                    break;
+                case '\t':
+                    result.append("\\t");
+                    break;
+                case '\n':
+                    result.append("\\n");
+                    break;
+                case '\r':
+                    result.append("\\r");
+                    break;
+                default:
+                    result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\t') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\\' && i + 1 < line.length()) {
+                char escaped = line.charAt(++i);
+                field.append(escaped == 't' ? '\t' : escaped == 'n' ? '\n' : escaped == 'r' ? '\r' : escaped);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,246 @@
+package com.study.ioc.reader.cache;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.entity.PoolSettings;
+import com.study.ioc.entity.PropertyMaps;
+import com.study.ioc.entity.Scope;
+import com.study.ioc.reader.NameInterner;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Binary form of the bean definitions parsed from one source file. A cache file records the size and
+ * modification time of its source and is ignored once the source changes. Cache files are read through
+ * a memory-mapped buffer, so loading them is a sequential decode without any XML parsing.
+ */
+public class BeanDefinitionCache {
+    private static final int MAGIC = 0x494f4342;
+    private static final int VERSION = 4;
+    private static final String SUFFIX = ".bin";
+
+    private final Path cacheDirectory;
+
+    /**
+     * Cache files are written next to their source file.
+     */
+    public BeanDefinitionCache() {
+        this(null);
+    }
+
+    public BeanDefinitionCache(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Returns the cached definitions of the source file, or {@code null} if there is no cache file
+     * or it is stale or unreadable.
+     */
+    public Map<String, BeanDefinition> read(Path source) {
+        return read(source, new NameInterner());
+    }
+
+    /**
+     * Like {@link #read(Path)}, sharing equal strings with other definitions read through the same interner.
+     */
+    public Map<String, BeanDefinition> read(Path source, NameInterner names) {
+        Path cacheFile = getCacheFile(source);
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getLong() != Files.size(source)
+                    || buffer.getLong() != Files.getLastModifiedTime(source).toMillis()) {
+                return null;
+            }
+            int count = readSize(buffer);
+            Map<String, BeanDefinition> beanDefinitions = new HashMap<>(count * 4 / 3 + 1);
+            for (int i = 0; i < count; i++) {
+                BeanDefinition beanDefinition = new BeanDefinition(readName(buffer, names), readName(buffer, names));
+                byte lazyInit = buffer.get();
+                beanDefinition.setLazyInit(lazyInit == 0 ? null : lazyInit == 1);
+                beanDefinition.setScope(Scope.values()[buffer.get()]);
+                if (buffer.get() == 1) {
+                    beanDefinition.setPoolSettings(new PoolSettings(buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getLong()));
+                }
+                beanDefinition.setValueDependencies(readDependencies(buffer, names, null));
+                beanDefinition.setRefDependencies(readDependencies(buffer, names, names));
+                beanDefinition.setLazyRefProperties(readLazyRefProperties(buffer, names));
+                beanDefinition.setConstructorArguments(readConstructorArguments(buffer, names));
+                beanDefinitions.put(beanDefinition.getId(), beanDefinition);
+            }
+            return beanDefinitions;
+        } catch (IOException | RuntimeException e) {
+            // a truncated or corrupt file decodes to anything, bad sizes and pool settings included
+            return null;
+        }
+    }
+
+    /**
+     * Writes the definitions parsed from the source file. The cache file is replaced atomically,
+     * so concurrent readers never see a partially written file.
+     */
+    public void write(Path source, Map<String, BeanDefinition> beanDefinitions) throws IOException {
+        Path cacheFile = getCacheFile(source);
+        Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+        Path tempFile = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), cacheFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(Files.size(source));
+                output.writeLong(Files.getLastModifiedTime(source).toMillis());
+                output.writeInt(beanDefinitions.size());
+                for (BeanDefinition beanDefinition : beanDefinitions.values()) {
+                    writeString(output, beanDefinition.getId());
+                    writeString(output, beanDefinition.getClassName());
+                    Boolean lazyInit = beanDefinition.getLazyInit();
+                    output.writeByte(lazyInit == null ? 0 : lazyInit ? 1 : 2);
+                    output.writeByte(beanDefinition.getScope().ordinal());
+                    writePoolSettings(output, beanDefinition.getPoolSettings());
+                    writeDependencies(output, beanDefinition.getValueDependencies());
+                    writeDependencies(output, beanDefinition.getRefDependencies());
+                    writeLazyRefProperties(output, beanDefinition.getLazyRefProperties());
+                    writeConstructorArguments(output, beanDefinition.getConstructorArguments());
+                }
+            }
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    Path getCacheFile(Path source) {
+        if (cacheDirectory == null) {
+            return source.resolveSibling(source.getFileName() + SUFFIX);
+        }
+        String absolutePath = source.toAbsolutePath().normalize().toString();
+        String name = absolutePath.replaceAll("[^A-Za-z0-9._-]", "_");
+        return cacheDirectory.resolve(name + SUFFIX);
+    }
+
+    /**
+     * Property names are always interned, values only with a {@code valueNames} interner, as refs are.
+     */
+    private static Map<String, String> readDependencies(MappedByteBuffer buffer, NameInterner names, NameInterner valueNames) {
+        int size = readSize(buffer);
+        String[] namesAndValues = new String[size * 2];
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            namesAndValues[i] = readName(buffer, names);
+            namesAndValues[i + 1] = valueNames == null ? readString(buffer) : readName(buffer, valueNames);
+        }
+        return PropertyMaps.of(namesAndValues, size);
+    }
+
+    private static void writeDependencies(DataOutputStream output, Map<String, String> dependencies) throws IOException {
+        if (dependencies == null) {
+            output.writeInt(0);
+            return;
+        }
+        output.writeInt(dependencies.size());
+        for (Map.Entry<String, String> entry : dependencies.entrySet()) {
+            writeString(output, entry.getKey());
+            writeString(output, entry.getValue());
+        }
+    }
+
+    private static void writePoolSettings(DataOutputStream output, PoolSettings poolSettings) throws IOException {
+        if (poolSettings == null) {
+            output.writeByte(0);
+            return;
+        }
+        output.writeByte(1);
+        output.writeInt(poolSettings.getMinSize());
+        output.writeInt(poolSettings.getMaxSize());
+        output.writeInt(poolSettings.getMaxIdle());
+        output.writeLong(poolSettings.getMaxWaitMillis());
+    }
+
+    private static Set<String> readLazyRefProperties(MappedByteBuffer buffer, NameInterner names) {
+        int size = readSize(buffer);
+        if (size == 0) {
+            return Collections.emptySet();
+        }
+        Set<String> lazyRefProperties = new HashSet<>();
+        for (int i = 0; i < size; i++) {
+            lazyRefProperties.add(readName(buffer, names));
+        }
+        return Collections.unmodifiableSet(lazyRefProperties);
+    }
+
+    private static void writeLazyRefProperties(DataOutputStream output, Set<String> lazyRefProperties) throws IOException {
+        output.writeInt(lazyRefProperties.size());
+        for (String propertyName : lazyRefProperties) {
+            writeString(output, propertyName);
+        }
+    }
+
+    private static List<ConstructorArgument> readConstructorArguments(MappedByteBuffer buffer, NameInterner names) {
+        int size = readSize(buffer);
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        List<ConstructorArgument> constructorArguments = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            boolean ref = buffer.get() == 1;
+            String value = ref ? readName(buffer, names) : readString(buffer);
+            constructorArguments.add(ref ? ConstructorArgument.ref(value) : ConstructorArgument.value(value));
+        }
+        return Collections.unmodifiableList(constructorArguments);
+    }
+
+    private static void writeConstructorArguments(DataOutputStream output, List<ConstructorArgument> constructorArguments) throws IOException {
+        output.writeInt(constructorArguments.size());
+        for (ConstructorArgument constructorArgument : constructorArguments) {
+            output.writeByte(constructorArgument.isRef() ? 1 : 0);
+            writeString(output, constructorArgument.isRef() ? constructorArgument.getRef() : constructorArgument.getValue());
+        }
+    }
+
+    /**
+     * Reads a count or length, every entry takes at least a byte, so a larger value than what remains is corrupt
+     * and would only allocate a huge array.
+     */
+    private static int readSize(MappedByteBuffer buffer) {
+        int size = buffer.getInt();
+        if (size < 0 || size > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return size;
+    }
+
+    private static String readName(MappedByteBuffer buffer, NameInterner names) {
+        return names.intern(readString(buffer));
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        byte[] bytes = new byte[readSize(buffer)];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+}
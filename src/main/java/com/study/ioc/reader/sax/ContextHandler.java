@@ -1,22 +1,64 @@
 package com.study.ioc.reader.sax;
 
 import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.entity.PoolSettings;
+import com.study.ioc.entity.PropertyMaps;
+import com.study.ioc.entity.Scope;
 import com.study.ioc.exception.ParseContextException;
+import com.study.ioc.reader.NameInterner;
 import org.xml.sax.Attributes;
 import org.xml.sax.helpers.DefaultHandler;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+/**
+ * Collects the definitions of a context file into a map, or, in streaming mode, hands every definition to a
+ * consumer as soon as its {@code </bean>} is parsed. Property maps are built from reused buffers into compact
+ * read-only maps, see {@link PropertyMaps}. {@code <constructor-arg>} elements are taken in document order.
+ * Ids, class names, property names and refs go through a {@link NameInterner}, so equal names share one instance
+ * across definitions. Values are kept as parsed, most of them occur once.
+ */
 public class ContextHandler extends DefaultHandler {
 
+    private final Consumer<BeanDefinition> beanDefinitionConsumer;
+    private NameInterner names = new NameInterner();
     private Map<String, BeanDefinition> beanDefinitions;
     private BeanDefinition beanDefinition;
-    private Map<String, String> valueDependencies;
-    private Map<String, String> refDependencies;
+    private String[] valueDependencies = new String[16];
+    private int valueDependencyCount;
+    private String[] refDependencies = new String[16];
+    private int refDependencyCount;
+    private final List<String> lazyRefProperties = new ArrayList<>();
+    private final List<ConstructorArgument> constructorArguments = new ArrayList<>();
 
     private boolean bBean;
 
+    public ContextHandler() {
+        this.beanDefinitionConsumer = null;
+    }
+
+    /**
+     * Streaming mode: definitions go to the consumer in document order and {@link #getBeanDefinitions()} stays empty.
+     */
+    public ContextHandler(Consumer<BeanDefinition> beanDefinitionConsumer) {
+        this.beanDefinitionConsumer = beanDefinitionConsumer;
+    }
+
+    /**
+     * Shares names with the definitions of other files read through the same interner.
+     */
+    public void setNameInterner(NameInterner names) {
+        this.names = names;
+    }
+
     @Override
     public void startDocument() {
         beanDefinitions = new HashMap<>();
@@ -34,24 +76,50 @@ public class ContextHandler extends DefaultHandler {
             if (clazzName == null) {
                 throw new ParseContextException("No specified class for bean");
             }
-            beanDefinition = new BeanDefinition(id, clazzName);
-            valueDependencies = new HashMap<>();
-            refDependencies = new HashMap<>();
+            beanDefinition = new BeanDefinition(names.intern(id), names.intern(clazzName));
+            beanDefinition.setLazyInit(parseLazyInit(attributes.getValue("lazy-init")));
+            beanDefinition.setScope(parseScope(attributes.getValue("scope")));
+            beanDefinition.setPoolSettings(parsePoolSettings(attributes));
+            valueDependencyCount = 0;
+            refDependencyCount = 0;
+            lazyRefProperties.clear();
+            constructorArguments.clear();
+        } else if (qName.equalsIgnoreCase("constructor-arg")) {
+            if (!bBean) {
+                throw new ParseContextException("No specified bean for constructor-arg");
+            }
+            String argumentValue = attributes.getValue("value");
+            String argumentRef = names.intern(attributes.getValue("ref"));
+            if ((argumentValue == null) == (argumentRef == null)) {
+                throw new ParseContextException("Constructor-arg of bean " + beanDefinition.getId() + " needs either a value or a ref");
+            }
+            constructorArguments.add(argumentValue != null ? ConstructorArgument.value(argumentValue) : ConstructorArgument.ref(argumentRef));
         } else if (qName.equalsIgnoreCase("property")) {
             if (!bBean) {
                 throw new ParseContextException("No specified bean for property");
             }
-            String propertyName = attributes.getValue("name");
+            String propertyName = names.intern(attributes.getValue("name"));
             if (propertyName == null) {
                 throw new ParseContextException("No specified name for property");
             }
             String propertyValue = attributes.getValue("value");
-            String propertyRef = attributes.getValue("ref");
+            String propertyRef = names.intern(attributes.getValue("ref"));
             if (propertyValue != null) {
-                valueDependencies.put(propertyName, propertyValue);
+                valueDependencies = add(valueDependencies, valueDependencyCount++, propertyName, propertyValue);
             }
             if (propertyRef != null) {
-                refDependencies.put(propertyName, propertyRef);
+                refDependencies = add(refDependencies, refDependencyCount++, propertyName, propertyRef);
+            }
+            String lazy = attributes.getValue("lazy");
+            if (lazy != null) {
+                if (propertyRef == null) {
+                    throw new ParseContextException("Property " + propertyName + " of bean " + beanDefinition.getId() + " can only be lazy with a ref");
+                }
+                if (lazy.equalsIgnoreCase("true")) {
+                    lazyRefProperties.add(propertyName);
+                } else if (!lazy.equalsIgnoreCase("false")) {
+                    throw new ParseContextException("Wrong lazy value " + lazy + " for property " + propertyName + " of bean " + beanDefinition.getId());
+                }
             }
         }
 
@@ -62,9 +130,75 @@ public class ContextHandler extends DefaultHandler {
                            String localName, String qName) {
         if (qName.equalsIgnoreCase("bean")) {
             bBean = false;
-            beanDefinition.setValueDependencies(valueDependencies);
-            beanDefinition.setRefDependencies(refDependencies);
-            beanDefinitions.put(beanDefinition.getId(), beanDefinition);
+            beanDefinition.setValueDependencies(PropertyMaps.of(valueDependencies, valueDependencyCount));
+            beanDefinition.setRefDependencies(PropertyMaps.of(refDependencies, refDependencyCount));
+            if (!lazyRefProperties.isEmpty()) {
+                beanDefinition.setLazyRefProperties(Collections.unmodifiableSet(new HashSet<>(lazyRefProperties)));
+            }
+            if (!constructorArguments.isEmpty()) {
+                beanDefinition.setConstructorArguments(Collections.unmodifiableList(new ArrayList<>(constructorArguments)));
+            }
+            if (beanDefinitionConsumer == null) {
+                beanDefinitions.put(beanDefinition.getId(), beanDefinition);
+            } else {
+                beanDefinitionConsumer.accept(beanDefinition);
+            }
+        }
+    }
+
+    private static String[] add(String[] namesAndValues, int index, String name, String value) {
+        if (index * 2 == namesAndValues.length) {
+            namesAndValues = Arrays.copyOf(namesAndValues, namesAndValues.length * 2);
+        }
+        namesAndValues[index * 2] = name;
+        namesAndValues[index * 2 + 1] = value;
+        return namesAndValues;
+    }
+
+    private Boolean parseLazyInit(String lazyInit) {
+        if (lazyInit == null || lazyInit.equalsIgnoreCase("default")) {
+            return null;
+        }
+        if (lazyInit.equalsIgnoreCase("true")) {
+            return true;
+        }
+        if (lazyInit.equalsIgnoreCase("false")) {
+            return false;
+        }
+        throw new ParseContextException("Wrong lazy-init value " + lazyInit + " for bean " + beanDefinition.getId());
+    }
+
+    private Scope parseScope(String scope) {
+        if (scope == null) {
+            return Scope.SINGLETON;
+        }
+        for (Scope value : Scope.values()) {
+            if (value.name().equalsIgnoreCase(scope)) {
+                return value;
+            }
+        }
+        throw new ParseContextException("Wrong scope " + scope + " for bean " + beanDefinition.getId());
+    }
+
+    private PoolSettings parsePoolSettings(Attributes attributes) {
+        String minSize = attributes.getValue("pool-min-size");
+        String maxSize = attributes.getValue("pool-max-size");
+        String maxIdle = attributes.getValue("pool-max-idle");
+        String maxWait = attributes.getValue("pool-max-wait");
+        if (minSize == null && maxSize == null && maxIdle == null && maxWait == null) {
+            return null;
+        }
+        if (beanDefinition.getScope() != Scope.POOLED) {
+            throw new ParseContextException("Pool settings for bean " + beanDefinition.getId() + " that is not pooled");
+        }
+        PoolSettings defaults = PoolSettings.DEFAULT;
+        try {
+            int max = maxSize == null ? defaults.getMaxSize() : Integer.parseInt(maxSize);
+            return new PoolSettings(minSize == null ? defaults.getMinSize() : Integer.parseInt(minSize), max,
+                    maxIdle == null ? max : Integer.parseInt(maxIdle),
+                    maxWait == null ? defaults.getMaxWaitMillis() : Long.parseLong(maxWait));
+        } catch (IllegalArgumentException e) {
+            throw new ParseContextException("Wrong pool settings for bean " + beanDefinition.getId() + ": " + e.getMessage());
         }
     }
 
@@ -2,48 +2,267 @@ package com.study.ioc.reader.sax;
 
 import com.study.ioc.entity.BeanDefinition;
 import com.study.ioc.exception.ParseContextException;
+import com.study.ioc.metrics.ContextMetricsListener;
 import com.study.ioc.reader.BeanDefinitionReader;
+import com.study.ioc.reader.DuplicateBeanPolicy;
+import com.study.ioc.reader.NameInterner;
+import com.study.ioc.reader.StreamingBeanDefinitionReader;
+import com.study.ioc.reader.cache.BeanDefinitionCache;
 import org.xml.sax.SAXException;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 import java.io.BufferedInputStream;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+public class XmlBeanDefinitionReader implements StreamingBeanDefinitionReader {
+    private static final ThreadLocal<SAXParser> SAX_PARSERS = ThreadLocal.withInitial(XmlBeanDefinitionReader::newSAXParser);
+    // parses running on the thread, a streaming parse creates beans that may read another context meanwhile
+    private static final ThreadLocal<int[]> PARSE_DEPTHS = ThreadLocal.withInitial(() -> new int[1]);
 
-public class XmlBeanDefinitionReader implements BeanDefinitionReader {
     private String[] paths;
+    private BeanDefinitionCache beanDefinitionCache;
+    private DuplicateBeanPolicy duplicateBeanPolicy = DuplicateBeanPolicy.LAST_WINS;
+    private ContextMetricsListener metricsListener = ContextMetricsListener.NOOP;
 
+    /**
+     * @param paths context files, looked up on the classpath first and then in the file system
+     */
     public XmlBeanDefinitionReader(String... paths) {
         this.paths = paths;
     }
 
+    /**
+     * Parses all paths in parallel and merges the results in the order of the paths, resolving ids defined
+     * in more than one file with the {@link DuplicateBeanPolicy}. Equal names are shared across all files.
+     */
     @Override
     public Map<String, BeanDefinition> getBeanDefinition() {
+        NameInterner names = new NameInterner();
+        List<Map<String, BeanDefinition>> beanDefinitionMaps = Arrays.stream(paths)
+                .parallel()
+                .map(path -> getTimedBeanDefinition(path, names))
+                .collect(Collectors.toList());
+
         Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
-        for (String path : paths) {
-            ClassLoader classLoader = getClass().getClassLoader();
-            try (InputStream inputStream = new BufferedInputStream(new FileInputStream(classLoader.getResource(path).getFile()))) {
-                beanDefinitionMap.putAll(getBeanDefinitionMap(inputStream));
-            } catch (IOException | ParserConfigurationException | SAXException e) {
-                throw new ParseContextException("Context parse failed for " + path);
+        Map<String, String> beanPaths = new HashMap<>();
+        for (int i = 0; i < paths.length; i++) {
+            for (BeanDefinition beanDefinition : beanDefinitionMaps.get(i).values()) {
+                String id = beanDefinition.getId();
+                String previousPath = beanPaths.putIfAbsent(id, paths[i]);
+                if (previousPath == null || duplicateBeanPolicy == DuplicateBeanPolicy.LAST_WINS) {
+                    beanDefinitionMap.put(id, beanDefinition);
+                } else if (duplicateBeanPolicy == DuplicateBeanPolicy.FAIL) {
+                    throw new ParseContextException("Bean " + id + " is defined in both " + previousPath + " and " + paths[i]);
+                }
             }
         }
         return beanDefinitionMap;
     }
 
+    /**
+     * Parses the paths one after another and passes each definition on when its element is closed. The binary
+     * cache is not used. A definition can't be taken back once passed on, so a repeated id fails with both
+     * {@link DuplicateBeanPolicy#FAIL} and {@link DuplicateBeanPolicy#LAST_WINS}.
+     */
+    @Override
+    public void readBeanDefinitions(Consumer<BeanDefinition> consumer) {
+        Map<String, String> beanPaths = new HashMap<>();
+        NameInterner names = new NameInterner();
+        for (String path : paths) {
+            long start = System.nanoTime();
+            ContextHandler handler = new ContextHandler(beanDefinition -> {
+                String previousPath = beanPaths.putIfAbsent(beanDefinition.getId(), path);
+                if (previousPath == null) {
+                    consumer.accept(beanDefinition);
+                } else if (duplicateBeanPolicy != DuplicateBeanPolicy.FIRST_WINS) {
+                    throw new ParseContextException("Bean " + beanDefinition.getId() + " is defined in both " + previousPath + " and " + path);
+                }
+            });
+            handler.setNameInterner(names);
+            try (InputStream inputStream = new BufferedInputStream(getResource(path).openStream())) {
+                parse(inputStream, handler);
+            } catch (IOException | SAXException e) {
+                throw new ParseContextException("Context parse failed for " + path, e);
+            }
+            metricsListener.onDefinitionsParsed(path, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Paths, sizes and modification times of the context files; {@code null} if one of them is not a plain file.
+     */
+    @Override
+    public String getSourceVersion() {
+        StringBuilder sourceVersion = new StringBuilder(duplicateBeanPolicy.name());
+        for (String path : paths) {
+            Path source = findFile(path);
+            if (source == null) {
+                return null;
+            }
+            try {
+                sourceVersion.append('\n').append(source).append(' ').append(Files.size(source))
+                        .append(' ').append(Files.getLastModifiedTime(source).toMillis());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return sourceVersion.toString();
+    }
+
+    public void setDuplicateBeanPolicy(DuplicateBeanPolicy duplicateBeanPolicy) {
+        this.duplicateBeanPolicy = duplicateBeanPolicy;
+    }
+
+    /**
+     * Enables the binary definition cache. Files parsed once are loaded from the cache on later reads
+     * until the source file changes.
+     */
+    public void setBeanDefinitionCache(BeanDefinitionCache beanDefinitionCache) {
+        this.beanDefinitionCache = beanDefinitionCache;
+    }
+
+    private Path getCacheableSource(URL resource) {
+        if (beanDefinitionCache == null || resource == null || !"file".equals(resource.getProtocol())) {
+            return null;
+        }
+        try {
+            return Paths.get(resource.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private void writeCache(Path source, Map<String, BeanDefinition> beanDefinitions) {
+        try {
+            beanDefinitionCache.write(source, beanDefinitions);
+        } catch (IOException e) {
+            // the cache is only a shortcut, the next read parses the source again
+        }
+    }
+
+    /**
+     * Receives the time spent reading each path, whether it was parsed or loaded from the cache.
+     */
+    public void setMetricsListener(ContextMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    private Map<String, BeanDefinition> getTimedBeanDefinition(String path, NameInterner names) {
+        if (metricsListener == ContextMetricsListener.NOOP) {
+            return getBeanDefinition(path, names);
+        }
+        long start = System.nanoTime();
+        Map<String, BeanDefinition> beanDefinitions = getBeanDefinition(path, names);
+        metricsListener.onDefinitionsParsed(path, System.nanoTime() - start);
+        return beanDefinitions;
+    }
+
+    private URL getResource(String path) {
+        URL resource = findResource(path);
+        if (resource == null) {
+            throw new ParseContextException("Context file " + path + " not found");
+        }
+        return resource;
+    }
+
+    /**
+     * The file a context path is read from, found the way the reader finds it: on the classpath, then in the file
+     * system. {@code null} if the path is not found or is no plain file, like an entry of a jar.
+     */
+    public static Path findFile(String path) {
+        URL resource = findResource(path);
+        if (resource == null || !"file".equals(resource.getProtocol())) {
+            return null;
+        }
+        try {
+            return Paths.get(resource.toURI());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static URL findResource(String path) {
+        URL resource = XmlBeanDefinitionReader.class.getClassLoader().getResource(path);
+        if (resource != null) {
+            return resource;
+        }
+        try {
+            Path file = Paths.get(path);
+            return Files.isRegularFile(file) ? file.toUri().toURL() : null;
+        } catch (InvalidPathException | MalformedURLException e) {
+            return null;
+        }
+    }
+
+    private Map<String, BeanDefinition> getBeanDefinition(String path, NameInterner names) {
+        URL resource = getResource(path);
+        Path source = getCacheableSource(resource);
+        if (source != null) {
+            Map<String, BeanDefinition> cachedBeanDefinitions = beanDefinitionCache.read(source, names);
+            if (cachedBeanDefinitions != null) {
+                return cachedBeanDefinitions;
+            }
+        }
+        try (InputStream inputStream = new BufferedInputStream(resource.openStream())) {
+            Map<String, BeanDefinition> parsedBeanDefinitions = getBeanDefinitionMap(inputStream, names);
+            if (source != null) {
+                writeCache(source, parsedBeanDefinitions);
+            }
+            return parsedBeanDefinitions;
+        } catch (IOException | ParserConfigurationException | SAXException e) {
+            throw new ParseContextException("Context parse failed for " + path, e);
+        }
+    }
 
     Map<String, BeanDefinition> getBeanDefinitionMap(InputStream inputStream) throws ParserConfigurationException, SAXException, IOException {
-        SAXParserFactory saxParserFactory = SAXParserFactory.newInstance();
-        SAXParser saxParser = saxParserFactory.newSAXParser();
+        return getBeanDefinitionMap(inputStream, new NameInterner());
+    }
+
+    private Map<String, BeanDefinition> getBeanDefinitionMap(InputStream inputStream, NameInterner names) throws ParserConfigurationException, SAXException, IOException {
         ContextHandler handler = new ContextHandler();
-        saxParser.parse(inputStream, handler);
+        handler.setNameInterner(names);
+        parse(inputStream, handler);
         return handler.getBeanDefinitions();
     }
 
+    /**
+     * Parses with the parser of the thread, or with a new one if the thread's parser is in the middle of a parse.
+     */
+    private static void parse(InputStream inputStream, ContextHandler handler) throws SAXException, IOException {
+        int[] parseDepth = PARSE_DEPTHS.get();
+        SAXParser saxParser = parseDepth[0] == 0 ? SAX_PARSERS.get() : newSAXParser();
+        parseDepth[0]++;
+        try {
+            saxParser.parse(inputStream, handler);
+        } finally {
+            parseDepth[0]--;
+            saxParser.reset();
+        }
+    }
+
+    private static SAXParser newSAXParser() {
+        try {
+            return SAXParserFactory.newInstance().newSAXParser();
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new ParseContextException("Can't create SAX parser", e);
+        }
+    }
+
 
 }
@@ -0,0 +1,44 @@
+package com.study.entity;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class CacheService {
+    public static final List<String> EVENTS = Collections.synchronizedList(new ArrayList<>());
+
+    private String name;
+    private CacheService source;
+    private volatile boolean initialized;
+    private boolean sourceInitializedFirst;
+
+    @PostConstruct
+    public void warmUp() {
+        sourceInitializedFirst = source == null || source.isInitialized();
+        initialized = true;
+        EVENTS.add("init " + name);
+    }
+
+    @PreDestroy
+    public void close() {
+        EVENTS.add("destroy " + name);
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public void setSource(CacheService source) {
+        this.source = source;
+    }
+
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    public boolean isSourceInitializedFirst() {
+        return sourceInitializedFirst;
+    }
+}
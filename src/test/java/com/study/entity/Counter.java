@@ -0,0 +1,9 @@
+package com.study.entity;
+
+public class Counter {
+    private int count;
+
+    public int increment() {
+        return ++count;
+    }
+}
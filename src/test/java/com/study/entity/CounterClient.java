@@ -0,0 +1,13 @@
+package com.study.entity;
+
+public class CounterClient {
+    private Counter counter;
+
+    public void setCounter(Counter counter) {
+        this.counter = counter;
+    }
+
+    public Counter getCounter() {
+        return counter;
+    }
+}
@@ -0,0 +1,29 @@
+package com.study.entity;
+
+public class MailClient {
+    private final IMailService mailService;
+    private final String host;
+    private final int timeout;
+
+    public MailClient(IMailService mailService, String host, int timeout) {
+        this.mailService = mailService;
+        this.host = host;
+        this.timeout = timeout;
+    }
+
+    public MailClient(String host) {
+        this(null, host, 0);
+    }
+
+    public IMailService getMailService() {
+        return mailService;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getTimeout() {
+        return timeout;
+    }
+}
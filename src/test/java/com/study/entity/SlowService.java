@@ -0,0 +1,11 @@
+package com.study.entity;
+
+import java.util.concurrent.CountDownLatch;
+
+public class SlowService {
+    public static volatile CountDownLatch release = new CountDownLatch(0);
+
+    public SlowService() throws InterruptedException {
+        release.await();
+    }
+}
@@ -0,0 +1,35 @@
+package com.study.entity.annotated;
+
+import com.study.entity.IMailService;
+import com.study.entity.User;
+import com.study.ioc.annotation.Component;
+import com.study.ioc.annotation.Value;
+
+@Component("annotatedMailService")
+public class AnnotatedMailService implements IMailService {
+    private String protocol;
+    private int port;
+
+    @Override
+    public void sendEmail(User user, String message) {
+        System.out.println("sending email with message: " + message);
+    }
+
+    @Value("SMTP")
+    public void setProtocol(String protocol) {
+        this.protocol = protocol;
+    }
+
+    @Value("587")
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public String getProtocol() {
+        return protocol;
+    }
+
+    public int getPort() {
+        return port;
+    }
+}
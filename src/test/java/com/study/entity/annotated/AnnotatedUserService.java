@@ -0,0 +1,25 @@
+package com.study.entity.annotated;
+
+import com.study.entity.IMailService;
+import com.study.entity.UserService;
+import com.study.ioc.annotation.Autowired;
+import com.study.ioc.annotation.Component;
+import com.study.ioc.entity.Scope;
+
+@Component(scope = Scope.PROTOTYPE)
+public class AnnotatedUserService implements UserService {
+    private IMailService mailService;
+
+    @Override
+    public void activateUsers() {
+    }
+
+    @Autowired
+    public void setMailService(IMailService mailService) {
+        this.mailService = mailService;
+    }
+
+    public IMailService getMailService() {
+        return mailService;
+    }
+}
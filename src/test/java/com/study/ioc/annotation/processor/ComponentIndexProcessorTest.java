@@ -0,0 +1,111 @@
+package com.study.ioc.annotation.processor;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.reader.annotation.ComponentIndex;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ComponentIndexProcessorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path sources;
+    private Path classes;
+
+    @Before
+    public void before() throws IOException {
+        sources = temporaryFolder.newFolder("sources").toPath();
+        classes = temporaryFolder.newFolder("classes").toPath();
+        // stand-ins for javax.inject, the processor only matches the annotation names
+        write("javax/inject/Inject.java", "package javax.inject;\n"
+                + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                + "public @interface Inject {}\n");
+        write("javax/inject/Named.java", "package javax.inject;\n"
+                + "@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)\n"
+                + "public @interface Named { String value() default \"\"; }\n");
+        write("app/Repository.java", "package app;\n"
+                + "@com.study.ioc.annotation.Component\n"
+                + "public class Repository {}\n");
+        write("app/Service.java", "package app;\n"
+                + "@com.study.ioc.annotation.Component\n"
+                + "public class Service {\n"
+                + "    @javax.inject.Inject public void setRepository(Repository repository) {}\n"
+                + "}\n");
+        write("app/Audit.java", "package app;\n"
+                + "@com.study.ioc.annotation.Component\n"
+                + "public class Audit {\n"
+                + "    @javax.inject.Inject public void setTarget(@javax.inject.Named(\"service\") Object target) {}\n"
+                + "}\n");
+    }
+
+    @Test
+    public void testInjectSetters() throws IOException {
+        compile("javax/inject/Inject.java", "javax/inject/Named.java", "app/Repository.java", "app/Service.java", "app/Audit.java");
+
+        Map<String, BeanDefinition> index = readIndex();
+
+        assertEquals(Collections.singletonMap("repository", "repository"), index.get("service").getRefDependencies());
+        assertEquals(Collections.singletonMap("target", "service"), index.get("audit").getRefDependencies());
+    }
+
+    @Test
+    public void testIncrementalCompilationKeepsOtherComponents() throws IOException {
+        compile("javax/inject/Inject.java", "javax/inject/Named.java", "app/Repository.java", "app/Service.java", "app/Audit.java");
+        write("app/Service.java", "package app;\n"
+                + "@com.study.ioc.annotation.Component\n"
+                + "public class Service {\n"
+                + "    @javax.inject.Inject public void setRepository(Repository repository) {}\n"
+                + "    @com.study.ioc.annotation.Value(\"30\") public void setTimeout(int timeout) {}\n"
+                + "}\n");
+
+        compile("app/Service.java");
+        Map<String, BeanDefinition> index = readIndex();
+
+        assertEquals(3, index.size());
+        assertEquals(Collections.singletonMap("timeout", "30"), index.get("service").getValueDependencies());
+        assertEquals(Collections.singletonMap("repository", "repository"), index.get("service").getRefDependencies());
+        assertEquals(Collections.singletonMap("target", "service"), index.get("audit").getRefDependencies());
+        assertEquals("app.Repository", index.get("repository").getClassName());
+    }
+
+    private void write(String path, String source) throws IOException {
+        Path file = sources.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void compile(String... paths) {
+        List<String> arguments = new ArrayList<>(Arrays.asList("-processor", ComponentIndexProcessor.class.getName(),
+                "-classpath", System.getProperty("java.class.path") + File.pathSeparator + classes, "-d", classes.toString()));
+        for (String path : paths) {
+            arguments.add(sources.resolve(path).toString());
+        }
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assertEquals(0, compiler.run(null, null, null, arguments.toArray(new String[0])));
+    }
+
+    private Map<String, BeanDefinition> readIndex() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(classes.resolve(ComponentIndex.LOCATION), StandardCharsets.UTF_8)) {
+            return ComponentIndex.read(reader);
+        }
+    }
+}
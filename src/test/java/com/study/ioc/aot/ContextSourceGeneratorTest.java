@@ -0,0 +1,205 @@
+package com.study.ioc.aot;
+
+import com.study.entity.CacheService;
+import com.study.entity.ConnectionSettings;
+import com.study.entity.DefaultUserService;
+import com.study.entity.IMailService;
+import com.study.entity.MailClient;
+import com.study.entity.MailService;
+import com.study.ioc.context.ApplicationContext;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.Scope;
+import com.study.ioc.exception.BeanInstantiationException;
+import com.study.ioc.exception.NoUniqueBeanOfTypeException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ContextSourceGeneratorTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testGeneratedContextFromXml() throws Exception {
+        Path sources = temporaryFolder.newFolder("sources").toPath();
+        Path file = ContextGenerator.generate(sources, "com.study.generated.MailContext", "context.xml");
+
+        ApplicationContext context = compileAndCreate(file, "com.study.generated.MailContext");
+
+        MailService mailServicePOP = context.getBean("mailServicePOP", MailService.class);
+        assertEquals(995, mailServicePOP.getPort());
+        assertEquals("POP3", mailServicePOP.getProtocol());
+        DefaultUserService userService = (DefaultUserService) context.getBean("userService");
+        assertSame(mailServicePOP, userService.getMailService());
+        assertSame(context.getBean("mailServiceIMAP"), ((DefaultUserService) context.getBean("userServiceImap")).getMailService());
+        assertEquals(2, context.getBeansOfType(IMailService.class).size());
+        assertEquals(4, context.getBeanNames().size());
+        assertNull(context.getBean("unknown"));
+        assertNull(context.getBean(String.class));
+    }
+
+    @Test(expected = NoUniqueBeanOfTypeException.class)
+    public void testGeneratedContextThrowsOnNonUniqueType() throws Exception {
+        Path sources = temporaryFolder.newFolder("sources").toPath();
+        Path file = ContextGenerator.generate(sources, "com.study.generated.MailContext", "context.xml");
+
+        compileAndCreate(file, "com.study.generated.MailContext").getBean(MailService.class);
+    }
+
+    @Test
+    public void testGeneratedContextWithConvertedValuesAndScopes() throws Exception {
+        Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>();
+        Map<String, String> values = new HashMap<>();
+        values.put("timeUnit", "SECONDS");
+        values.put("timeout", "PT5S");
+        values.put("rate", "0.75");
+        values.put("maxSize", "1024");
+        values.put("ratio", "0.5");
+        values.put("secure", "true");
+        values.put("separator", "\"");
+        values.put("retries", "3");
+        BeanDefinition settings = new BeanDefinition("connection-settings", ConnectionSettings.class.getName());
+        settings.setValueDependencies(values);
+        settings.setScope(Scope.PROTOTYPE);
+        beanDefinitions.put(settings.getId(), settings);
+
+        String source = new ContextSourceGenerator(getClass().getClassLoader()).generate(beanDefinitions, "", "SettingsContext");
+        Path file = temporaryFolder.newFolder("sources").toPath().resolve("SettingsContext.java");
+        java.nio.file.Files.write(file, source.getBytes("UTF-8"));
+
+        ApplicationContext context = compileAndCreate(file, "SettingsContext");
+
+        ConnectionSettings connectionSettings = context.getBean("connection-settings", ConnectionSettings.class);
+        assertEquals(TimeUnit.SECONDS, connectionSettings.getTimeUnit());
+        assertEquals(Duration.ofSeconds(5), connectionSettings.getTimeout());
+        assertEquals(new BigDecimal("0.75"), connectionSettings.getRate());
+        assertEquals(1024, connectionSettings.getMaxSize());
+        assertEquals(0.5, connectionSettings.getRatio(), 0);
+        assertTrue(connectionSettings.isSecure());
+        assertEquals('"', connectionSettings.getSeparator());
+        assertEquals(Integer.valueOf(3), connectionSettings.getRetries());
+        assertNotSame(connectionSettings, context.getBean("connection-settings"));
+    }
+
+    @Test
+    public void testGeneratedContextWithConstructorArguments() throws Exception {
+        Path sources = temporaryFolder.newFolder("sources").toPath();
+        Path file = ContextGenerator.generate(sources, "com.study.generated.ClientContext", "context-constructor.xml");
+
+        ApplicationContext context = compileAndCreate(file, "com.study.generated.ClientContext");
+
+        MailClient mailClient = context.getBean("mailClient", MailClient.class);
+        assertSame(context.getBean("mailServicePOP"), mailClient.getMailService());
+        assertEquals("pop.example.com", mailClient.getHost());
+        assertEquals(30, mailClient.getTimeout());
+        assertEquals("localhost", context.getBean("localClient", MailClient.class).getHost());
+        assertNotSame(context.getBean("localClient"), context.getBean("localClient"));
+    }
+
+    @Test
+    public void testGeneratedContextWithManyBeansInCycle() throws Exception {
+        int count = 10_000;
+        Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            BeanDefinition cacheService = new BeanDefinition("cache" + i, CacheService.class.getName());
+            cacheService.setValueDependencies(Collections.singletonMap("name", "cache" + i));
+            cacheService.setRefDependencies(Collections.singletonMap("source", "cache" + (i + 1) % count));
+            beanDefinitions.put(cacheService.getId(), cacheService);
+        }
+
+        String source = new ContextSourceGenerator(getClass().getClassLoader()).generate(beanDefinitions, "", "CacheContext");
+        Path file = temporaryFolder.newFolder("sources").toPath().resolve("CacheContext.java");
+        java.nio.file.Files.write(file, source.getBytes("UTF-8"));
+
+        ApplicationContext context = compileAndCreate(file, "CacheContext");
+
+        assertEquals(count, context.getBeanNames().size());
+        assertEquals(count, context.getBeansOfType(CacheService.class).size());
+        assertNotNull(context.getBean("cache0"));
+        assertNotNull(context.getBean("cache" + (count - 1), CacheService.class));
+        assertNull(context.getBean("cache" + count));
+    }
+
+    @Test
+    public void testGeneratedContextRunsLifecycleMethods() throws Exception {
+        Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>();
+        for (int i = 0; i < 3; i++) {
+            BeanDefinition cacheService = new BeanDefinition("cache" + i, CacheService.class.getName());
+            cacheService.setValueDependencies(Collections.singletonMap("name", "cache" + i));
+            if (i < 2) {
+                cacheService.setRefDependencies(Collections.singletonMap("source", "cache" + (i + 1)));
+            }
+            beanDefinitions.put(cacheService.getId(), cacheService);
+        }
+        BeanDefinition scopedCache = new BeanDefinition("scopedCache", CacheService.class.getName());
+        scopedCache.setValueDependencies(Collections.singletonMap("name", "scoped"));
+        scopedCache.setScope(Scope.PROTOTYPE);
+        beanDefinitions.put(scopedCache.getId(), scopedCache);
+        ContextSourceGenerator generator = new ContextSourceGenerator(getClass().getClassLoader());
+        generator.setLifecycleMethods(true);
+
+        String source = generator.generate(beanDefinitions, "", "LifecycleContext");
+        Path file = temporaryFolder.newFolder("sources").toPath().resolve("LifecycleContext.java");
+        java.nio.file.Files.write(file, source.getBytes("UTF-8"));
+        CacheService.EVENTS.clear();
+        ApplicationContext context = compileAndCreate(file, "LifecycleContext");
+
+        assertEquals(Arrays.asList("init cache2", "init cache1", "init cache0"), CacheService.EVENTS);
+        assertTrue(context.getBean("cache0", CacheService.class).isSourceInitializedFirst());
+        assertTrue(context.getBean("scopedCache", CacheService.class).isInitialized());
+        CacheService.EVENTS.clear();
+        ((Closeable) context).close();
+        ((Closeable) context).close();
+        assertEquals(Arrays.asList("destroy cache0", "destroy cache1", "destroy cache2"), CacheService.EVENTS);
+    }
+
+    @Test(expected = BeanInstantiationException.class)
+    public void testGenerateFailsOnPrivateLifecycleMethod() {
+        Map<String, BeanDefinition> beanDefinitions = new HashMap<>();
+        beanDefinitions.put("mailService", new BeanDefinition("mailService", MailService.class.getName()));
+        ContextSourceGenerator generator = new ContextSourceGenerator(getClass().getClassLoader());
+        generator.setLifecycleMethods(true);
+
+        generator.generate(beanDefinitions, "com.study.generated", "MailContext");
+    }
+
+    @Test(expected = BeanInstantiationException.class)
+    public void testGenerateFailsOnInvalidValue() {
+        Map<String, String> values = new HashMap<>();
+        values.put("port", "pop3");
+        BeanDefinition mailService = new BeanDefinition("mailService", MailService.class.getName());
+        mailService.setValueDependencies(values);
+        Map<String, BeanDefinition> beanDefinitions = new HashMap<>();
+        beanDefinitions.put("mailService", mailService);
+
+        new ContextSourceGenerator(getClass().getClassLoader()).generate(beanDefinitions, "com.study.generated", "BrokenContext");
+    }
+
+    private ApplicationContext compileAndCreate(Path sourceFile, String className) throws Exception {
+        Path classes = temporaryFolder.newFolder("classes").toPath();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        int result = compiler.run(null, null, null, "-classpath", System.getProperty("java.class.path"),
+                "-d", classes.toString(), sourceFile.toString());
+        assertEquals(0, result);
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, getClass().getClassLoader());
+        return (ApplicationContext) classLoader.loadClass(className).getDeclaredConstructor().newInstance();
+    }
+}
@@ -0,0 +1,246 @@
+package com.study.ioc.context.impl;
+
+import com.study.entity.CacheService;
+import com.study.entity.DefaultUserService;
+import com.study.entity.MailService;
+import com.study.ioc.context.ContextConfig;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.Scope;
+import com.study.ioc.exception.PostProcessBeanFactoryException;
+import com.study.ioc.exception.ProcessPostConstructException;
+import com.study.ioc.processor.BeanPostProcessor;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class BeanInitializerTest {
+
+    @Before
+    public void before() {
+        CacheService.EVENTS.clear();
+    }
+
+    @Test
+    public void testPostConstructRunsOnlyWhenEnabled() {
+        assertEquals(995, new GenericApplicationContext("context.xml").getBean("mailServicePOP", MailService.class).getPort());
+
+        ContextConfig config = new ContextConfig();
+        config.setLifecycleMethods(true);
+        GenericApplicationContext context = new GenericApplicationContext(new XmlBeanDefinitionReader("context.xml"), config);
+
+        assertEquals(1990, context.getBean("mailServicePOP", MailService.class).getPort());
+    }
+
+    @Test
+    public void testInitializationFollowsRefs() {
+        ContextConfig config = new ContextConfig();
+        config.setLifecycleMethods(true);
+        GenericApplicationContext context = new GenericApplicationContext(() -> cacheChain(3), config);
+
+        assertEquals(Arrays.asList("init cache0", "init cache1", "init cache2"), CacheService.EVENTS);
+        context.close();
+        assertEquals(Arrays.asList("init cache0", "init cache1", "init cache2", "destroy cache2", "destroy cache1", "destroy cache0"), CacheService.EVENTS);
+    }
+
+    @Test
+    public void testParallelInitializationFollowsRefs() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Map<String, BeanDefinition> beanDefinitions = cacheChain(20);
+            for (int i = 0; i < 20; i++) {
+                beanDefinitions.put("independent" + i, cacheDefinition("independent" + i, null));
+            }
+            ContextConfig config = new ContextConfig();
+            config.setLifecycleMethods(true);
+            config.setInitExecutor(executor);
+            GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitions, config);
+
+            assertEquals(40, CacheService.EVENTS.size());
+            for (CacheService cacheService : context.getBeansOfType(CacheService.class).values()) {
+                assertTrue(cacheService.isInitialized());
+                assertTrue(cacheService.isSourceInitializedFirst());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelContextWithRefCycle() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Map<String, BeanDefinition> beanDefinitions = new HashMap<>();
+            beanDefinitions.put("cacheA", cacheDefinition("cacheA", "cacheC"));
+            beanDefinitions.put("cacheB", cacheDefinition("cacheB", "cacheA"));
+            beanDefinitions.put("cacheC", cacheDefinition("cacheC", "cacheB"));
+            beanDefinitions.put("cacheD", cacheDefinition("cacheD", "cacheC"));
+            ContextConfig config = new ContextConfig();
+            config.setLifecycleMethods(true);
+            config.setExecutor(executor);
+            config.setInitExecutor(executor);
+            GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitions, config);
+
+            assertEquals(4, CacheService.EVENTS.size());
+            assertEquals("init cacheD", CacheService.EVENTS.get(3));
+            assertTrue(context.getBean("cacheD", CacheService.class).isSourceInitializedFirst());
+            for (CacheService cacheService : context.getBeansOfType(CacheService.class).values()) {
+                assertTrue(cacheService.isInitialized());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelContextWithLongChain() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            ContextConfig config = new ContextConfig();
+            config.setLifecycleMethods(true);
+            config.setExecutor(executor);
+            config.setInitExecutor(executor);
+            GenericApplicationContext context = new GenericApplicationContext(() -> cacheChain(20_000), config);
+
+            assertEquals(20_000, CacheService.EVENTS.size());
+            assertEquals("init cache0", CacheService.EVENTS.get(0));
+            assertTrue(context.getBean("cache19999", CacheService.class).isSourceInitializedFirst());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPrototypeInstancesAreInitialized() {
+        BeanDefinition beanDefinition = cacheDefinition("cache", null);
+        beanDefinition.setScope(Scope.PROTOTYPE);
+        ContextConfig config = new ContextConfig();
+        config.setLifecycleMethods(true);
+        GenericApplicationContext context = new GenericApplicationContext(() -> Collections.singletonMap("cache", beanDefinition), config);
+
+        assertTrue(context.getBean("cache", CacheService.class).isInitialized());
+        assertTrue(context.getBean("cache", CacheService.class).isInitialized());
+        assertEquals(2, CacheService.EVENTS.size());
+    }
+
+    @Test
+    public void testPostProcessors() {
+        List<String> processedIds = new ArrayList<>();
+        MailService replacement = new MailService();
+        ContextConfig config = new ContextConfig();
+        config.addBeanFactoryPostProcessor(beanDefinitions -> beanDefinitions.get("mailServicePOP")
+                .setValueDependencies(Collections.singletonMap("port", "110")));
+        config.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanId) {
+                processedIds.add(beanId);
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanId) {
+                return beanId.equals("mailServiceIMAP") ? replacement : bean;
+            }
+        });
+
+        GenericApplicationContext context = new GenericApplicationContext(new XmlBeanDefinitionReader("context.xml"), config);
+
+        assertEquals(110, context.getBean("mailServicePOP", MailService.class).getPort());
+        assertSame(replacement, context.getBean("mailServiceIMAP"));
+        assertEquals(4, processedIds.size());
+        assertTrue(processedIds.indexOf("mailServicePOP") < processedIds.indexOf("userService"));
+    }
+
+    @Test
+    public void testBeanFactoryPostProcessorChangesPropertiesInPlace() {
+        ContextConfig config = new ContextConfig();
+        config.addBeanFactoryPostProcessor(beanDefinitions -> {
+            beanDefinitions.get("mailServicePOP").getValueDependencies().put("port", "110");
+            beanDefinitions.get("userService").getRefDependencies().put("mailService", "mailServiceIMAP");
+        });
+
+        GenericApplicationContext context = new GenericApplicationContext(new XmlBeanDefinitionReader("context.xml"), config);
+
+        assertEquals(110, context.getBean("mailServicePOP", MailService.class).getPort());
+        assertSame(context.getBean("mailServiceIMAP"), context.getBean("userService", DefaultUserService.class).getMailService());
+    }
+
+    @Test(expected = PostProcessBeanFactoryException.class)
+    public void testFailingBeanFactoryPostProcessor() {
+        ContextConfig config = new ContextConfig();
+        config.addBeanFactoryPostProcessor(beanDefinitions -> {
+            throw new IllegalStateException("broken");
+        });
+        new GenericApplicationContext(new XmlBeanDefinitionReader("context.xml"), config);
+    }
+
+    @Test(expected = ProcessPostConstructException.class)
+    public void testFailingPostConstruct() {
+        ContextConfig config = new ContextConfig();
+        config.setLifecycleMethods(true);
+        BeanDefinition beanDefinition = new BeanDefinition("failing", FailingService.class.getName());
+        new GenericApplicationContext(() -> Collections.singletonMap("failing", beanDefinition), config);
+    }
+
+    @Test
+    public void testOverriddenPostConstructRunsOnce() {
+        ContextConfig config = new ContextConfig();
+        config.setLifecycleMethods(true);
+        BeanDefinition beanDefinition = new BeanDefinition("counting", OverridingService.class.getName());
+
+        GenericApplicationContext context = new GenericApplicationContext(() -> Collections.singletonMap("counting", beanDefinition), config);
+
+        assertEquals(1, context.getBean("counting", OverridingService.class).initCalls);
+    }
+
+    private static Map<String, BeanDefinition> cacheChain(int length) {
+        Map<String, BeanDefinition> beanDefinitions = new HashMap<>();
+        for (int i = 0; i < length; i++) {
+            beanDefinitions.put("cache" + i, cacheDefinition("cache" + i, i == 0 ? null : "cache" + (i - 1)));
+        }
+        return beanDefinitions;
+    }
+
+    private static BeanDefinition cacheDefinition(String id, String sourceId) {
+        BeanDefinition beanDefinition = new BeanDefinition(id, CacheService.class.getName());
+        beanDefinition.setValueDependencies(Collections.singletonMap("name", id));
+        if (sourceId != null) {
+            beanDefinition.setRefDependencies(Collections.singletonMap("source", sourceId));
+        }
+        return beanDefinition;
+    }
+
+    public static class FailingService {
+        @javax.annotation.PostConstruct
+        void init() {
+            throw new IllegalStateException("can't connect");
+        }
+    }
+
+    public static class CountingService {
+        int initCalls;
+
+        @javax.annotation.PostConstruct
+        public void init() {
+            initCalls++;
+        }
+    }
+
+    public static class OverridingService extends CountingService {
+        @Override
+        @javax.annotation.PostConstruct
+        public void init() {
+            super.init();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.study.ioc.context.impl;
+
+import com.study.entity.CacheService;
+import com.study.entity.DefaultUserService;
+import com.study.entity.MailService;
+import com.study.entity.SlowService;
+import com.study.ioc.context.ApplicationContext;
+import com.study.ioc.context.ContextConfig;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.exception.BeanInstantiationException;
+import com.study.ioc.exception.NoSuchBeanDefinitionException;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ContextBootstrapTest {
+
+    @After
+    public void after() {
+        SlowService.release.countDown();
+    }
+
+    @Test
+    public void testStart() throws Exception {
+        ContextBootstrap bootstrap = ContextBootstrap.start("context.xml");
+        ApplicationContext context = bootstrap.getContext().get(5, TimeUnit.SECONDS);
+
+        GenericApplicationContext expected = new GenericApplicationContext("context.xml");
+        assertEquals(expected.getBeanNames().size(), context.getBeanNames().size());
+        assertSame(context.getBean("userService"), bootstrap.getBean("userService").get());
+        assertSame(context.getBean("userService", DefaultUserService.class).getMailService(), bootstrap.getBean("mailServicePOP", MailService.class).get());
+        assertNull(bootstrap.getBean("undefined").get());
+    }
+
+    @Test
+    public void testWiredBeansAreAvailableBeforeStart() throws Exception {
+        SlowService.release = new CountDownLatch(1);
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        beanDefinitionMap.put("mailServicePOP", new BeanDefinition("mailServicePOP", "com.study.entity.MailService"));
+        BeanDefinition userServiceDefinition = new BeanDefinition("userService", "com.study.entity.DefaultUserService");
+        userServiceDefinition.setRefDependencies(Collections.singletonMap("mailService", "mailServicePOP"));
+        beanDefinitionMap.put("userService", userServiceDefinition);
+        beanDefinitionMap.put("slowService", new BeanDefinition("slowService", "com.study.entity.SlowService"));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ContextConfig config = new ContextConfig();
+            config.setExecutor(executor);
+            ContextBootstrap bootstrap = ContextBootstrap.start(() -> beanDefinitionMap, config);
+
+            DefaultUserService userService = bootstrap.getBean("userService", DefaultUserService.class).get(5, TimeUnit.SECONDS);
+            assertNotNull(userService.getMailService());
+            assertSame(userService, bootstrap.getEarlyContext().getBean("userService"));
+            assertNull(bootstrap.getEarlyContext().getBean("slowService"));
+            assertFalse(bootstrap.getContext().isDone());
+
+            SlowService.release.countDown();
+            ApplicationContext context = bootstrap.getContext().get(5, TimeUnit.SECONDS);
+            assertNotNull(context.getBean(SlowService.class));
+            assertSame(context.getBean("slowService"), bootstrap.getBean("slowService").get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testInitializedBeansAreAvailableAfterStart() throws Exception {
+        CacheService.EVENTS.clear();
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        BeanDefinition cacheDefinition = new BeanDefinition("cache", "com.study.entity.CacheService");
+        cacheDefinition.setValueDependencies(Collections.singletonMap("name", "cache"));
+        beanDefinitionMap.put("cache", cacheDefinition);
+        ContextConfig config = new ContextConfig();
+        config.setLifecycleMethods(true);
+
+        ContextBootstrap bootstrap = ContextBootstrap.start(() -> beanDefinitionMap, config);
+
+        assertTrue(bootstrap.getBean("cache", CacheService.class).get(5, TimeUnit.SECONDS).isInitialized());
+        assertTrue(bootstrap.getContext().isDone());
+    }
+
+    @Test
+    public void testFailedStart() throws Exception {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        beanDefinitionMap.put("mailServicePOP", new BeanDefinition("mailServicePOP", "com.study.entity.MailService"));
+        beanDefinitionMap.put("brokenService", new BeanDefinition("brokenService", "com.study.entity.TestClass"));
+        ContextBootstrap bootstrap = ContextBootstrap.start(() -> beanDefinitionMap, new ContextConfig());
+        CompletableFuture<Object> brokenService = bootstrap.getBean("brokenService");
+
+        try {
+            bootstrap.getContext().get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof BeanInstantiationException);
+        }
+        try {
+            brokenService.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof BeanInstantiationException);
+        }
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testRejectedStart() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        ContextConfig config = new ContextConfig();
+        config.setExecutor(executor);
+
+        ContextBootstrap.start(new XmlBeanDefinitionReader("context.xml"), config);
+    }
+
+    @Test
+    public void testGetBeanOfWrongType() throws Exception {
+        ContextBootstrap bootstrap = ContextBootstrap.start(new XmlBeanDefinitionReader("context.xml"), new ContextConfig());
+        try {
+            bootstrap.getBean("userService", MailService.class).get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof NoSuchBeanDefinitionException);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.study.ioc.context.impl;
+
+import com.study.entity.ConnectionSettings;
+import com.study.entity.DefaultUserService;
+import com.study.entity.MailService;
+import com.study.ioc.context.ContextConfig;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.Scope;
+import com.study.ioc.reader.BeanDefinitionReader;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ContextSnapshotTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReplaySkipsReading() throws Exception {
+        Path snapshotFile = temporaryFolder.getRoot().toPath().resolve("context.snapshot");
+        ContextConfig config = new ContextConfig();
+        config.setSnapshotFile(snapshotFile);
+        new GenericApplicationContext(new XmlBeanDefinitionReader("context.xml"), config);
+        assertTrue(Files.isRegularFile(snapshotFile));
+
+        XmlBeanDefinitionReader xmlReader = new XmlBeanDefinitionReader("context.xml");
+        CountingReader reader = new CountingReader(xmlReader, xmlReader.getSourceVersion());
+        GenericApplicationContext context = new GenericApplicationContext(reader, config);
+
+        assertEquals(0, reader.reads.get());
+        assertEquals(4, context.getBeanNames().size());
+        MailService mailServicePOP = context.getBean("mailServicePOP", MailService.class);
+        assertEquals(995, mailServicePOP.getPort());
+        assertEquals("POP3", mailServicePOP.getProtocol());
+        assertSame(mailServicePOP, context.getBean("userService", DefaultUserService.class).getMailService());
+        assertEquals(2, context.getBeansOfType(DefaultUserService.class).size());
+    }
+
+    @Test
+    public void testReplayConvertedValuesScopesAndLazyBeans() {
+        Map<String, BeanDefinition> beanDefinitions = new HashMap<>();
+        Map<String, String> values = new HashMap<>();
+        values.put("timeUnit", "SECONDS");
+        values.put("timeout", "PT5S");
+        values.put("rate", "0.75");
+        values.put("maxSize", "1024");
+        values.put("secure", "true");
+        BeanDefinition settings = new BeanDefinition("settings", ConnectionSettings.class.getName());
+        settings.setValueDependencies(values);
+        beanDefinitions.put("settings", settings);
+        BeanDefinition prototype = new BeanDefinition("prototypeService", MailService.class.getName());
+        prototype.setScope(Scope.PROTOTYPE);
+        prototype.setValueDependencies(Collections.singletonMap("port", "25"));
+        beanDefinitions.put("prototypeService", prototype);
+        BeanDefinition lazy = new BeanDefinition("lazyService", MailService.class.getName());
+        lazy.setLazyInit(true);
+        lazy.setValueDependencies(Collections.singletonMap("port", "110"));
+        beanDefinitions.put("lazyService", lazy);
+        ContextConfig config = new ContextConfig();
+        config.setSnapshotFile(temporaryFolder.getRoot().toPath().resolve("context.snapshot"));
+        CountingReader reader = new CountingReader(() -> beanDefinitions, "v1");
+        new GenericApplicationContext(reader, config);
+
+        GenericApplicationContext context = new GenericApplicationContext(reader, config);
+
+        assertEquals(1, reader.reads.get());
+        ConnectionSettings connectionSettings = context.getBean(ConnectionSettings.class);
+        assertEquals(TimeUnit.SECONDS, connectionSettings.getTimeUnit());
+        assertEquals(Duration.ofSeconds(5), connectionSettings.getTimeout());
+        assertEquals(new BigDecimal("0.75"), connectionSettings.getRate());
+        assertEquals(1024, connectionSettings.getMaxSize());
+        assertTrue(connectionSettings.isSecure());
+        assertNotSame(context.getBean("prototypeService"), context.getBean("prototypeService"));
+        assertEquals(25, context.getBean("prototypeService", MailService.class).getPort());
+        assertEquals(110, context.getBean("lazyService", MailService.class).getPort());
+    }
+
+    @Test
+    public void testChangedSourceVersionReadsDefinitions() {
+        ContextConfig config = new ContextConfig();
+        config.setSnapshotFile(temporaryFolder.getRoot().toPath().resolve("context.snapshot"));
+        new GenericApplicationContext(new CountingReader(new XmlBeanDefinitionReader("context.xml"), "v1"), config);
+
+        CountingReader reader = new CountingReader(new XmlBeanDefinitionReader("context-mail.xml"), "v2");
+        GenericApplicationContext context = new GenericApplicationContext(reader, config);
+
+        assertEquals(1, reader.reads.get());
+        assertEquals(110, context.getBean("mailServicePOP", MailService.class).getPort());
+        assertNull(context.getBean("userService"));
+    }
+
+    @Test
+    public void testCorruptSnapshotIsIgnored() throws Exception {
+        Path snapshotFile = temporaryFolder.newFile("context.snapshot").toPath();
+        Files.write(snapshotFile, new byte[]{1, 2, 3});
+        ContextConfig config = new ContextConfig();
+        config.setSnapshotFile(snapshotFile);
+
+        GenericApplicationContext context = new GenericApplicationContext(new CountingReader(new XmlBeanDefinitionReader("context.xml"), "v1"), config);
+
+        assertEquals(995, context.getBean("mailServicePOP", MailService.class).getPort());
+    }
+
+    @Test
+    public void testSnapshotWithOtherClassesIsRejected() throws Exception {
+        Path snapshotFile = temporaryFolder.newFile("context.snapshot").toPath();
+        writeSnapshot(snapshotFile, "v1", "mailServicePOP", false, new Gadget());
+        ContextConfig config = new ContextConfig();
+        config.setSnapshotFile(snapshotFile);
+        CountingReader reader = new CountingReader(new XmlBeanDefinitionReader("context.xml"), "v1");
+
+        GenericApplicationContext context = new GenericApplicationContext(reader, config);
+
+        assertFalse(Gadget.deserialized);
+        assertEquals(1, reader.reads.get());
+        assertEquals("POP3", context.getBean("mailServicePOP", MailService.class).getProtocol());
+    }
+
+    @Test
+    public void testFailedReplayDoesNotPublishBeans() throws Exception {
+        Path snapshotFile = temporaryFolder.newFile("context.snapshot").toPath();
+        writeSnapshot(snapshotFile, "v1", "unknown", true, null);
+        GenericApplicationContext context = new GenericApplicationContext();
+
+        assertFalse(new ContextSnapshot(snapshotFile).replay(context, "v1"));
+        assertTrue(context.getBeanNames().isEmpty());
+        assertNull(context.getBean("mailServicePOP"));
+    }
+
+    /**
+     * A snapshot with a single mail service whose protocol is set to the given value or ref.
+     */
+    private static void writeSnapshot(Path file, String sourceVersion, String refId, boolean ref, Object value) throws Exception {
+        try (ObjectOutputStream output = new ObjectOutputStream(Files.newOutputStream(file))) {
+            output.writeInt(0x494f4353);
+            output.writeInt(1);
+            output.writeUTF(sourceVersion);
+            output.writeInt(0);
+            output.writeInt(0);
+            output.writeInt(1);
+            output.writeUTF("mailServicePOP");
+            output.writeUTF(MailService.class.getName());
+            output.writeInt(1);
+            output.writeUTF(MailService.class.getName());
+            output.writeUTF("setProtocol");
+            output.writeUTF(String.class.getName());
+            output.writeBoolean(ref);
+            if (ref) {
+                output.writeUTF(refId);
+            } else {
+                output.writeObject(value);
+            }
+        }
+    }
+
+    public static class Gadget implements Serializable {
+        static volatile boolean deserialized;
+
+        private void readObject(ObjectInputStream input) throws IOException, ClassNotFoundException {
+            input.defaultReadObject();
+            deserialized = true;
+        }
+    }
+
+    private static class CountingReader implements BeanDefinitionReader {
+        private final BeanDefinitionReader reader;
+        private final String sourceVersion;
+        private final AtomicInteger reads = new AtomicInteger();
+
+        private CountingReader(BeanDefinitionReader reader, String sourceVersion) {
+            this.reader = reader;
+            this.sourceVersion = sourceVersion;
+        }
+
+        @Override
+        public Map<String, BeanDefinition> getBeanDefinition() {
+            reads.incrementAndGet();
+            return reader.getBeanDefinition();
+        }
+
+        @Override
+        public String getSourceVersion() {
+            return sourceVersion;
+        }
+    }
+}
@@ -1,20 +1,44 @@
 package com.study.ioc.context.impl;
 
+import com.study.entity.Counter;
+import com.study.entity.CounterClient;
 import com.study.entity.DefaultUserService;
+import com.study.entity.IMailService;
+import com.study.entity.MailClient;
 import com.study.entity.MailService;
+import com.study.entity.User;
+import com.study.entity.UserService;
+import com.study.ioc.context.BeanHandle;
+import com.study.ioc.context.ContextConfig;
 import com.study.ioc.entity.Bean;
 import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.entity.Scope;
 import com.study.ioc.exception.BeanInstantiationException;
+import com.study.ioc.exception.BeanPoolExhaustedException;
+import com.study.ioc.exception.CircularDependencyException;
 import com.study.ioc.exception.NoSuchBeanDefinitionException;
 import com.study.ioc.exception.NoUniqueBeanOfTypeException;
+import com.study.ioc.metrics.BeanPoolMetrics;
+import com.study.ioc.metrics.RecordingMetricsListener;
+import com.study.ioc.proxy.LazyProxies;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -27,6 +51,385 @@ public class GenericApplicationContextTest {
         genericApplicationContext = new GenericApplicationContext();
     }
 
+    @Test
+    public void testContextFromXml() {
+        GenericApplicationContext context = new GenericApplicationContext("context.xml");
+        assertEquals(4, context.getBeanNames().size());
+        MailService mailServicePOP = context.getBean("mailServicePOP", MailService.class);
+        assertEquals(995, mailServicePOP.getPort());
+        assertEquals("POP3", mailServicePOP.getProtocol());
+        DefaultUserService userService = context.getBean("userService", DefaultUserService.class);
+        assertSame(mailServicePOP, userService.getMailService());
+        assertEquals(2, context.getBeansOfType(UserService.class).size());
+    }
+
+    @Test
+    public void testContextFromXmlOnExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            GenericApplicationContext context = new GenericApplicationContext(new XmlBeanDefinitionReader("context.xml"), executor);
+            assertEquals(4, context.getBeanNames().size());
+            MailService mailServiceIMAP = context.getBean("mailServiceIMAP", MailService.class);
+            assertEquals(143, mailServiceIMAP.getPort());
+            assertSame(mailServiceIMAP, context.getBean("userServiceImap", DefaultUserService.class).getMailService());
+            assertEquals(context.getBeanNames().size(), context.getBeanCreationTimes().size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testStreamingContext() {
+        ContextConfig config = new ContextConfig();
+        config.setStreaming(true);
+        GenericApplicationContext context = new GenericApplicationContext(new XmlBeanDefinitionReader("context-streaming.xml"), config);
+
+        assertEquals(6, context.getBeanNames().size());
+        MailService mailServicePOP = context.getBean("mailServicePOP", MailService.class);
+        assertEquals(995, mailServicePOP.getPort());
+        assertSame(mailServicePOP, context.getBean("userService", DefaultUserService.class).getMailService());
+        MailService mailServiceSMTP = (MailService) context.getBean("userServiceSmtp", DefaultUserService.class).getMailService();
+        assertEquals("SMTP", mailServiceSMTP.getProtocol());
+        assertSame(mailServiceSMTP, context.getBean("mailServiceSMTP"));
+        DefaultUserService prototype = context.getBean("userServicePrototype", DefaultUserService.class);
+        assertSame(mailServicePOP, prototype.getMailService());
+        assertEquals(143, context.getBean("mailServiceIMAP", MailService.class).getPort());
+        assertEquals(3, context.getBeansOfType(MailService.class).size());
+    }
+
+    @Test(expected = BeanInstantiationException.class)
+    public void testStreamingContextWithUndefinedRef() {
+        BeanDefinition userServiceDefinition = new BeanDefinition("userService", "com.study.entity.DefaultUserService");
+        userServiceDefinition.setRefDependencies(Collections.singletonMap("mailService", "mailServicePOP"));
+        StreamingBeanCreator beanCreator = new StreamingBeanCreator(genericApplicationContext, new HashMap<>(), false, false);
+
+        beanCreator.accept(userServiceDefinition);
+        beanCreator.finish();
+    }
+
+    @Test
+    public void testRegisterBean() {
+        GenericApplicationContext context = new GenericApplicationContext("context.xml");
+        List<String> beanNames = context.getBeanNames();
+        assertSame(beanNames, context.getBeanNames());
+        long version = context.getTypeIndexVersion();
+
+        MailService mailServiceSMTP = new MailService();
+        context.registerBean("mailServiceSMTP", mailServiceSMTP);
+
+        assertSame(mailServiceSMTP, context.getBean("mailServiceSMTP"));
+        assertEquals(3, context.getBeansOfType(IMailService.class).size());
+        assertEquals(5, context.getBeanNames().size());
+        assertEquals(4, beanNames.size());
+        assertTrue(context.getTypeIndexVersion() > version);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterBeanWithExistingId() {
+        new GenericApplicationContext("context.xml").registerBean("mailServicePOP", new MailService());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testBeanNamesAreReadOnly() {
+        new GenericApplicationContext("context.xml").getBeanNames().add("mailServiceSMTP");
+    }
+
+    @Test
+    public void testRemoveBean() {
+        GenericApplicationContext context = new GenericApplicationContext("context.xml");
+
+        assertTrue(context.removeBean("mailServiceIMAP"));
+        assertFalse(context.removeBean("mailServiceIMAP"));
+
+        assertNull(context.getBean("mailServiceIMAP"));
+        assertSame(context.getBean("mailServicePOP"), context.getBean(MailService.class));
+        assertEquals(3, context.getBeanNames().size());
+    }
+
+    @Test
+    public void testRemoveLazyBean() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        beanDefinitionMap.put("mailServicePOP", new BeanDefinition("mailServicePOP", "com.study.entity.MailService"));
+        beanDefinitionMap.put("mailServiceIMAP", new BeanDefinition("mailServiceIMAP", "com.study.entity.MailService"));
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap, true);
+        assertEquals(2, context.getBeansOfType(MailService.class).size());
+
+        assertTrue(context.removeBean("mailServiceIMAP"));
+        assertTrue(context.removeBean("mailServicePOP"));
+
+        assertNull(context.getBean("mailServiceIMAP"));
+        assertNull(context.getBean(MailService.class));
+        assertTrue(context.getBeanNames().isEmpty());
+    }
+
+    @Test
+    public void testBeanHandle() {
+        GenericApplicationContext context = new GenericApplicationContext("context.xml");
+        BeanHandle<MailService> handle = context.handle("mailServicePOP", MailService.class);
+        BeanHandle<User> undefinedHandle = context.handle("user", User.class);
+        MailService mailService = handle.get();
+        assertSame(context.getBean("mailServicePOP"), mailService);
+        assertSame(mailService, handle.get());
+        assertNull(undefinedHandle.get());
+
+        User user = new User();
+        context.registerBean("user", user);
+        assertSame(user, undefinedHandle.get());
+        assertSame(mailService, handle.get());
+
+        assertTrue(context.removeBean("mailServicePOP"));
+        assertNull(handle.get());
+        MailService newMailService = new MailService();
+        context.registerBean("mailServicePOP", newMailService);
+        assertSame(newMailService, handle.get());
+    }
+
+    @Test
+    public void testBeanHandleOfScopedBean() {
+        BeanDefinition prototypeDefinition = new BeanDefinition("mailService", "com.study.entity.MailService");
+        prototypeDefinition.setScope(Scope.PROTOTYPE);
+        GenericApplicationContext context = new GenericApplicationContext(() -> Collections.singletonMap("mailService", prototypeDefinition));
+        BeanHandle<MailService> handle = context.handle("mailService", MailService.class);
+
+        assertNotSame(handle.get(), handle.get());
+    }
+
+    @Test(expected = NoSuchBeanDefinitionException.class)
+    public void testBeanHandleOfWrongType() {
+        new GenericApplicationContext("context.xml").handle("mailServicePOP", User.class).get();
+    }
+
+    @Test
+    public void testRegisterBeanWhileReading() throws Exception {
+        GenericApplicationContext context = new GenericApplicationContext("context.xml");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> readers = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                readers.add(executor.submit(() -> {
+                    for (int j = 0; j < 10_000; j++) {
+                        assertNotNull(context.getBean("mailServicePOP"));
+                        assertTrue(context.getBeanNames().size() >= 4);
+                    }
+                }));
+            }
+            for (int i = 0; i < 100; i++) {
+                context.registerBean("mailService" + i, new MailService());
+            }
+            for (Future<?> reader : readers) {
+                reader.get();
+            }
+            assertEquals(104, context.getBeanNames().size());
+            assertEquals(102, context.getBeansOfType(MailService.class).size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testChildContext() {
+        GenericApplicationContext parent = new GenericApplicationContext("context-mail.xml");
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        BeanDefinition userServiceDefinition = new BeanDefinition("userService", "com.study.entity.DefaultUserService");
+        userServiceDefinition.setRefDependencies(Collections.singletonMap("mailService", "mailServiceSMTP"));
+        beanDefinitionMap.put("userService", userServiceDefinition);
+        beanDefinitionMap.put("mailServicePOP", new BeanDefinition("mailServicePOP", "com.study.entity.MailService"));
+        ContextConfig config = new ContextConfig();
+        config.setParent(parent);
+
+        GenericApplicationContext child = new GenericApplicationContext(() -> beanDefinitionMap, config);
+
+        assertSame(parent.getBean("mailServiceSMTP"), child.getBean("mailServiceSMTP"));
+        assertSame(parent.getBean("mailServiceSMTP"), child.getBean(DefaultUserService.class).getMailService());
+        assertNotSame(parent.getBean("mailServicePOP"), child.getBean("mailServicePOP"));
+        assertEquals(2, child.getBeansOfType(MailService.class).size());
+        assertEquals(2, child.getBeanNames().size());
+
+        assertNull(child.getBean("mailServiceIMAP"));
+        assertNull(child.getBean(User.class));
+        MailService mailServiceIMAP = new MailService();
+        parent.registerBean("mailServiceIMAP", mailServiceIMAP);
+        User user = new User();
+        parent.registerBean("user", user);
+        assertSame(mailServiceIMAP, child.getBean("mailServiceIMAP"));
+        assertSame(user, child.getBean(User.class));
+    }
+
+    @Test
+    public void testLazyContext() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        BeanDefinition mailServiceDefinition = new BeanDefinition("mailServicePOP", "com.study.entity.MailService");
+        mailServiceDefinition.setValueDependencies(Collections.singletonMap("port", "110"));
+        beanDefinitionMap.put("mailServicePOP", mailServiceDefinition);
+        BeanDefinition userServiceDefinition = new BeanDefinition("userService", "com.study.entity.DefaultUserService");
+        userServiceDefinition.setRefDependencies(Collections.singletonMap("mailService", "mailServicePOP"));
+        beanDefinitionMap.put("userService", userServiceDefinition);
+        beanDefinitionMap.put("brokenService", new BeanDefinition("brokenService", "com.study.entity.TestClass"));
+
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap, true);
+
+        assertEquals(3, context.getBeanNames().size());
+        DefaultUserService userService = context.getBean("userService", DefaultUserService.class);
+        assertNotNull(userService);
+        assertSame(context.getBean("mailServicePOP"), userService.getMailService());
+        assertEquals(110, ((MailService) userService.getMailService()).getPort());
+        assertSame(userService, context.getBean("userService"));
+    }
+
+    @Test
+    public void testLazyBeanDefinitionReleasedAfterCreation() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        beanDefinitionMap.put("mailServicePOP", new BeanDefinition("mailServicePOP", "com.study.entity.MailService"));
+        beanDefinitionMap.put("userService", new BeanDefinition("userService", "com.study.entity.DefaultUserService"));
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap, true);
+
+        MailService mailService = context.getBean("mailServicePOP", MailService.class);
+        assertFalse(context.hasLazyBeanDefinition("mailServicePOP"));
+        assertTrue(context.hasLazyBeanDefinition("userService"));
+        assertSame(mailService, context.getBean("mailServicePOP"));
+        assertSame(mailService, context.getBean(MailService.class));
+        assertEquals(2, context.getBeanNames().size());
+
+        assertTrue(context.removeBean("mailServicePOP"));
+        assertNull(context.getBean(MailService.class));
+        assertEquals(Collections.singletonList("userService"), context.getBeanNames());
+    }
+
+    @Test(expected = BeanInstantiationException.class)
+    public void testLazyContextCreatesBeanOnFirstAccess() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        beanDefinitionMap.put("brokenService", new BeanDefinition("brokenService", "com.study.entity.TestClass"));
+
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap, true);
+        context.getBean("brokenService");
+    }
+
+    @Test
+    public void testLazyBeanReferencedByEagerBean() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        BeanDefinition mailServiceDefinition = new BeanDefinition("mailServicePOP", "com.study.entity.MailService");
+        mailServiceDefinition.setLazyInit(true);
+        beanDefinitionMap.put("mailServicePOP", mailServiceDefinition);
+        BeanDefinition userServiceDefinition = new BeanDefinition("userService", "com.study.entity.DefaultUserService");
+        userServiceDefinition.setRefDependencies(Collections.singletonMap("mailService", "mailServicePOP"));
+        beanDefinitionMap.put("userService", userServiceDefinition);
+
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap);
+
+        DefaultUserService userService = context.getBean(DefaultUserService.class);
+        assertSame(context.getBean(MailService.class), userService.getMailService());
+    }
+
+    @Test
+    public void testLazyBeanConcurrentFirstAccess() throws Exception {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        BeanDefinition userServiceDefinition = new BeanDefinition("userService", "com.study.entity.DefaultUserService");
+        userServiceDefinition.setRefDependencies(Collections.singletonMap("mailService", "mailServicePOP"));
+        beanDefinitionMap.put("userService", userServiceDefinition);
+        beanDefinitionMap.put("mailServicePOP", new BeanDefinition("mailServicePOP", "com.study.entity.MailService"));
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap, true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<UserService>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(executor.submit(() -> context.getBean(UserService.class)));
+            }
+            Object expected = context.getBean("userService");
+            for (Future<UserService> future : futures) {
+                DefaultUserService userService = (DefaultUserService) future.get();
+                assertSame(expected, userService);
+                assertNotNull(userService.getMailService());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPrototypeScope() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        BeanDefinition mailServiceDefinition = new BeanDefinition("mailServicePOP", "com.study.entity.MailService");
+        mailServiceDefinition.setValueDependencies(Collections.singletonMap("port", "110"));
+        beanDefinitionMap.put("mailServicePOP", mailServiceDefinition);
+        BeanDefinition userServiceDefinition = new BeanDefinition("userService", "com.study.entity.DefaultUserService");
+        userServiceDefinition.setRefDependencies(Collections.singletonMap("mailService", "mailServicePOP"));
+        userServiceDefinition.setScope(Scope.PROTOTYPE);
+        beanDefinitionMap.put("userService", userServiceDefinition);
+
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap);
+
+        DefaultUserService userService1 = context.getBean("userService", DefaultUserService.class);
+        DefaultUserService userService2 = context.getBean(DefaultUserService.class);
+        assertNotSame(userService1, userService2);
+        assertSame(context.getBean("mailServicePOP"), userService1.getMailService());
+        assertSame(context.getBean("mailServicePOP"), userService2.getMailService());
+    }
+
+    @Test
+    public void testPrototypeRefsAreNotCountedAsLookups() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        BeanDefinition mailServiceDefinition = new BeanDefinition("mailServicePOP", "com.study.entity.MailService");
+        mailServiceDefinition.setScope(Scope.PROTOTYPE);
+        beanDefinitionMap.put("mailServicePOP", mailServiceDefinition);
+        BeanDefinition mailClientDefinition = new BeanDefinition("mailClient", "com.study.entity.MailClient");
+        mailClientDefinition.setConstructorArguments(Arrays.asList(ConstructorArgument.ref("mailServicePOP"),
+                ConstructorArgument.value("localhost"), ConstructorArgument.value("30")));
+        mailClientDefinition.setScope(Scope.PROTOTYPE);
+        beanDefinitionMap.put("mailClient", mailClientDefinition);
+        RecordingMetricsListener metricsListener = new RecordingMetricsListener();
+        ContextConfig config = new ContextConfig();
+        config.setMetricsListener(metricsListener);
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap, config);
+
+        MailClient mailClient1 = context.getBean("mailClient", MailClient.class);
+        MailClient mailClient2 = context.getBean("mailClient", MailClient.class);
+
+        assertNotSame(mailClient1.getMailService(), mailClient2.getMailService());
+        assertEquals(Collections.singletonMap("mailClient", 2L), metricsListener.getLookupsById());
+    }
+
+    @Test
+    public void testPrototypeRefsFollowReplacedBeans() {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        beanDefinitionMap.put("mailServicePOP", new BeanDefinition("mailServicePOP", "com.study.entity.MailService"));
+        BeanDefinition userServiceDefinition = new BeanDefinition("userService", "com.study.entity.DefaultUserService");
+        userServiceDefinition.setRefDependencies(Collections.singletonMap("mailService", "mailServicePOP"));
+        userServiceDefinition.setScope(Scope.PROTOTYPE);
+        beanDefinitionMap.put("userService", userServiceDefinition);
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap);
+        context.getBean("userService");
+        MailService replacement = new MailService();
+
+        context.removeBean("mailServicePOP");
+        context.registerBean("mailServicePOP", replacement);
+
+        assertSame(replacement, context.getBean("userService", DefaultUserService.class).getMailService());
+    }
+
+    @Test
+    public void testThreadScope() throws Exception {
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        BeanDefinition mailServiceDefinition = new BeanDefinition("mailServicePOP", "com.study.entity.MailService");
+        mailServiceDefinition.setValueDependencies(Collections.singletonMap("port", "110"));
+        mailServiceDefinition.setScope(Scope.THREAD);
+        beanDefinitionMap.put("mailServicePOP", mailServiceDefinition);
+
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitionMap);
+
+        MailService mailService = context.getBean(MailService.class);
+        assertEquals(110, mailService.getPort());
+        assertSame(mailService, context.getBean("mailServicePOP"));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            MailService otherThreadMailService = executor.submit(() -> context.getBean(MailService.class)).get();
+            assertNotSame(mailService, otherThreadMailService);
+            assertEquals(110, otherThreadMailService.getPort());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     @Test
     public void testCreateBeans() {
         Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
@@ -98,6 +501,36 @@ public class GenericApplicationContextTest {
         genericApplicationContext.getBean(DefaultUserService.class);
     }
 
+    @Test
+    public void testGetBeanByInterface() {
+        Map<String, Bean> beanMap = new HashMap<>();
+        DefaultUserService beanValue1 = new DefaultUserService();
+        MailService beanValue2 = new MailService();
+        beanMap.put("bean1", new Bean("bean1", beanValue1));
+        beanMap.put("bean2", new Bean("bean2", beanValue2));
+        genericApplicationContext.setBeans(beanMap);
+        assertSame(beanValue1, genericApplicationContext.getBean(UserService.class));
+        assertSame(beanValue2, genericApplicationContext.getBean(IMailService.class));
+        assertNull(genericApplicationContext.getBean(User.class));
+    }
+
+    @Test
+    public void testGetBeansOfType() {
+        Map<String, Bean> beanMap = new HashMap<>();
+        MailService beanValue1 = new MailService();
+        MailService beanValue2 = new MailService();
+        beanMap.put("bean1", new Bean("bean1", beanValue1));
+        beanMap.put("bean2", new Bean("bean2", beanValue2));
+        beanMap.put("bean3", new Bean("bean3", new DefaultUserService()));
+        genericApplicationContext.setBeans(beanMap);
+        Map<String, IMailService> mailServices = genericApplicationContext.getBeansOfType(IMailService.class);
+        assertEquals(2, mailServices.size());
+        assertSame(beanValue1, mailServices.get("bean1"));
+        assertSame(beanValue2, mailServices.get("bean2"));
+        assertEquals(3, genericApplicationContext.getBeansOfType(Object.class).size());
+        assertTrue(genericApplicationContext.getBeansOfType(User.class).isEmpty());
+    }
+
     @Test
     public void testGetBeanByIdAndClazz() {
         Map<String, Bean> beanMap = new HashMap<>();
@@ -204,5 +637,301 @@ public class GenericApplicationContextTest {
         genericApplicationContext.injectValue(mailService, setPortMethod, "465");
         int actualPort = mailService.getPort();
         assertEquals(465, actualPort);
+        assertSame(InjectionPlan.forClass(MailService.class).getInjector(setPortMethod),
+                InjectionPlan.forClass(MailService.class).getInjector(setPortMethod));
+    }
+
+    @Test
+    public void testConstructorInjection() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<ContextConfig> configs = new ArrayList<>();
+            configs.add(new ContextConfig());
+            ContextConfig lazyConfig = new ContextConfig();
+            lazyConfig.setLazyInit(true);
+            configs.add(lazyConfig);
+            ContextConfig executorConfig = new ContextConfig();
+            executorConfig.setExecutor(executor);
+            configs.add(executorConfig);
+            ContextConfig streamingConfig = new ContextConfig();
+            streamingConfig.setStreaming(true);
+            configs.add(streamingConfig);
+
+            for (ContextConfig config : configs) {
+                GenericApplicationContext context = new GenericApplicationContext(new XmlBeanDefinitionReader("context-constructor.xml"), config);
+                MailClient mailClient = context.getBean("mailClient", MailClient.class);
+                assertSame(context.getBean("mailServicePOP"), mailClient.getMailService());
+                assertEquals("pop.example.com", mailClient.getHost());
+                assertEquals(30, mailClient.getTimeout());
+                assertEquals(995, context.getBean("mailServicePOP", MailService.class).getPort());
+
+                MailClient localClient = context.getBean("localClient", MailClient.class);
+                assertEquals("localhost", localClient.getHost());
+                assertNotSame(localClient, context.getBean("localClient"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConstructorInjectionFromLaterDefinitions() {
+        Map<String, BeanDefinition> beanDefinitions = new HashMap<>();
+        for (int i = 0; i < 5; i++) {
+            BeanDefinition beanDefinition = new BeanDefinition("client" + i, MailClient.class.getName());
+            if (i < 4) {
+                beanDefinition.setConstructorArguments(Arrays.asList(ConstructorArgument.ref("mailService" + i),
+                        ConstructorArgument.value("host" + i), ConstructorArgument.value(String.valueOf(i))));
+                beanDefinitions.put("mailService" + i, new BeanDefinition("mailService" + i, MailService.class.getName()));
+            } else {
+                beanDefinition.setConstructorArguments(Collections.singletonList(ConstructorArgument.value("host" + i)));
+            }
+            beanDefinitions.put(beanDefinition.getId(), beanDefinition);
+        }
+
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitions);
+
+        assertEquals(5, context.getBeansOfType(MailClient.class).size());
+        assertEquals(3, context.getBean("client3", MailClient.class).getTimeout());
+        assertSame(context.getBean("mailService3"), context.getBean("client3", MailClient.class).getMailService());
+        assertNull(context.getBean("client4", MailClient.class).getMailService());
+    }
+
+    @Test(expected = CircularDependencyException.class)
+    public void testConstructorInjectionCycle() {
+        BeanDefinition first = new BeanDefinition("first", MailClient.class.getName());
+        first.setConstructorArguments(Arrays.asList(ConstructorArgument.ref("second"), ConstructorArgument.value("first"), ConstructorArgument.value("1")));
+        BeanDefinition second = new BeanDefinition("second", MailClient.class.getName());
+        second.setConstructorArguments(Arrays.asList(ConstructorArgument.ref("first"), ConstructorArgument.value("second"), ConstructorArgument.value("1")));
+        Map<String, BeanDefinition> beanDefinitions = new HashMap<>();
+        beanDefinitions.put("first", first);
+        beanDefinitions.put("second", second);
+
+        new GenericApplicationContext(() -> beanDefinitions);
+    }
+
+    @Test
+    public void testLongConstructorChain() {
+        int count = 50_000;
+        Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<>();
+        for (int i = count - 1; i >= 0; i--) {
+            BeanDefinition link = new BeanDefinition("link" + i, ChainLink.class.getName());
+            if (i > 0) {
+                link.setConstructorArguments(Collections.singletonList(ConstructorArgument.ref("link" + (i - 1))));
+            }
+            beanDefinitions.put(link.getId(), link);
+        }
+
+        GenericApplicationContext context = new GenericApplicationContext(() -> beanDefinitions);
+
+        ChainLink last = context.getBean("link" + (count - 1), ChainLink.class);
+        assertSame(context.getBean("link" + (count - 2)), last.previous);
+    }
+
+    @Test(expected = BeanInstantiationException.class)
+    public void testConstructorInjectionWithoutMatchingConstructor() {
+        BeanDefinition beanDefinition = new BeanDefinition("client", MailClient.class.getName());
+        beanDefinition.setConstructorArguments(Arrays.asList(ConstructorArgument.value("host"), ConstructorArgument.value("1")));
+
+        new GenericApplicationContext(() -> Collections.singletonMap("client", beanDefinition));
+    }
+
+    @Test
+    public void testLazyRefs() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            ContextConfig executorConfig = new ContextConfig();
+            executorConfig.setExecutor(executor);
+            ContextConfig streamingConfig = new ContextConfig();
+            streamingConfig.setStreaming(true);
+
+            for (ContextConfig config : Arrays.asList(new ContextConfig(), executorConfig, streamingConfig)) {
+                GenericApplicationContext context = new GenericApplicationContext(new XmlBeanDefinitionReader("context-lazy-ref.xml"), config);
+                IMailService mailService = context.getBean("userService", DefaultUserService.class).getMailService();
+                assertTrue(LazyProxies.isProxy(mailService));
+                assertFalse(context.getBeans().containsKey("mailServicePOP"));
+
+                assertNotNull(mailService.toString());
+                assertTrue(context.getBeans().containsKey("mailServicePOP"));
+                assertEquals(context.getBean("mailServicePOP").toString(), mailService.toString());
+
+                CounterClient counterClient = context.getBean("counterClient", CounterClient.class);
+                assertEquals(1, counterClient.getCounter().increment());
+                assertEquals(2, counterClient.getCounter().increment());
+                assertEquals(Integer.valueOf(1), executor.submit(() -> counterClient.getCounter().increment()).get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPooledBeanIsPrewarmedAndReused() {
+        GenericApplicationContext context = new GenericApplicationContext("context-pooled.xml");
+        BeanPoolMetrics metrics = context.getPoolMetrics("counterClient");
+        assertEquals(2, metrics.getIdle());
+        assertEquals(2, metrics.getCreated());
+
+        CounterClient first = context.borrowBean("counterClient", CounterClient.class);
+        assertSame(context.getBean("counter"), first.getCounter());
+        context.returnBean("counterClient", first);
+        CounterClient second = context.borrowBean("counterClient", CounterClient.class);
+        CounterClient third = context.borrowBean("counterClient", CounterClient.class);
+        assertNotSame(second, third);
+        assertTrue(second == first || third == first);
+
+        metrics = context.getPoolMetrics("counterClient");
+        assertEquals(2, metrics.getBorrowed());
+        assertEquals(0, metrics.getIdle());
+        assertEquals(3, metrics.getBorrows());
+        assertEquals(2, metrics.getCreated());
+    }
+
+    @Test
+    public void testPooledBeanExhaustion() {
+        GenericApplicationContext context = new GenericApplicationContext("context-pooled.xml");
+        List<Object> borrowed = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            borrowed.add(context.borrowBean("counterClient", CounterClient.class));
+        }
+        try {
+            context.borrowBean("counterClient", CounterClient.class);
+            fail();
+        } catch (BeanPoolExhaustedException e) {
+            // all four instances are borrowed
+        }
+        BeanPoolMetrics metrics = context.getPoolMetrics("counterClient");
+        assertEquals(1, metrics.getWaits());
+        assertEquals(1, metrics.getExhaustions());
+        assertTrue(metrics.getWaitTime() >= TimeUnit.MILLISECONDS.toNanos(50));
+
+        for (Object value : borrowed) {
+            context.returnBean("counterClient", value);
+        }
+        metrics = context.getPoolMetrics("counterClient");
+        assertEquals(0, metrics.getBorrowed());
+        assertEquals(3, metrics.getIdle());
+        assertEquals(1, metrics.getDiscarded());
+    }
+
+    @Test
+    public void testPooledBeanBorrowedConcurrently() throws Exception {
+        GenericApplicationContext context = new GenericApplicationContext("context-pooled.xml");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger inUse = new AtomicInteger();
+        AtomicInteger maxInUse = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 200; j++) {
+                        CounterClient counterClient;
+                        try {
+                            counterClient = context.borrowBean("counterClient", CounterClient.class);
+                        } catch (BeanPoolExhaustedException e) {
+                            continue;
+                        }
+                        maxInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+                        inUse.decrementAndGet();
+                        context.returnBean("counterClient", counterClient);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        BeanPoolMetrics metrics = context.getPoolMetrics("counterClient");
+        assertTrue(maxInUse.get() <= 4);
+        assertTrue(metrics.getCreated() <= 4 + metrics.getDiscarded());
+        assertEquals(0, metrics.getBorrowed());
+    }
+
+    @Test
+    public void testPooledBeanLookupFails() {
+        GenericApplicationContext context = new GenericApplicationContext("context-pooled.xml");
+        try {
+            context.getBean("counterClient");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            assertTrue(e.getMessage().contains("borrowBean"));
+        }
+        assertTrue(context.getBeansOfType(CounterClient.class).isEmpty());
+        assertNull(context.getBean(CounterClient.class));
+        assertEquals(0, context.getPoolMetrics("counterClient").getBorrowed());
+    }
+
+    @Test
+    public void testLookupByTypeSkipsPooledBeans() {
+        GenericApplicationContext context = new GenericApplicationContext("context-pooled.xml");
+
+        Map<String, Object> beans = context.getBeansOfType(Object.class);
+
+        assertEquals(Collections.singleton("counter"), beans.keySet());
+        assertSame(context.getBean("counter"), context.getBean(Counter.class));
+    }
+
+    @Test(expected = BeanInstantiationException.class)
+    public void testPooledBeanInjectionFails() {
+        BeanDefinition counterDefinition = new BeanDefinition("counter", Counter.class.getName());
+        counterDefinition.setScope(Scope.POOLED);
+        BeanDefinition clientDefinition = new BeanDefinition("counterClient", CounterClient.class.getName());
+        clientDefinition.setRefDependencies(Collections.singletonMap("counter", "counter"));
+        Map<String, BeanDefinition> beanDefinitions = new HashMap<>();
+        beanDefinitions.put("counter", counterDefinition);
+        beanDefinitions.put("counterClient", clientDefinition);
+
+        new GenericApplicationContext(() -> beanDefinitions);
+    }
+
+    @Test
+    public void testReturnPooledBeanTwiceOrForeign() {
+        GenericApplicationContext context = new GenericApplicationContext("context-pooled.xml");
+        CounterClient counterClient = context.borrowBean("counterClient", CounterClient.class);
+        context.returnBean("counterClient", counterClient);
+        try {
+            context.returnBean("counterClient", counterClient);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // already returned
+        }
+        try {
+            context.returnBean("counterClient", new CounterClient());
+            fail();
+        } catch (IllegalArgumentException e) {
+            // never borrowed
+        }
+        BeanPoolMetrics metrics = context.getPoolMetrics("counterClient");
+        assertEquals(0, metrics.getBorrowed());
+        assertEquals(2, metrics.getIdle());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBorrowNotPooledBean() {
+        new GenericApplicationContext("context-pooled.xml").borrowBean("counter", Counter.class);
+    }
+
+    @Test(expected = BeanInstantiationException.class)
+    public void testLazyRefToUndefinedBeanFailsOnUse() {
+        BeanDefinition beanDefinition = new BeanDefinition("userService", DefaultUserService.class.getName());
+        beanDefinition.setRefDependencies(Collections.singletonMap("mailService", "unknown"));
+        beanDefinition.setLazyRefProperties(Collections.singleton("mailService"));
+        GenericApplicationContext context = new GenericApplicationContext(() -> Collections.singletonMap("userService", beanDefinition));
+
+        context.getBean("userService", DefaultUserService.class).getMailService().sendEmail(null, "message");
+    }
+
+    public static class ChainLink {
+        final ChainLink previous;
+
+        public ChainLink() {
+            this(null);
+        }
+
+        public ChainLink(ChainLink previous) {
+            this.previous = previous;
+        }
     }
 }
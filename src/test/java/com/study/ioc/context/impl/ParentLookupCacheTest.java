@@ -0,0 +1,44 @@
+package com.study.ioc.context.impl;
+
+import com.study.entity.MailService;
+import com.study.ioc.context.ApplicationContext;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ParentLookupCacheTest {
+
+    @Test
+    public void testMissesAreBounded() {
+        GenericApplicationContext parent = new GenericApplicationContext("context-mail.xml");
+        ParentLookupCache parentLookupCache = new ParentLookupCache(parent);
+
+        for (int i = 0; i < ParentLookupCache.MAX_MISSES * 3; i++) {
+            assertNull(parentLookupCache.getBean("missing" + i));
+        }
+
+        assertTrue(parentLookupCache.getMissCount() <= ParentLookupCache.MAX_MISSES);
+        assertSame(parent.getBean("mailServiceSMTP"), parentLookupCache.getBean("mailServiceSMTP"));
+    }
+
+    @Test
+    public void testMissesOfOtherParentsAreNotRemembered() {
+        AtomicInteger lookups = new AtomicInteger();
+        ApplicationContext parent = (ApplicationContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{ApplicationContext.class}, (proxy, method, args) -> {
+                    lookups.incrementAndGet();
+                    return null;
+                });
+        ParentLookupCache parentLookupCache = new ParentLookupCache(parent);
+
+        assertNull(parentLookupCache.getBean("mailService"));
+        assertNull(parentLookupCache.getBean(MailService.class));
+        assertNull(parentLookupCache.getBean("mailService"));
+
+        assertEquals(0, parentLookupCache.getMissCount());
+        assertEquals(3, lookups.get());
+    }
+}
@@ -0,0 +1,186 @@
+package com.study.ioc.context.impl;
+
+import com.study.entity.CacheService;
+import com.study.entity.DefaultUserService;
+import com.study.entity.MailService;
+import com.study.ioc.context.ContextConfig;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.exception.BeanInstantiationException;
+import com.study.ioc.reader.sax.ContextHandler;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.xml.parsers.SAXParserFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ReloadableApplicationContextTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testReloadRebuildsChangedBeansAndDependents() throws Exception {
+        Map<String, BeanDefinition> beanDefinitions = new HashMap<>();
+        beanDefinitions.put("mailServicePOP", mailServiceDefinition("mailServicePOP", "995"));
+        beanDefinitions.put("userService", userServiceDefinition("userService", "mailServicePOP"));
+        beanDefinitions.put("mailServiceIMAP", mailServiceDefinition("mailServiceIMAP", "143"));
+        beanDefinitions.put("userServiceImap", userServiceDefinition("userServiceImap", "mailServiceIMAP"));
+        Map<String, BeanDefinition> source = new HashMap<>(beanDefinitions);
+
+        try (ReloadableApplicationContext context = new ReloadableApplicationContext(() -> new HashMap<>(source), new ContextConfig())) {
+            Object mailServiceIMAP = context.getBean("mailServiceIMAP");
+            Object userServiceImap = context.getBean("userServiceImap");
+            assertTrue(context.reload().isEmpty());
+
+            source.put("mailServicePOP", mailServiceDefinition("mailServicePOP", "110"));
+            assertEquals(new HashSet<>(Arrays.asList("mailServicePOP", "userService")), context.reload());
+
+            MailService mailServicePOP = context.getBean("mailServicePOP", MailService.class);
+            assertEquals(110, mailServicePOP.getPort());
+            assertSame(mailServicePOP, context.getBean("userService", DefaultUserService.class).getMailService());
+            assertSame(mailServiceIMAP, context.getBean("mailServiceIMAP"));
+            assertSame(userServiceImap, context.getBean("userServiceImap"));
+        }
+    }
+
+    @Test
+    public void testFailedReloadKeepsBeans() throws Exception {
+        Map<String, BeanDefinition> source = new HashMap<>();
+        source.put("mailServicePOP", mailServiceDefinition("mailServicePOP", "995"));
+
+        try (ReloadableApplicationContext context = new ReloadableApplicationContext(() -> new HashMap<>(source), new ContextConfig())) {
+            Object mailServicePOP = context.getBean("mailServicePOP");
+            source.put("mailServicePOP", mailServiceDefinition("mailServicePOP", "pop3"));
+            try {
+                context.reload();
+                fail();
+            } catch (BeanInstantiationException e) {
+                assertSame(mailServicePOP, context.getBean("mailServicePOP"));
+            }
+        }
+    }
+
+    @Test
+    public void testReloadFailsOnRefToRemovedBean() throws Exception {
+        Map<String, BeanDefinition> source = new HashMap<>();
+        source.put("mailServicePOP", mailServiceDefinition("mailServicePOP", "995"));
+        source.put("userService", userServiceDefinition("userService", "mailServicePOP"));
+
+        try (ReloadableApplicationContext context = new ReloadableApplicationContext(() -> new HashMap<>(source), new ContextConfig())) {
+            Object userService = context.getBean("userService");
+            source.remove("mailServicePOP");
+            try {
+                context.reload();
+                fail();
+            } catch (BeanInstantiationException e) {
+                assertSame(userService, context.getBean("userService"));
+                assertNotNull(context.getBean("mailServicePOP"));
+            }
+        }
+    }
+
+    @Test
+    public void testReloadDestroysReplacedBeans() throws Exception {
+        CacheService.EVENTS.clear();
+        Map<String, BeanDefinition> source = new HashMap<>();
+        source.put("cache", cacheDefinition("cache", "first"));
+        source.put("otherCache", cacheDefinition("otherCache", "other"));
+        source.put("removedCache", cacheDefinition("removedCache", "removed"));
+        ContextConfig config = new ContextConfig();
+        config.setLifecycleMethods(true);
+
+        ReloadableApplicationContext context = new ReloadableApplicationContext(() -> new HashMap<>(source), config);
+        source.put("cache", cacheDefinition("cache", "second"));
+        source.remove("removedCache");
+        CacheService.EVENTS.clear();
+        context.reload();
+
+        assertEquals(new HashSet<>(Arrays.asList("init second", "destroy first", "destroy removed")), new HashSet<>(CacheService.EVENTS));
+        assertEquals("init second", CacheService.EVENTS.get(0));
+        CacheService.EVENTS.clear();
+        context.close();
+        assertEquals(new HashSet<>(Arrays.asList("destroy second", "destroy other")), new HashSet<>(CacheService.EVENTS));
+    }
+
+    @Test
+    public void testReloadOnFileChange() throws Exception {
+        Path file = temporaryFolder.newFile("context.xml").toPath();
+        writeContext(file, "995");
+
+        try (ReloadableApplicationContext context = new ReloadableApplicationContext(() -> parse(file), new ContextConfig(), file).start()) {
+            assertEquals(995, context.getBean("mailServicePOP", MailService.class).getPort());
+
+            writeContext(file, "110");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (context.getBean("mailServicePOP", MailService.class).getPort() != 110 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(110, context.getBean("mailServicePOP", MailService.class).getPort());
+            assertNull(context.getLastReloadFailure());
+        }
+    }
+
+    @Test
+    public void testReloadFileSystemPathOnChange() throws Exception {
+        Path file = temporaryFolder.newFile("context.xml").toPath();
+        writeContext(file, "995");
+
+        try (ReloadableApplicationContext context = new ReloadableApplicationContext(file.toString()).start()) {
+            writeContext(file, "110");
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (context.getBean("mailServicePOP", MailService.class).getPort() != 110 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+            assertEquals(110, context.getBean("mailServicePOP", MailService.class).getPort());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPathInJarCanNotBeWatched() {
+        new ReloadableApplicationContext("org/junit/Test.class");
+    }
+
+    private static void writeContext(Path file, String port) throws Exception {
+        String xml = "<beans><bean id=\"mailServicePOP\" class=\"com.study.entity.MailService\">" +
+                "<property name=\"port\" value=\"" + port + "\"/></bean></beans>";
+        Files.write(file, xml.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, BeanDefinition> parse(Path file) {
+        try {
+            ContextHandler handler = new ContextHandler();
+            SAXParserFactory.newInstance().newSAXParser().parse(file.toFile(), handler);
+            return handler.getBeanDefinitions();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static BeanDefinition mailServiceDefinition(String id, String port) {
+        BeanDefinition beanDefinition = new BeanDefinition(id, "com.study.entity.MailService");
+        beanDefinition.setValueDependencies(Collections.singletonMap("port", port));
+        return beanDefinition;
+    }
+
+    private static BeanDefinition cacheDefinition(String id, String name) {
+        BeanDefinition beanDefinition = new BeanDefinition(id, CacheService.class.getName());
+        beanDefinition.setValueDependencies(Collections.singletonMap("name", name));
+        return beanDefinition;
+    }
+
+    private static BeanDefinition userServiceDefinition(String id, String mailServiceId) {
+        BeanDefinition beanDefinition = new BeanDefinition(id, "com.study.entity.DefaultUserService");
+        beanDefinition.setRefDependencies(Collections.singletonMap("mailService", mailServiceId));
+        return beanDefinition;
+    }
+}
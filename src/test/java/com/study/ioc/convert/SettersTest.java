@@ -0,0 +1,63 @@
+package com.study.ioc.convert;
+
+import com.study.ioc.exception.BeanInstantiationException;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.junit.Assert.*;
+
+public class SettersTest {
+
+    @Test
+    public void testPreferConvertibleOverload() throws NoSuchMethodException {
+        Method setter = Setters.find(OverloadedSettings.class, "port");
+
+        assertEquals(OverloadedSettings.class.getMethod("setPort", int.class), setter);
+    }
+
+    @Test(expected = BeanInstantiationException.class)
+    public void testAmbiguousOverloads() {
+        Setters.find(OverloadedSettings.class, "host");
+    }
+
+    @Test
+    public void testSkipBridgeMethods() throws NoSuchMethodException {
+        Method setter = Setters.find(StringHolder.class, "value");
+
+        assertEquals(StringHolder.class.getMethod("setValue", String.class), setter);
+    }
+
+    @Test
+    public void testNoSetter() {
+        assertNull(Setters.find(OverloadedSettings.class, "timeout"));
+    }
+
+    public static class OverloadedSettings {
+        public void setPort(int port) {
+        }
+
+        public void setPort(Object port) {
+        }
+
+        public void setHost(String host) {
+        }
+
+        public void setHost(CharSequence host, int port) {
+        }
+
+        public void setHost(long host) {
+        }
+    }
+
+    public static class Holder<T> {
+        public void setValue(T value) {
+        }
+    }
+
+    public static class StringHolder extends Holder<String> {
+        @Override
+        public void setValue(String value) {
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.study.ioc.convert;
+
+import com.study.entity.ConnectionSettings;
+import com.study.ioc.context.impl.GenericApplicationContext;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.exception.BeanInstantiationException;
+import org.junit.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ValueConvertersTest {
+
+    @Test
+    public void testPrimitiveConverterReturnsPrimitive() throws Throwable {
+        MethodHandle converter = ValueConverters.getConverter(int.class);
+        assertEquals(int.class, converter.type().returnType());
+        assertEquals(42, (int) converter.invokeExact("42"));
+    }
+
+    @Test
+    public void testInjectConvertedValues() {
+        ValueConverters.register(URI.class, URI::create);
+        Map<String, String> valueDependencies = new HashMap<>();
+        valueDependencies.put("timeUnit", "SECONDS");
+        valueDependencies.put("timeout", "PT30S");
+        valueDependencies.put("rate", "0.25");
+        valueDependencies.put("maxSize", "10000000000");
+        valueDependencies.put("ratio", "1.5");
+        valueDependencies.put("secure", "TRUE");
+        valueDependencies.put("separator", ";");
+        valueDependencies.put("retries", "3");
+        valueDependencies.put("endpoint", "http://localhost:8080");
+
+        ConnectionSettings settings = createSettings(valueDependencies);
+
+        assertEquals(TimeUnit.SECONDS, settings.getTimeUnit());
+        assertEquals(Duration.ofSeconds(30), settings.getTimeout());
+        assertEquals(new BigDecimal("0.25"), settings.getRate());
+        assertEquals(10000000000L, settings.getMaxSize());
+        assertEquals(1.5, settings.getRatio(), 0);
+        assertTrue(settings.isSecure());
+        assertEquals(';', settings.getSeparator());
+        assertEquals(Integer.valueOf(3), settings.getRetries());
+        assertEquals(URI.create("http://localhost:8080"), settings.getEndpoint());
+    }
+
+    @Test(expected = BeanInstantiationException.class)
+    public void testWrongBooleanValue() {
+        createSettings(Collections.singletonMap("secure", "yes"));
+    }
+
+    @Test(expected = BeanInstantiationException.class)
+    public void testWrongEnumValue() {
+        createSettings(Collections.singletonMap("timeUnit", "WEEKS"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterAfterUse() {
+        assertNull(ValueConverters.getConverter(Locale.class));
+
+        ValueConverters.register(Locale.class, Locale::forLanguageTag);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRegisterPrimitiveAfterWrapperUse() {
+        assertNotNull(ValueConverters.getConverter(Short.class));
+
+        ValueConverters.register(short.class, Short::decode);
+    }
+
+    private ConnectionSettings createSettings(Map<String, String> valueDependencies) {
+        BeanDefinition beanDefinition = new BeanDefinition("settings", ConnectionSettings.class.getName());
+        beanDefinition.setValueDependencies(valueDependencies);
+        GenericApplicationContext context = new GenericApplicationContext(() -> Collections.singletonMap("settings", beanDefinition));
+        return context.getBean(ConnectionSettings.class);
+    }
+}
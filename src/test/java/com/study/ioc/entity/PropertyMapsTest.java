@@ -0,0 +1,65 @@
+package com.study.ioc.entity;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class PropertyMapsTest {
+
+    @Test
+    public void testEmpty() {
+        assertSame(Collections.emptyMap(), PropertyMaps.of(new String[4], 0));
+    }
+
+    @Test
+    public void testSmallMap() {
+        Map<String, String> map = PropertyMaps.of(new String[]{"port", "995", "protocol", "POP3", "port", "110"}, 3);
+
+        Map<String, String> expected = new HashMap<>();
+        expected.put("port", "110");
+        expected.put("protocol", "POP3");
+        assertEquals(expected, map);
+        assertEquals(2, map.size());
+        assertEquals("POP3", map.get("protocol"));
+        assertNull(map.get("host"));
+        assertTrue(map.containsKey("port"));
+    }
+
+    @Test
+    public void testLargeMap() {
+        int count = PropertyMaps.MAX_LINEAR_SIZE + 2;
+        String[] namesAndValues = new String[count * 2];
+        for (int i = 0; i < count; i++) {
+            namesAndValues[i * 2] = "property" + i;
+            namesAndValues[i * 2 + 1] = String.valueOf(i);
+        }
+        Map<String, String> map = PropertyMaps.of(namesAndValues, count);
+
+        assertEquals(count, map.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(String.valueOf(i), map.get("property" + i));
+        }
+        assertNull(map.get("property"));
+        assertFalse(map.containsKey(1));
+    }
+
+    @Test
+    public void testCopyOf() {
+        Map<String, String> changed = new HashMap<>();
+        for (int i = 0; i < PropertyMaps.MAX_LINEAR_SIZE + 2; i++) {
+            changed.put("property" + i, String.valueOf(i));
+        }
+
+        assertEquals(changed, PropertyMaps.copyOf(changed));
+        assertSame(Collections.emptyMap(), PropertyMaps.copyOf(new HashMap<>()));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testMapIsReadOnly() {
+        PropertyMaps.of(new String[]{"port", "995"}, 1).put("port", "110");
+    }
+}
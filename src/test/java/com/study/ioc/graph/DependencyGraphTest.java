@@ -0,0 +1,122 @@
+package com.study.ioc.graph;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.exception.CircularDependencyException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class DependencyGraphTest {
+
+    @Test
+    public void testGetCreationOrder() {
+        Map<String, BeanDefinition> beanDefinitionMap = new LinkedHashMap<>();
+        beanDefinitionMap.put("userService", beanDefinition("userService", "mailService", "mailServicePOP"));
+        beanDefinitionMap.put("mailServicePOP", beanDefinition("mailServicePOP"));
+        beanDefinitionMap.put("adminService", beanDefinition("adminService", "userService", "userService"));
+
+        DependencyGraph graph = DependencyGraph.build(beanDefinitionMap);
+
+        assertEquals(Arrays.asList("mailServicePOP", "userService", "adminService"), graph.getCreationOrder());
+        assertEquals(Collections.singleton("mailServicePOP"), graph.getDependencies("userService"));
+        assertEquals(Collections.singleton("adminService"), graph.getDependents("userService"));
+        assertTrue(graph.findCycle().isEmpty());
+        assertTrue(graph.getMissingReferences().isEmpty());
+    }
+
+    @Test
+    public void testFindCycle() {
+        Map<String, BeanDefinition> beanDefinitionMap = new LinkedHashMap<>();
+        beanDefinitionMap.put("root", beanDefinition("root", "a", "a"));
+        beanDefinitionMap.put("a", beanDefinition("a", "b", "b"));
+        beanDefinitionMap.put("b", beanDefinition("b", "a", "a"));
+
+        List<String> cycle = DependencyGraph.build(beanDefinitionMap).findCycle();
+
+        assertEquals(Arrays.asList("a", "b", "a"), cycle);
+    }
+
+    @Test
+    public void testGetCreationOrderWithCycle() {
+        Map<String, BeanDefinition> beanDefinitionMap = new LinkedHashMap<>();
+        beanDefinitionMap.put("a", beanDefinition("a", "b", "b"));
+        beanDefinitionMap.put("b", beanDefinition("b", "a", "a"));
+        beanDefinitionMap.put("c", beanDefinition("c", "a", "a"));
+
+        DependencyGraph graph = DependencyGraph.build(beanDefinitionMap);
+        List<String> order = graph.getCreationOrder();
+
+        assertEquals(3, order.size());
+        assertEquals("c", order.get(2));
+        assertEquals(Arrays.asList(new HashSet<>(Arrays.asList("a", "b")), Collections.singleton("c")),
+                graph.getStronglyConnectedComponents());
+    }
+
+    @Test
+    public void testGetCreationOrderWithConstructorInCycle() {
+        Map<String, BeanDefinition> beanDefinitionMap = new LinkedHashMap<>();
+        beanDefinitionMap.put("a", beanDefinition("a", "b", "b"));
+        beanDefinitionMap.put("b", beanDefinition("b"));
+        beanDefinitionMap.get("b").setConstructorArguments(Collections.singletonList(ConstructorArgument.ref("a")));
+
+        assertEquals(Arrays.asList("a", "b"), DependencyGraph.build(beanDefinitionMap).getCreationOrder());
+    }
+
+    @Test(expected = CircularDependencyException.class)
+    public void testGetCreationOrderWithConstructorCycle() {
+        Map<String, BeanDefinition> beanDefinitionMap = new LinkedHashMap<>();
+        beanDefinitionMap.put("a", beanDefinition("a"));
+        beanDefinitionMap.put("b", beanDefinition("b"));
+        beanDefinitionMap.get("a").setConstructorArguments(Collections.singletonList(ConstructorArgument.ref("b")));
+        beanDefinitionMap.get("b").setConstructorArguments(Collections.singletonList(ConstructorArgument.ref("a")));
+
+        DependencyGraph.build(beanDefinitionMap).getCreationOrder();
+    }
+
+    @Test
+    public void testLongChain() {
+        int count = 50_000;
+        Map<String, BeanDefinition> beanDefinitionMap = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            beanDefinitionMap.put("bean" + i, i + 1 < count ? beanDefinition("bean" + i, "next", "bean" + (i + 1)) : beanDefinition("bean" + i));
+        }
+
+        DependencyGraph graph = DependencyGraph.build(beanDefinitionMap);
+        List<String> order = graph.getCreationOrder();
+
+        assertEquals(count, order.size());
+        assertEquals("bean" + (count - 1), order.get(0));
+        assertEquals("bean0", order.get(count - 1));
+        assertTrue(graph.findCycle().isEmpty());
+    }
+
+    @Test
+    public void testMissingReferences() {
+        Map<String, BeanDefinition> beanDefinitionMap = new LinkedHashMap<>();
+        beanDefinitionMap.put("userService", beanDefinition("userService", "mailService", "unknown"));
+
+        DependencyGraph graph = DependencyGraph.build(beanDefinitionMap);
+
+        assertEquals(Collections.singletonMap("userService", Collections.singleton("unknown")), graph.getMissingReferences());
+        assertTrue(graph.getDependencies("userService").isEmpty());
+    }
+
+    private BeanDefinition beanDefinition(String id, String... refs) {
+        BeanDefinition beanDefinition = new BeanDefinition(id, "com.study.entity.DefaultUserService");
+        Map<String, String> refDependencies = new LinkedHashMap<>();
+        for (int i = 0; i < refs.length; i += 2) {
+            refDependencies.put(refs[i], refs[i + 1]);
+        }
+        beanDefinition.setRefDependencies(refDependencies);
+        beanDefinition.setValueDependencies(Collections.<String, String>emptyMap());
+        return beanDefinition;
+    }
+}
@@ -0,0 +1,152 @@
+package com.study.ioc.graph;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class DependencyReportTest {
+
+    @Test
+    public void testCriticalPathAndFanInOut() {
+        Map<String, BeanDefinition> beanDefinitionMap = new LinkedHashMap<>();
+        beanDefinitionMap.put("api", beanDefinition("api", "cache", "cache", "database", "database"));
+        beanDefinitionMap.put("cache", beanDefinition("cache", "database", "database"));
+        beanDefinitionMap.put("database", beanDefinition("database"));
+        beanDefinitionMap.put("metrics", beanDefinition("metrics"));
+        Map<String, Long> creationTimes = new HashMap<>();
+        creationTimes.put("api", 5L);
+        creationTimes.put("cache", 50L);
+        creationTimes.put("database", 10L);
+        creationTimes.put("metrics", 30L);
+
+        DependencyReport report = DependencyReport.of(beanDefinitionMap, creationTimes);
+
+        assertEquals(Arrays.asList("database", "cache", "api"), report.getCriticalPath());
+        assertEquals(65, report.getCriticalPathTime());
+        assertEquals(2, report.getFanIn("database"));
+        assertEquals(0, report.getFanOut("database"));
+        assertEquals(2, report.getFanOut("api"));
+        assertTrue(report.getCycles().isEmpty());
+
+        String json = report.toJson();
+        assertTrue(json.contains("{\"id\": \"api\", \"fanIn\": 0, \"fanOut\": 2, \"dependencies\": [\"cache\", \"database\"], \"creationTime\": 5}"));
+        assertTrue(json.contains("\"criticalPath\": [\"database\", \"cache\", \"api\"]"));
+        String dot = report.toDot();
+        assertTrue(dot.startsWith("digraph beans {"));
+        assertTrue(dot.contains("\"cache\" -> \"database\" [color=red];"));
+        assertTrue(dot.contains("\"api\" -> \"database\";"));
+    }
+
+    @Test
+    public void testCriticalPathWithoutTimesIsLongestChain() {
+        DependencyReport report = DependencyReport.of(new XmlBeanDefinitionReader("context.xml"), Collections.<String, Long>emptyMap());
+
+        assertEquals(2, report.getCriticalPath().size());
+        assertEquals(2, report.getCriticalPathTime());
+        assertTrue(report.getMissingReferences().isEmpty());
+    }
+
+    @Test
+    public void testCyclesAndMissingReferences() {
+        Map<String, BeanDefinition> beanDefinitionMap = new LinkedHashMap<>();
+        beanDefinitionMap.put("root", beanDefinition("root", "a", "a"));
+        beanDefinitionMap.put("a", beanDefinition("a", "b", "b"));
+        beanDefinitionMap.put("b", beanDefinition("b", "a", "a", "mailService", "unknown"));
+        beanDefinitionMap.put("self", beanDefinition("self", "self", "self"));
+
+        DependencyReport report = DependencyReport.of(beanDefinitionMap, Collections.<String, Long>emptyMap());
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Collections.singletonList("self")), report.getCycles());
+        assertEquals(Collections.singletonMap("b", Collections.singleton("unknown")), report.getMissingReferences());
+        assertTrue(report.getConstructorCycle().isEmpty());
+        assertEquals(2, report.getCriticalPath().size());
+        assertEquals("root", report.getCriticalPath().get(1));
+        assertTrue(report.toJson().contains("\"cycles\": [[\"a\", \"b\"], [\"self\"]]"));
+        assertTrue(report.toDot().contains("\"b\" -> \"unknown\" [style=dashed];"));
+    }
+
+    @Test
+    public void testLongChainAndLargeCycle() {
+        int count = 100_000;
+        Map<String, BeanDefinition> beanDefinitionMap = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            beanDefinitionMap.put("bean" + i, i + 1 < count ? beanDefinition("bean" + i, "next", "bean" + (i + 1)) : beanDefinition("bean" + i));
+        }
+
+        DependencyReport report = DependencyReport.of(beanDefinitionMap, Collections.<String, Long>emptyMap());
+
+        assertEquals(count, report.getCriticalPath().size());
+        assertEquals("bean" + (count - 1), report.getCriticalPath().get(0));
+        assertTrue(report.toDot().contains("\"bean0\" -> \"bean1\" [color=red];"));
+
+        beanDefinitionMap.put("bean" + (count - 1), beanDefinition("bean" + (count - 1), "next", "bean0"));
+        report = DependencyReport.of(beanDefinitionMap, Collections.<String, Long>emptyMap());
+
+        assertEquals(1, report.getCycles().size());
+        assertEquals(count, report.getCycles().get(0).size());
+        assertEquals("bean0", report.getCycles().get(0).get(0));
+        assertTrue(report.toDot().contains("color=orange"));
+    }
+
+    @Test
+    public void testCriticalPathThroughSetterCycle() {
+        Map<String, BeanDefinition> beanDefinitionMap = new LinkedHashMap<>();
+        beanDefinitionMap.put("api", beanDefinition("api", "orders", "orders"));
+        beanDefinitionMap.put("orders", beanDefinition("orders", "customers", "customers", "database", "database"));
+        beanDefinitionMap.put("customers", beanDefinition("customers", "orders", "orders"));
+        beanDefinitionMap.put("database", beanDefinition("database"));
+        BeanDefinition audit = beanDefinition("audit", "api", "api");
+        audit.setLazyRefProperties(Collections.singleton("api"));
+        beanDefinitionMap.put("audit", audit);
+        Map<String, Long> creationTimes = new HashMap<>();
+        creationTimes.put("api", 5L);
+        creationTimes.put("orders", 10L);
+        creationTimes.put("customers", 40L);
+        creationTimes.put("database", 50L);
+        creationTimes.put("audit", 1L);
+
+        DependencyReport report = DependencyReport.of(beanDefinitionMap, creationTimes);
+
+        assertEquals(Collections.singletonList(Arrays.asList("orders", "customers")), report.getCycles());
+        assertTrue(report.getConstructorCycle().isEmpty());
+        // customers is created alongside orders, api waits for the slower of the two; the lazy ref doesn't wait for api
+        assertEquals(Arrays.asList("database", "orders", "api"), report.getCriticalPath());
+        assertEquals(65, report.getCriticalPathTime());
+    }
+
+    @Test
+    public void testConstructorCycleHasNoCriticalPath() {
+        Map<String, BeanDefinition> beanDefinitionMap = new LinkedHashMap<>();
+        BeanDefinition first = beanDefinition("first");
+        first.setConstructorArguments(Collections.singletonList(ConstructorArgument.ref("second")));
+        beanDefinitionMap.put("first", first);
+        BeanDefinition second = beanDefinition("second");
+        second.setConstructorArguments(Collections.singletonList(ConstructorArgument.ref("first")));
+        beanDefinitionMap.put("second", second);
+
+        DependencyReport report = DependencyReport.of(beanDefinitionMap, Collections.<String, Long>emptyMap());
+
+        assertEquals(Arrays.asList("first", "second", "first"), report.getConstructorCycle());
+        assertTrue(report.getCriticalPath().isEmpty());
+        assertTrue(report.toJson().contains("\"constructorCycle\": [\"first\", \"second\", \"first\"]"));
+    }
+
+    private BeanDefinition beanDefinition(String id, String... refs) {
+        BeanDefinition beanDefinition = new BeanDefinition(id, "com.study.entity.DefaultUserService");
+        Map<String, String> refDependencies = new LinkedHashMap<>();
+        for (int i = 0; i < refs.length; i += 2) {
+            refDependencies.put(refs[i], refs[i + 1]);
+        }
+        beanDefinition.setRefDependencies(refDependencies);
+        return beanDefinition;
+    }
+}
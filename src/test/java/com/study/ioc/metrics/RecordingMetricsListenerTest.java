@@ -0,0 +1,56 @@
+package com.study.ioc.metrics;
+
+import com.study.entity.MailService;
+import com.study.entity.UserService;
+import com.study.ioc.context.ContextConfig;
+import com.study.ioc.context.impl.GenericApplicationContext;
+import com.study.ioc.reader.sax.XmlBeanDefinitionReader;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class RecordingMetricsListenerTest {
+
+    @Test
+    public void testSnapshot() {
+        RecordingMetricsListener metricsListener = new RecordingMetricsListener();
+        XmlBeanDefinitionReader reader = new XmlBeanDefinitionReader("context.xml");
+        reader.setMetricsListener(metricsListener);
+        ContextConfig config = new ContextConfig();
+        config.setMetricsListener(metricsListener);
+
+        GenericApplicationContext context = new GenericApplicationContext(reader, config);
+        context.getBean("mailServicePOP");
+        context.getBean("mailServicePOP", MailService.class);
+        context.getBeansOfType(UserService.class);
+
+        ContextMetricsSnapshot snapshot = metricsListener.snapshot();
+        assertTrue(snapshot.getParseTimes().containsKey("context.xml"));
+        assertEquals(4, snapshot.getInstantiationTimes().size());
+        assertTrue(snapshot.getInjectionTimes().containsKey("userService"));
+        assertTrue(snapshot.getInjectionTimes().containsKey("mailServiceIMAP"));
+        assertEquals(Long.valueOf(2), snapshot.getLookupsById().get("mailServicePOP"));
+        assertEquals(Long.valueOf(1), snapshot.getLookupsByType().get(UserService.class.getName()));
+    }
+
+    @Test
+    public void testRegisterMBean() throws Exception {
+        RecordingMetricsListener metricsListener = new RecordingMetricsListener();
+        metricsListener.onLookupById("userService");
+
+        ObjectName objectName = metricsListener.registerMBean("test");
+        MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertTrue(mBeanServer.isRegistered(objectName));
+            assertNotNull(mBeanServer.getAttribute(objectName, "LookupsById"));
+            mBeanServer.invoke(objectName, "reset", null, null);
+            assertTrue(metricsListener.getLookupsById().isEmpty());
+        } finally {
+            mBeanServer.unregisterMBean(objectName);
+        }
+    }
+}
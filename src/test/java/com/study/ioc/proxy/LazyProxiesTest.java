@@ -0,0 +1,85 @@
+package com.study.ioc.proxy;
+
+import com.study.entity.ConnectionSettings;
+import com.study.entity.IMailService;
+import com.study.entity.MailClient;
+import com.study.entity.MailService;
+import com.study.entity.User;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class LazyProxiesTest {
+
+    @Test
+    public void testInterfaceProxyResolvesTargetOnCall() {
+        List<String> messages = new ArrayList<>();
+        AtomicInteger lookups = new AtomicInteger();
+        IMailService target = (user, message) -> messages.add(message);
+
+        IMailService proxy = LazyProxies.create(IMailService.class, () -> {
+            lookups.incrementAndGet();
+            return target;
+        });
+
+        assertEquals(0, lookups.get());
+        proxy.sendEmail(new User(), "first");
+        proxy.sendEmail(new User(), "second");
+        assertEquals(2, lookups.get());
+        assertEquals(2, messages.size());
+        assertEquals(target.toString(), proxy.toString());
+        assertTrue(LazyProxies.isProxy(proxy));
+        assertFalse(Proxy.isProxyClass(proxy.getClass()));
+    }
+
+    @Test
+    public void testClassProxyWithPrimitives() {
+        ConnectionSettings target = new ConnectionSettings();
+        ConnectionSettings proxy = LazyProxies.create(ConnectionSettings.class, () -> target);
+
+        proxy.setMaxSize(Long.MAX_VALUE);
+        proxy.setRatio(0.25);
+        proxy.setSecure(true);
+        proxy.setSeparator(';');
+
+        assertEquals(Long.MAX_VALUE, target.getMaxSize());
+        assertEquals(Long.MAX_VALUE, proxy.getMaxSize());
+        assertEquals(0.25, proxy.getRatio(), 0);
+        assertTrue(proxy.isSecure());
+        assertEquals(';', proxy.getSeparator());
+        assertTrue(proxy.equals(target));
+        assertEquals(target.hashCode(), proxy.hashCode());
+    }
+
+    @Test
+    public void testProxyClassIsGeneratedOncePerType() {
+        MailService first = LazyProxies.create(MailService.class, MailService::new);
+        MailService second = LazyProxies.create(MailService.class, MailService::new);
+
+        assertSame(first.getClass(), second.getClass());
+        assertNotSame(MailService.class, first.getClass());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFinalClassCantBeProxied() {
+        LazyProxies.create(String.class, () -> "value");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testClassWithoutNoArgConstructorCantBeProxied() {
+        LazyProxies.create(MailClient.class, () -> new MailClient("localhost"));
+    }
+
+    @Test
+    public void testJdkInterface() {
+        Supplier<?> proxy = LazyProxies.create(Supplier.class, () -> (Supplier<String>) () -> "value");
+
+        assertEquals("value", proxy.get());
+    }
+}
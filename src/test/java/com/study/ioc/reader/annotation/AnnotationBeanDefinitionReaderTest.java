@@ -0,0 +1,58 @@
+package com.study.ioc.reader.annotation;
+
+import com.study.entity.annotated.AnnotatedMailService;
+import com.study.entity.annotated.AnnotatedUserService;
+import com.study.ioc.context.impl.GenericApplicationContext;
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.Scope;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class AnnotationBeanDefinitionReaderTest {
+
+    @Test
+    public void testGetBeanDefinition() {
+        Map<String, BeanDefinition> beanDefinitionMap = new AnnotationBeanDefinitionReader().getBeanDefinition();
+
+        BeanDefinition mailServiceDefinition = beanDefinitionMap.get("annotatedMailService");
+        assertEquals(AnnotatedMailService.class.getName(), mailServiceDefinition.getClassName());
+        assertEquals("SMTP", mailServiceDefinition.getValueDependencies().get("protocol"));
+        assertEquals("587", mailServiceDefinition.getValueDependencies().get("port"));
+        assertTrue(mailServiceDefinition.getRefDependencies().isEmpty());
+
+        BeanDefinition userServiceDefinition = beanDefinitionMap.get("annotatedUserService");
+        assertEquals(AnnotatedUserService.class.getName(), userServiceDefinition.getClassName());
+        assertEquals(Scope.PROTOTYPE, userServiceDefinition.getScope());
+        assertEquals(Collections.singletonMap("mailService", "annotatedMailService"), userServiceDefinition.getRefDependencies());
+    }
+
+    @Test
+    public void testContextFromAnnotations() {
+        GenericApplicationContext context = new GenericApplicationContext(new AnnotationBeanDefinitionReader());
+
+        AnnotatedUserService userService = context.getBean(AnnotatedUserService.class);
+        AnnotatedMailService mailService = context.getBean(AnnotatedMailService.class);
+        assertSame(mailService, userService.getMailService());
+        assertEquals(587, mailService.getPort());
+    }
+
+    @Test
+    public void testIndexEscaping() throws Exception {
+        BeanDefinition beanDefinition = new BeanDefinition("bean", "com.study.entity.MailService");
+        beanDefinition.setValueDependencies(Collections.singletonMap("protocol", "a\tb\\c\nd"));
+        beanDefinition.setRefDependencies(Collections.<String, String>emptyMap());
+        StringWriter writer = new StringWriter();
+        ComponentIndex.write(writer, Collections.singletonList(beanDefinition));
+
+        Map<String, BeanDefinition> beanDefinitionMap = ComponentIndex.read(new BufferedReader(new StringReader(writer.toString())));
+
+        assertEquals("a\tb\\c\nd", beanDefinitionMap.get("bean").getValueDependencies().get("protocol"));
+    }
+}
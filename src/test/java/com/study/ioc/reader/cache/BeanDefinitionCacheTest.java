@@ -0,0 +1,115 @@
+package com.study.ioc.reader.cache;
+
+import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.entity.PoolSettings;
+import com.study.ioc.entity.Scope;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BeanDefinitionCacheTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        Path source = temporaryFolder.newFile("context.xml").toPath();
+        Files.write(source, "<beans/>".getBytes(StandardCharsets.UTF_8));
+        BeanDefinitionCache beanDefinitionCache = new BeanDefinitionCache(temporaryFolder.newFolder("cache").toPath());
+
+        Map<String, BeanDefinition> beanDefinitionMap = new HashMap<>();
+        BeanDefinition mailServiceDefinition = new BeanDefinition("mailServicePOP", "com.study.entity.MailService");
+        mailServiceDefinition.setValueDependencies(Collections.singletonMap("port", "995"));
+        mailServiceDefinition.setLazyInit(true);
+        mailServiceDefinition.setScope(Scope.PROTOTYPE);
+        beanDefinitionMap.put("mailServicePOP", mailServiceDefinition);
+        BeanDefinition userServiceDefinition = new BeanDefinition("userService", "com.study.entity.DefaultUserService");
+        userServiceDefinition.setRefDependencies(Collections.singletonMap("mailService", "mailServicePOP"));
+        userServiceDefinition.setLazyRefProperties(Collections.singleton("mailService"));
+        userServiceDefinition.setConstructorArguments(Arrays.asList(ConstructorArgument.ref("mailServicePOP"), ConstructorArgument.value("30")));
+        beanDefinitionMap.put("userService", userServiceDefinition);
+        BeanDefinition pooledDefinition = new BeanDefinition("pooledMailService", "com.study.entity.MailService");
+        pooledDefinition.setScope(Scope.POOLED);
+        pooledDefinition.setPoolSettings(new PoolSettings(1, 4, 2, 100));
+        beanDefinitionMap.put("pooledMailService", pooledDefinition);
+
+        assertNull(beanDefinitionCache.read(source));
+        beanDefinitionCache.write(source, beanDefinitionMap);
+        Map<String, BeanDefinition> cachedBeanDefinitionMap = beanDefinitionCache.read(source);
+
+        assertEquals(3, cachedBeanDefinitionMap.size());
+        assertEquals(Scope.POOLED, cachedBeanDefinitionMap.get("pooledMailService").getScope());
+        assertEquals(new PoolSettings(1, 4, 2, 100), cachedBeanDefinitionMap.get("pooledMailService").getPoolSettings());
+        assertNull(cachedBeanDefinitionMap.get("mailServicePOP").getPoolSettings());
+        BeanDefinition cachedMailServiceDefinition = cachedBeanDefinitionMap.get("mailServicePOP");
+        assertEquals("com.study.entity.MailService", cachedMailServiceDefinition.getClassName());
+        assertEquals(Collections.singletonMap("port", "995"), cachedMailServiceDefinition.getValueDependencies());
+        assertTrue(cachedMailServiceDefinition.getRefDependencies().isEmpty());
+        assertEquals(Boolean.TRUE, cachedMailServiceDefinition.getLazyInit());
+        assertEquals(Scope.PROTOTYPE, cachedMailServiceDefinition.getScope());
+        BeanDefinition cachedUserServiceDefinition = cachedBeanDefinitionMap.get("userService");
+        assertEquals(Collections.singletonMap("mailService", "mailServicePOP"), cachedUserServiceDefinition.getRefDependencies());
+        assertEquals(Arrays.asList(ConstructorArgument.ref("mailServicePOP"), ConstructorArgument.value("30")),
+                cachedUserServiceDefinition.getConstructorArguments());
+        assertTrue(cachedMailServiceDefinition.getConstructorArguments().isEmpty());
+        assertEquals(Collections.singleton("mailService"), cachedUserServiceDefinition.getLazyRefProperties());
+        assertNull(cachedUserServiceDefinition.getLazyInit());
+        assertEquals(Scope.SINGLETON, cachedUserServiceDefinition.getScope());
+        assertSame(cachedMailServiceDefinition.getId(), cachedUserServiceDefinition.getRefDependencies().get("mailService"));
+        assertSame(cachedMailServiceDefinition.getId(), cachedUserServiceDefinition.getConstructorArguments().get(0).getRef());
+    }
+
+    @Test
+    public void testStaleCacheIsIgnored() throws Exception {
+        Path source = temporaryFolder.newFile("context.xml").toPath();
+        Files.write(source, "<beans/>".getBytes(StandardCharsets.UTF_8));
+        BeanDefinitionCache beanDefinitionCache = new BeanDefinitionCache();
+
+        beanDefinitionCache.write(source, Collections.<String, BeanDefinition>emptyMap());
+        assertTrue(Files.exists(source.resolveSibling("context.xml.bin")));
+        assertNotNull(beanDefinitionCache.read(source));
+
+        Files.setLastModifiedTime(source, FileTime.fromMillis(Files.getLastModifiedTime(source).toMillis() + 1000));
+        assertNull(beanDefinitionCache.read(source));
+    }
+
+    @Test
+    public void testCorruptCacheIsIgnored() throws Exception {
+        Path source = temporaryFolder.newFile("context.xml").toPath();
+        Files.write(source, "<beans/>".getBytes(StandardCharsets.UTF_8));
+        BeanDefinitionCache beanDefinitionCache = new BeanDefinitionCache();
+        BeanDefinition pooledDefinition = new BeanDefinition("p", "c");
+        pooledDefinition.setScope(Scope.POOLED);
+        pooledDefinition.setPoolSettings(new PoolSettings(1, 4, 2, 100));
+        beanDefinitionCache.write(source, Collections.singletonMap("p", pooledDefinition));
+        Path cacheFile = source.resolveSibling("context.xml.bin");
+        byte[] content = Files.readAllBytes(cacheFile);
+        assertNotNull(beanDefinitionCache.read(source));
+
+        // header, then the length of the id, the pool minimum size and the truncated file
+        int idLengthOffset = 28;
+        int minSizeOffset = idLengthOffset + 5 + 5 + 3;
+        for (int offset : new int[]{idLengthOffset, minSizeOffset}) {
+            byte[] corrupt = content.clone();
+            ByteBuffer.wrap(corrupt).putInt(offset, -5);
+            Files.write(cacheFile, corrupt);
+            assertNull(beanDefinitionCache.read(source));
+        }
+        Files.write(cacheFile, Arrays.copyOf(content, content.length - 3));
+        assertNull(beanDefinitionCache.read(source));
+    }
+}
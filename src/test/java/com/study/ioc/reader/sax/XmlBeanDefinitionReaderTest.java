@@ -1,15 +1,32 @@
 package com.study.ioc.reader.sax;
 
 import com.study.ioc.entity.BeanDefinition;
+import com.study.ioc.entity.ConstructorArgument;
+import com.study.ioc.entity.PoolSettings;
+import com.study.ioc.entity.Scope;
+import com.study.ioc.exception.ParseContextException;
+import com.study.ioc.reader.DuplicateBeanPolicy;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.*;
 
 public class XmlBeanDefinitionReaderTest {
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private static final String CONTEXT_XML = "<beans>\n" +
             "    <bean id=\"mailServicePOP\" class=\"com.study.entity.MailService\">\n" +
             "        <property name=\"port\" value=\"995\"/>\n" +
@@ -68,4 +85,211 @@ public class XmlBeanDefinitionReaderTest {
         assertEquals("IMAP", valueDependencies3.get("protocol"));
 
     }
+
+    @Test
+    public void testGetBeanDefinitionFromFileSystem() throws Exception {
+        Path file = temporaryFolder.newFile("context.xml").toPath();
+        Files.write(file, CONTEXT_XML.getBytes(StandardCharsets.UTF_8));
+
+        Map<String, BeanDefinition> beanDefinitionMap = new XmlBeanDefinitionReader(file.toString()).getBeanDefinition();
+
+        assertEquals(3, beanDefinitionMap.size());
+        assertEquals("mailServicePOP", beanDefinitionMap.get("userService").getRefDependencies().get("mailService"));
+    }
+
+    @Test
+    public void testGetBeanDefinitionMapWithLazyInit() throws Exception {
+        String contextXml = "<beans>\n" +
+                "    <bean id=\"lazyBean\" class=\"com.study.entity.MailService\" lazy-init=\"true\"/>\n" +
+                "    <bean id=\"eagerBean\" class=\"com.study.entity.MailService\" lazy-init=\"false\"/>\n" +
+                "    <bean id=\"defaultBean\" class=\"com.study.entity.MailService\"/>\n" +
+                "</beans>";
+        XmlBeanDefinitionReader xmlBeanDefinitionReader = new XmlBeanDefinitionReader();
+        Map<String, BeanDefinition> beanDefinitionMap = xmlBeanDefinitionReader.getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+
+        assertEquals(Boolean.TRUE, beanDefinitionMap.get("lazyBean").getLazyInit());
+        assertEquals(Boolean.FALSE, beanDefinitionMap.get("eagerBean").getLazyInit());
+        assertNull(beanDefinitionMap.get("defaultBean").getLazyInit());
+    }
+
+    @Test
+    public void testGetBeanDefinitionMapSharesNames() throws Exception {
+        String contextXml = "<beans>\n" +
+                "    <bean id=\"mailServicePOP\" class=\"com.study.entity.MailService\"><property name=\"port\" value=\"995\"/></bean>\n" +
+                "    <bean id=\"mailServiceIMAP\" class=\"com.study.entity.MailService\"><property name=\"port\" value=\"143\"/></bean>\n" +
+                "    <bean id=\"mailServiceBackup\" class=\"com.study.entity.MailService\"><property name=\"port\" value=\"995\"/></bean>\n" +
+                "    <bean id=\"userService\" class=\"com.study.entity.DefaultUserService\">\n" +
+                "        <property name=\"mailService\" ref=\"mailServicePOP\"/>\n" +
+                "    </bean>\n" +
+                "</beans>";
+        Map<String, BeanDefinition> beanDefinitionMap = new XmlBeanDefinitionReader().getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+
+        BeanDefinition pop = beanDefinitionMap.get("mailServicePOP");
+        BeanDefinition imap = beanDefinitionMap.get("mailServiceIMAP");
+        assertSame(pop.getClassName(), imap.getClassName());
+        assertSame(pop.getValueDependencies().keySet().iterator().next(), imap.getValueDependencies().keySet().iterator().next());
+        assertSame(pop.getId(), beanDefinitionMap.get("userService").getRefDependencies().get("mailService"));
+        // values are not interned, most of them occur once
+        assertNotSame(pop.getValueDependencies().get("port"), beanDefinitionMap.get("mailServiceBackup").getValueDependencies().get("port"));
+    }
+
+    @Test
+    public void testGetBeanDefinitionMapWithScope() throws Exception {
+        String contextXml = "<beans>\n" +
+                "    <bean id=\"prototypeBean\" class=\"com.study.entity.MailService\" scope=\"prototype\"/>\n" +
+                "    <bean id=\"threadBean\" class=\"com.study.entity.MailService\" scope=\"thread\"/>\n" +
+                "    <bean id=\"singletonBean\" class=\"com.study.entity.MailService\"/>\n" +
+                "</beans>";
+        XmlBeanDefinitionReader xmlBeanDefinitionReader = new XmlBeanDefinitionReader();
+        Map<String, BeanDefinition> beanDefinitionMap = xmlBeanDefinitionReader.getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+
+        assertEquals(Scope.PROTOTYPE, beanDefinitionMap.get("prototypeBean").getScope());
+        assertEquals(Scope.THREAD, beanDefinitionMap.get("threadBean").getScope());
+        assertEquals(Scope.SINGLETON, beanDefinitionMap.get("singletonBean").getScope());
+    }
+
+    @Test(expected = ParseContextException.class)
+    public void testGetBeanDefinitionMapWithWrongScope() throws Exception {
+        String contextXml = "<beans><bean id=\"bean\" class=\"com.study.entity.MailService\" scope=\"session\"/></beans>";
+        new XmlBeanDefinitionReader().getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+    }
+
+    @Test
+    public void testGetBeanDefinitionMapWithPoolSettings() throws Exception {
+        String contextXml = "<beans>\n" +
+                "    <bean id=\"pooledBean\" class=\"com.study.entity.MailService\" scope=\"pooled\" pool-min-size=\"1\" pool-max-size=\"4\"/>\n" +
+                "    <bean id=\"defaultPooledBean\" class=\"com.study.entity.MailService\" scope=\"pooled\"/>\n" +
+                "</beans>";
+        Map<String, BeanDefinition> beanDefinitionMap = new XmlBeanDefinitionReader().getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+
+        assertEquals(Scope.POOLED, beanDefinitionMap.get("pooledBean").getScope());
+        assertEquals(new PoolSettings(1, 4, 4, -1), beanDefinitionMap.get("pooledBean").getPoolSettings());
+        assertNull(beanDefinitionMap.get("defaultPooledBean").getPoolSettings());
+    }
+
+    @Test(expected = ParseContextException.class)
+    public void testGetBeanDefinitionMapWithPoolSettingsOfSingleton() throws Exception {
+        String contextXml = "<beans><bean id=\"bean\" class=\"com.study.entity.MailService\" pool-max-size=\"4\"/></beans>";
+        new XmlBeanDefinitionReader().getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+    }
+
+    @Test(expected = ParseContextException.class)
+    public void testGetBeanDefinitionMapWithWrongPoolSettings() throws Exception {
+        String contextXml = "<beans><bean id=\"bean\" class=\"com.study.entity.MailService\" scope=\"pooled\" pool-min-size=\"5\" pool-max-size=\"4\"/></beans>";
+        new XmlBeanDefinitionReader().getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+    }
+
+    @Test
+    public void testGetBeanDefinitionMapWithConstructorArguments() throws Exception {
+        String contextXml = "<beans>\n" +
+                "    <bean id=\"client\" class=\"com.study.entity.MailClient\">\n" +
+                "        <constructor-arg ref=\"mailService\"/>\n" +
+                "        <constructor-arg value=\"localhost\"/>\n" +
+                "    </bean>\n" +
+                "    <bean id=\"mailService\" class=\"com.study.entity.MailService\"/>\n" +
+                "</beans>";
+        Map<String, BeanDefinition> beanDefinitionMap = new XmlBeanDefinitionReader().getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+
+        assertEquals(Arrays.asList(ConstructorArgument.ref("mailService"), ConstructorArgument.value("localhost")),
+                beanDefinitionMap.get("client").getConstructorArguments());
+        assertTrue(beanDefinitionMap.get("mailService").getConstructorArguments().isEmpty());
+    }
+
+    @Test
+    public void testGetBeanDefinitionMapWithLazyRef() throws Exception {
+        String contextXml = "<beans>\n" +
+                "    <bean id=\"userService\" class=\"com.study.entity.DefaultUserService\">\n" +
+                "        <property name=\"mailService\" ref=\"mailService\" lazy=\"true\"/>\n" +
+                "    </bean>\n" +
+                "    <bean id=\"mailService\" class=\"com.study.entity.MailService\"/>\n" +
+                "</beans>";
+        Map<String, BeanDefinition> beanDefinitionMap = new XmlBeanDefinitionReader().getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+
+        assertEquals(Collections.singleton("mailService"), beanDefinitionMap.get("userService").getLazyRefProperties());
+        assertTrue(beanDefinitionMap.get("mailService").getLazyRefProperties().isEmpty());
+    }
+
+    @Test(expected = ParseContextException.class)
+    public void testGetBeanDefinitionMapWithLazyValue() throws Exception {
+        String contextXml = "<beans><bean id=\"mailService\" class=\"com.study.entity.MailService\">" +
+                "<property name=\"port\" value=\"25\" lazy=\"true\"/></bean></beans>";
+        new XmlBeanDefinitionReader().getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+    }
+
+    @Test(expected = ParseContextException.class)
+    public void testGetBeanDefinitionMapWithAmbiguousConstructorArgument() throws Exception {
+        String contextXml = "<beans><bean id=\"client\" class=\"com.study.entity.MailClient\">" +
+                "<constructor-arg ref=\"mailService\" value=\"localhost\"/></bean></beans>";
+        new XmlBeanDefinitionReader().getBeanDefinitionMap(new ByteArrayInputStream(contextXml.getBytes()));
+    }
+
+    @Test
+    public void testGetBeanDefinitionFromSeveralFiles() {
+        XmlBeanDefinitionReader xmlBeanDefinitionReader = new XmlBeanDefinitionReader("context.xml", "context-mail.xml");
+        Map<String, BeanDefinition> beanDefinitionMap = xmlBeanDefinitionReader.getBeanDefinition();
+
+        assertEquals(5, beanDefinitionMap.size());
+        assertEquals("110", beanDefinitionMap.get("mailServicePOP").getValueDependencies().get("port"));
+        assertEquals("25", beanDefinitionMap.get("mailServiceSMTP").getValueDependencies().get("port"));
+    }
+
+    @Test
+    public void testGetBeanDefinitionFirstWins() {
+        XmlBeanDefinitionReader xmlBeanDefinitionReader = new XmlBeanDefinitionReader("context.xml", "context-mail.xml");
+        xmlBeanDefinitionReader.setDuplicateBeanPolicy(DuplicateBeanPolicy.FIRST_WINS);
+        Map<String, BeanDefinition> beanDefinitionMap = xmlBeanDefinitionReader.getBeanDefinition();
+
+        assertEquals(5, beanDefinitionMap.size());
+        assertEquals("995", beanDefinitionMap.get("mailServicePOP").getValueDependencies().get("port"));
+    }
+
+    @Test(expected = ParseContextException.class)
+    public void testGetBeanDefinitionFailOnDuplicate() {
+        XmlBeanDefinitionReader xmlBeanDefinitionReader = new XmlBeanDefinitionReader("context.xml", "context-mail.xml");
+        xmlBeanDefinitionReader.setDuplicateBeanPolicy(DuplicateBeanPolicy.FAIL);
+        xmlBeanDefinitionReader.getBeanDefinition();
+    }
+
+    @Test
+    public void testReadBeanDefinitionsStreaming() {
+        List<String> ids = new ArrayList<>();
+        XmlBeanDefinitionReader xmlBeanDefinitionReader = new XmlBeanDefinitionReader("context.xml", "context-mail.xml");
+        xmlBeanDefinitionReader.setDuplicateBeanPolicy(DuplicateBeanPolicy.FIRST_WINS);
+        xmlBeanDefinitionReader.readBeanDefinitions(beanDefinition -> ids.add(beanDefinition.getId()));
+
+        assertEquals(Arrays.asList("mailServicePOP", "userService", "mailServiceIMAP", "userServiceImap", "mailServiceSMTP"), ids);
+    }
+
+    @Test
+    public void testReadAnotherContextWhileStreaming() {
+        List<String> ids = new ArrayList<>();
+        List<Integer> nestedSizes = new ArrayList<>();
+        new XmlBeanDefinitionReader("context.xml").readBeanDefinitions(beanDefinition -> {
+            ids.add(beanDefinition.getId());
+            nestedSizes.add(new XmlBeanDefinitionReader("context-mail.xml").getBeanDefinition().size());
+        });
+
+        assertEquals(Arrays.asList("mailServicePOP", "userService", "mailServiceIMAP", "userServiceImap"), ids);
+        assertEquals(Arrays.asList(2, 2, 2, 2), nestedSizes);
+    }
+
+    @Test(expected = ParseContextException.class)
+    public void testReadBeanDefinitionsStreamingFailsOnDuplicate() {
+        new XmlBeanDefinitionReader("context.xml", "context-mail.xml").readBeanDefinitions(beanDefinition -> {
+        });
+    }
+
+    @Test
+    public void testGetSourceVersion() {
+        String sourceVersion = new XmlBeanDefinitionReader("context.xml").getSourceVersion();
+
+        assertNotNull(sourceVersion);
+        assertEquals(sourceVersion, new XmlBeanDefinitionReader("context.xml").getSourceVersion());
+        assertNotEquals(sourceVersion, new XmlBeanDefinitionReader("context.xml", "context-mail.xml").getSourceVersion());
+    }
+
+    @Test(expected = ParseContextException.class)
+    public void testGetBeanDefinitionMissingFile() {
+        new XmlBeanDefinitionReader("missing.xml").getBeanDefinition();
+    }
 }